@@ -0,0 +1,54 @@
+-- Converts a migration_files table created before it was range partitioned into the partitioned layout of seed.sql.
+-- Run it once, with every container stopped, after creating the partitioning objects of seed.sql (migration_archive,
+-- migration_files_partitions, migration_progress, its functions and create_migration_files_partitions):
+--   psql -v partition_size=10000000 -f partition_migration_files.sql
+-- partition_size must match MIGRATION_FILES_PARTITION_SIZE. Workers and retry threads write straight to the
+-- migration_files_p<n> partition holding a file, so the old table cannot simply be attached as one partition; its rows
+-- are copied into partitions created for the ids they hold (and the ids already seeded). The old table is kept as
+-- migration_files_unpartitioned until the copy has been verified, then it can be dropped.
+\set ON_ERROR_STOP on
+
+BEGIN;
+
+LOCK TABLE migration_files IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE migration_files RENAME TO migration_files_unpartitioned;
+ALTER INDEX migration_files_pkey RENAME TO migration_files_unpartitioned_pkey;
+ALTER INDEX IF EXISTS migration_files_retry_idx RENAME TO migration_files_unpartitioned_retry_idx;
+ALTER INDEX IF EXISTS migration_files_retrying_idx RENAME TO migration_files_unpartitioned_retrying_idx;
+DROP TRIGGER IF EXISTS migration_files_progress_insert ON migration_files_unpartitioned;
+DROP TRIGGER IF EXISTS migration_files_progress_update ON migration_files_unpartitioned;
+DROP TRIGGER IF EXISTS migration_files_progress_delete ON migration_files_unpartitioned;
+-- tables created before retries remembered the status they were claimed from
+ALTER TABLE migration_files_unpartitioned ADD COLUMN IF NOT EXISTS prev_status VARCHAR(8);
+
+CREATE TABLE migration_files (
+    LIKE migration_files_unpartitioned INCLUDING DEFAULTS,
+    PRIMARY KEY (file_id)
+) PARTITION BY RANGE (file_id);
+
+CREATE INDEX migration_files_retry_idx ON migration_files (next_attempt_at) WHERE status IN ('FAIL', 'MISMATCH') AND retry_count < 3;
+CREATE INDEX migration_files_retrying_idx ON migration_files (last_attempt_date) WHERE status = 'RETRYING';
+
+CREATE TRIGGER migration_files_progress_insert AFTER INSERT ON migration_files
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files();
+CREATE TRIGGER migration_files_progress_update AFTER UPDATE ON migration_files
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files();
+CREATE TRIGGER migration_files_progress_delete AFTER DELETE ON migration_files
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files();
+
+-- partitions for every id held or seeded so far; the seed job creates the following ones as it goes
+SELECT create_migration_files_partitions(
+    coalesce(least(files.min_id, ranges.min_id), 0),
+    coalesce(greatest(files.max_id, ranges.max_id), 0),
+    :partition_size
+)
+FROM (SELECT min(file_id), max(file_id) FROM migration_files_unpartitioned) AS files(min_id, max_id),
+     (SELECT min(min_id), max(max_id) FROM migration_ranges) AS ranges(min_id, max_id);
+
+INSERT INTO migration_files SELECT * FROM migration_files_unpartitioned;
+
+-- the copy was counted on top of the counters kept for the old table
+CALL rebuild_migration_progress();
+
+COMMIT;
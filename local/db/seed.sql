@@ -6,23 +6,244 @@ CREATE TABLE migration_ranges (
     range_id SERIAL PRIMARY KEY,
     min_id BIGINT NOT NULL,
     max_id BIGINT NOT NULL,
+    checkpoint_id BIGINT, -- last file_id whose result has been committed; ranges resume after it
     status TEXT DEFAULT 'PENDING', -- PENDING, PROCESSING, COMPLETE
-    last_updated TIMESTAMP DEFAULT now()
+    last_updated TIMESTAMP DEFAULT now(),
+    parent_range_id INTEGER -- set when the range was split off the upper half of a running range
 );
 
--- Stores individual file migration statuses
+-- Supports claiming the lowest PENDING range without scanning COMPLETE ranges
+CREATE INDEX migration_ranges_pending_idx ON migration_ranges (range_id) WHERE status = 'PENDING';
+-- Supports finding the running range with the most remaining work to split
+CREATE INDEX migration_ranges_processing_idx ON migration_ranges (range_id) WHERE status = 'PROCESSING';
+
+-- Stores individual file migration statuses, range partitioned by file_id (see create_migration_files_partitions)
 CREATE TABLE migration_files (
     file_id BIGINT PRIMARY KEY,
     old_uri VARCHAR(150) NOT NULL,
     new_uri VARCHAR(150),
     file_name VARCHAR(200),
     create_date TIMESTAMP,
-    status VARCHAR(8) NOT NULL,
+    status VARCHAR(8) NOT NULL, -- SUCCESS, FAIL, RETRYING, TERMINAL (failed permanently, never retried), MISMATCH (checksum mismatch, retried)
     migration_date TIMESTAMP,
     retry_count INTEGER DEFAULT 0,
-    last_attempt_date TIMESTAMP
+    last_attempt_date TIMESTAMP,
+    next_attempt_at TIMESTAMP DEFAULT now(), -- when a failed file is next due for a retry (exponential backoff with jitter)
+    checksum VARCHAR(24), -- CRC32C of the bytes sent, verified against the destination (composite checksums end in -<parts>)
+    bytes_moved BIGINT DEFAULT 0, -- bytes transferred by the last successful attempt
+    prev_status VARCHAR(8) -- status a retry was claimed from (FAIL or MISMATCH), restored if the retry is released
+) PARTITION BY RANGE (file_id);
+
+-- Supports claiming failed files in order of their next retry without scanning successful files
+CREATE INDEX migration_files_retry_idx ON migration_files (next_attempt_at) WHERE status IN ('FAIL', 'MISMATCH') AND retry_count < 3;
+-- Supports releasing retries stuck in RETRYING
+CREATE INDEX migration_files_retrying_idx ON migration_files (last_attempt_date) WHERE status = 'RETRYING';
+
+-- Open multipart uploads of large files, so a failed move resumes from its committed parts
+CREATE TABLE migration_transfers (
+    file_id BIGINT PRIMARY KEY,
+    upload_id VARCHAR(64) NOT NULL,
+    object_url VARCHAR(300) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    part_size BIGINT NOT NULL,
+    started_at TIMESTAMP DEFAULT now()
 );
 
+-- Parts committed by the object store for each open upload
+CREATE TABLE migration_transfer_parts (
+    file_id BIGINT REFERENCES migration_transfers (file_id) ON DELETE CASCADE,
+    part_number INTEGER NOT NULL,
+    etag VARCHAR(64) NOT NULL,
+    checksum VARCHAR(8),
+    content_hash VARCHAR(64),
+    PRIMARY KEY (file_id, part_number)
+);
+
+-- Maps the content hash of migrated files to their destination object, so duplicate files can reuse it
+CREATE TABLE migration_content (
+    content_hash VARCHAR(80) PRIMARY KEY,
+    size_bytes BIGINT NOT NULL,
+    new_uri VARCHAR(150) NOT NULL,
+    create_date TIMESTAMP DEFAULT now()
+);
+
+-- Supports the size pre-filter used before hashing a file
+CREATE INDEX migration_content_size_idx ON migration_content (size_bytes);
+
+-- Partitions of migration_files, created by the seed job ahead of the ranges they hold
+CREATE TABLE migration_files_partitions (
+    partition_name VARCHAR(63) PRIMARY KEY,
+    min_id BIGINT NOT NULL,
+    max_id BIGINT NOT NULL,
+    status VARCHAR(10) NOT NULL DEFAULT 'ATTACHED', -- ATTACHED, DETACHING, ARCHIVED
+    created_at TIMESTAMP DEFAULT now()
+);
+
+-- Completed partitions are moved here once detached; archived partitions can be dumped and dropped at no cost to live data
+CREATE SCHEMA migration_archive;
+
+-- Progress counters maintained incrementally by triggers, so reports never scan the tracked tables.
+-- Each connection applies its deltas to its own stripe (pg_backend_pid() % 64) so concurrent writers rarely share a row;
+-- readers sum the stripes. Metrics: ranges:<status>, range_ids:<status>, files:<status>, retries:<retry_count>, bytes,
+-- and archived_files:<status> and archived_bytes for files moved out with their partition (their ranges stay counted)
+CREATE TABLE migration_progress (
+    metric VARCHAR(40) NOT NULL,
+    stripe SMALLINT NOT NULL,
+    value BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (metric, stripe)
+);
+
+-- Ranges change status a few rows at a time, so updates are counted by row triggers whose WHEN clause skips the frequent
+-- updates which leave the counted columns alone (checkpoints); seeded ranges are counted once per insert statement.
+-- Deltas are applied in metric order so two writers sharing a stripe cannot deadlock
+CREATE OR REPLACE FUNCTION count_migration_range()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    new_status TEXT;
+    new_ids BIGINT := 0;
+    old_status TEXT;
+    old_ids BIGINT := 0;
+BEGIN
+    IF TG_OP <> 'DELETE' THEN
+        new_status := NEW.status;
+        new_ids := NEW.max_id - NEW.min_id + 1;
+    END IF;
+    IF TG_OP <> 'INSERT' THEN
+        old_status := OLD.status;
+        old_ids := OLD.max_id - OLD.min_id + 1;
+    END IF;
+    INSERT INTO migration_progress (metric, stripe, value)
+    SELECT metric, pg_backend_pid() % 64, sum(delta)
+    FROM (VALUES ('ranges:' || new_status, 1::BIGINT), ('range_ids:' || new_status, new_ids), ('ranges:' || old_status, -1), ('range_ids:' || old_status, -old_ids)) AS changes(metric, delta)
+    WHERE metric IS NOT NULL GROUP BY metric HAVING sum(delta) <> 0 ORDER BY metric
+    ON CONFLICT (metric, stripe) DO UPDATE SET value = migration_progress.value + EXCLUDED.value;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION count_seeded_ranges()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    INSERT INTO migration_progress (metric, stripe, value)
+    SELECT counted.metric, pg_backend_pid() % 64, sum(counted.delta)
+    FROM new_rows, LATERAL (VALUES ('ranges:' || status, 1::BIGINT), ('range_ids:' || status, max_id - min_id + 1)) AS counted(metric, delta)
+    GROUP BY counted.metric ORDER BY counted.metric
+    ON CONFLICT (metric, stripe) DO UPDATE SET value = migration_progress.value + EXCLUDED.value;
+    RETURN NULL;
+END;
+$$;
+
+-- Files are written in multi-row statements (batched inserts are rewritten by the driver, retries are updated from
+-- arrays), so they are counted once per statement from its transition tables. Updated rows are paired with their
+-- previous version and only rows whose counted columns changed produce deltas, so statements which change nothing
+-- (i.e. the insert half of an upsert which only updated) never lock a counter
+CREATE OR REPLACE FUNCTION count_migration_files()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        INSERT INTO migration_progress (metric, stripe, value)
+        SELECT counted.metric, pg_backend_pid() % 64, sum(counted.delta)
+        FROM new_rows n JOIN old_rows o ON o.file_id = n.file_id, LATERAL (VALUES
+            ('files:' || n.status, 1::BIGINT),
+            ('files:' || o.status, -1),
+            ('retries:' || n.retry_count, 1),
+            ('retries:' || o.retry_count, -1),
+            ('bytes', CASE WHEN n.status = 'SUCCESS' THEN coalesce(n.bytes_moved, 0) ELSE 0 END - CASE WHEN o.status = 'SUCCESS' THEN coalesce(o.bytes_moved, 0) ELSE 0 END)
+        ) AS counted(metric, delta)
+        WHERE (n.status, n.retry_count, n.bytes_moved) IS DISTINCT FROM (o.status, o.retry_count, o.bytes_moved)
+        GROUP BY counted.metric HAVING sum(counted.delta) <> 0 ORDER BY counted.metric
+        ON CONFLICT (metric, stripe) DO UPDATE SET value = migration_progress.value + EXCLUDED.value;
+    ELSIF TG_OP = 'INSERT' THEN
+        INSERT INTO migration_progress (metric, stripe, value)
+        SELECT counted.metric, pg_backend_pid() % 64, sum(counted.delta)
+        FROM new_rows n, LATERAL (VALUES
+            ('files:' || n.status, 1::BIGINT),
+            ('retries:' || n.retry_count, 1),
+            ('bytes', CASE WHEN n.status = 'SUCCESS' THEN coalesce(n.bytes_moved, 0) ELSE 0 END)
+        ) AS counted(metric, delta)
+        GROUP BY counted.metric HAVING sum(counted.delta) <> 0 ORDER BY counted.metric
+        ON CONFLICT (metric, stripe) DO UPDATE SET value = migration_progress.value + EXCLUDED.value;
+    ELSE
+        INSERT INTO migration_progress (metric, stripe, value)
+        SELECT counted.metric, pg_backend_pid() % 64, sum(counted.delta)
+        FROM old_rows o, LATERAL (VALUES
+            ('files:' || o.status, -1::BIGINT),
+            ('retries:' || o.retry_count, -1),
+            ('bytes', CASE WHEN o.status = 'SUCCESS' THEN -coalesce(o.bytes_moved, 0) ELSE 0 END)
+        ) AS counted(metric, delta)
+        GROUP BY counted.metric HAVING sum(counted.delta) <> 0 ORDER BY counted.metric
+        ON CONFLICT (metric, stripe) DO UPDATE SET value = migration_progress.value + EXCLUDED.value;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER migration_ranges_progress_insert AFTER INSERT ON migration_ranges
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_seeded_ranges();
+CREATE TRIGGER migration_ranges_progress_update AFTER UPDATE ON migration_ranges FOR EACH ROW
+    WHEN (OLD.status IS DISTINCT FROM NEW.status OR OLD.min_id <> NEW.min_id OR OLD.max_id <> NEW.max_id) EXECUTE FUNCTION count_migration_range();
+CREATE TRIGGER migration_ranges_progress_delete AFTER DELETE ON migration_ranges FOR EACH ROW EXECUTE FUNCTION count_migration_range();
+CREATE TRIGGER migration_files_progress_insert AFTER INSERT ON migration_files
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files();
+CREATE TRIGGER migration_files_progress_update AFTER UPDATE ON migration_files
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files();
+CREATE TRIGGER migration_files_progress_delete AFTER DELETE ON migration_files
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files();
+
+-- Creates the missing partitions of migration_files covering from_id..to_id; partition n holds ids
+-- [n * partition_size, (n + 1) * partition_size) and is named migration_files_p<n>. Partitions are created empty and
+-- attached with a matching check constraint, which only takes a SHARE UPDATE EXCLUSIVE lock on migration_files, so
+-- writers to the existing partitions are not blocked
+CREATE OR REPLACE FUNCTION create_migration_files_partitions(from_id BIGINT, to_id BIGINT, partition_size BIGINT)
+RETURNS INTEGER
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    created INTEGER := 0;
+    partition_table TEXT;
+    lower_id BIGINT;
+BEGIN
+    FOR partition_index IN (from_id / partition_size)..(to_id / partition_size) LOOP
+        partition_table := 'migration_files_p' || partition_index;
+        lower_id := partition_index * partition_size;
+        CONTINUE WHEN EXISTS (SELECT 1 FROM migration_files_partitions WHERE partition_name = partition_table);
+        EXECUTE format('CREATE TABLE %I (LIKE migration_files INCLUDING DEFAULTS)', partition_table);
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (file_id >= %s AND file_id < %s)', partition_table, partition_table || '_bounds', lower_id, lower_id + partition_size);
+        -- statement triggers on migration_files do not fire for writes which target a partition directly
+        EXECUTE format('CREATE TRIGGER %I AFTER INSERT ON %I REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files()', partition_table || '_progress_insert', partition_table);
+        EXECUTE format('CREATE TRIGGER %I AFTER UPDATE ON %I REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files()', partition_table || '_progress_update', partition_table);
+        EXECUTE format('CREATE TRIGGER %I AFTER DELETE ON %I REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION count_migration_files()', partition_table || '_progress_delete', partition_table);
+        EXECUTE format('ALTER TABLE migration_files ATTACH PARTITION %I FOR VALUES FROM (%s) TO (%s)', partition_table, lower_id, lower_id + partition_size);
+        INSERT INTO migration_files_partitions (partition_name, min_id, max_id) VALUES (partition_table, lower_id, lower_id + partition_size - 1);
+        created := created + 1;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+-- Recomputes the counters from scratch (i.e. after loading data with triggers disabled); blocks writers while it runs.
+-- The archived_* counters are kept as they are, since archived partitions may have been dropped since
+CREATE OR REPLACE PROCEDURE rebuild_migration_progress()
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    LOCK TABLE migration_ranges, migration_files IN SHARE MODE;
+    DELETE FROM migration_progress WHERE metric NOT LIKE 'archived\_%';
+    INSERT INTO migration_progress (metric, stripe, value)
+    SELECT 'ranges:' || status, 0, count(*) FROM migration_ranges GROUP BY status
+    UNION ALL SELECT 'range_ids:' || status, 0, sum(max_id - min_id + 1) FROM migration_ranges GROUP BY status
+    UNION ALL SELECT 'files:' || status, 0, count(*) FROM migration_files GROUP BY status
+    UNION ALL SELECT 'retries:' || retry_count, 0, count(*) FROM migration_files GROUP BY retry_count
+    UNION ALL SELECT 'bytes', 0, coalesce(sum(bytes_moved), 0) FROM migration_files WHERE status = 'SUCCESS';
+END;
+$$;
+
 -- Sample source file table
 
 CREATE TABLE source_files (
@@ -53,11 +274,12 @@ END;
 $$;
 
 -- Views
+-- reports read the incrementally maintained counters, so they cost the same no matter how large the tables grow
 CREATE VIEW processing_report AS
-select count(status), status from migration_ranges group by status;
+select sum(value) as count, substring(metric from 8) as status from migration_progress where metric like 'ranges:%' group by metric having sum(value) <> 0;
 
 CREATE VIEW retry_report AS
-select count(retry_count), retry_count from migration_files group by retry_count;
+select sum(value) as count, substring(metric from 9)::integer as retry_count from migration_progress where metric like 'retries:%' group by metric having sum(value) <> 0;
 
 CREATE VIEW migration_status_report AS
-select count(status), status from migration_files group by status;
\ No newline at end of file
+select sum(value) as count, split_part(metric, ':', 2) as status from migration_progress where metric like 'files:%' or metric like 'archived_files:%' group by 2 having sum(value) <> 0;
\ No newline at end of file
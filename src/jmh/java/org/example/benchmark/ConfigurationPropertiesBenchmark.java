@@ -0,0 +1,40 @@
+package org.example.benchmark;
+
+import org.example.configuration.SystemConfigurationProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cached configuration lookups, which happen on every job execution and page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationPropertiesBenchmark {
+    private SystemConfigurationProperties config;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        System.setProperty("BENCHMARK_CHUNK_SIZE", "1_000");
+        this.config = new SystemConfigurationProperties();
+    }
+
+    @Benchmark
+    public Integer getInteger() {
+        return this.config.getInteger("BENCHMARK_CHUNK_SIZE", 10);
+    }
+
+    @Benchmark
+    public Boolean getBooleanDefault() {
+        return this.config.getBoolean("BENCHMARK_MISSING_FLAG", false);
+    }
+
+    @Benchmark
+    public String getStringDefault() {
+        return this.config.getString("BENCHMARK_MISSING_STRING", "STUB");
+    }
+}
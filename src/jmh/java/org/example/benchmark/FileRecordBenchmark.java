@@ -0,0 +1,48 @@
+package org.example.benchmark;
+
+import org.example.file.MigrationFile;
+import org.example.file.MigrationStatus;
+import org.example.file.SourceFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a page of source files and the migration results derived from them, as a migration page does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileRecordBenchmark {
+    private final static int BATCH_SIZE = 1_000;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<MigrationFile> buildBatch() {
+        List<SourceFile> sourceFiles = new ArrayList<>(BATCH_SIZE);
+        for (int id = 1; id <= BATCH_SIZE; id++) {
+            sourceFiles.add(new SourceFile(id, "file" + id, "/files/" + id, this.now));
+        }
+        List<MigrationFile> records = new ArrayList<>(BATCH_SIZE);
+        for (SourceFile sourceFile : sourceFiles) {
+            records.add(new MigrationFile(
+                    sourceFile.getId(),
+                    sourceFile.getUri(),
+                    "/migrated/" + sourceFile.getId(),
+                    sourceFile.getName(),
+                    sourceFile.getCreateDate(),
+                    MigrationStatus.SUCCESS,
+                    0,
+                    LocalDateTime.now()
+            ));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.benchmark;
+
+import org.example.configuration.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration backed by a plain map, so benchmarks do not depend on the environment.
+ */
+class InMemoryConfigurationProperties implements ConfigurationProperties {
+    private final Map<String, Object> values = new HashMap<>();
+
+    InMemoryConfigurationProperties set(String name, Object value) {
+        this.values.put(name, value);
+        return this;
+    }
+
+    @Override
+    public Integer getInteger(String name, Integer defaultValue) {
+        return (Integer) this.values.getOrDefault(name, defaultValue);
+    }
+
+    @Override
+    public String getString(String name, String defaultValue) {
+        return (String) this.values.getOrDefault(name, defaultValue);
+    }
+
+    @Override
+    public Boolean getBoolean(String name, Boolean defaultValue) {
+        return (Boolean) this.values.getOrDefault(name, defaultValue);
+    }
+}
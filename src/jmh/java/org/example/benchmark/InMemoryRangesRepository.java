@@ -0,0 +1,82 @@
+package org.example.benchmark;
+
+import org.example.file.JobStatus;
+import org.example.file.MigrationRange;
+import org.example.persistence.repository.MigrationRangesRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out an endless sequence of consecutive ranges of a fixed size; all writes are discarded.
+ */
+class InMemoryRangesRepository implements MigrationRangesRepository {
+    private final int rangeSize;
+    private int nextRangeId = 1;
+
+    InMemoryRangesRepository(int rangeSize) {
+        this.rangeSize = rangeSize;
+    }
+
+    @Override
+    public synchronized List<MigrationRange> claimRanges(int limit) {
+        List<MigrationRange> ranges = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            int rangeId = this.nextRangeId++;
+            int minId = (rangeId - 1) * this.rangeSize + 1;
+            ranges.add(new MigrationRange(rangeId, minId, minId + this.rangeSize - 1, 0, JobStatus.PROCESSING, LocalDateTime.now()));
+        }
+        return ranges;
+    }
+
+    @Override
+    public List<MigrationRange> claimRanges(int partitionCount, int[] partitions, int limit) {
+        return this.claimRanges(limit);
+    }
+
+    @Override
+    public MigrationRange splitRange(int minRemaining) {
+        return null;
+    }
+
+    @Override
+    public int getMaxId(int rangeId) {
+        return rangeId * this.rangeSize;
+    }
+
+    @Override
+    public void saveRange(int rangeId, JobStatus status) {
+    }
+
+    @Override
+    public void saveRanges(Map<Integer, JobStatus> statuses) {
+    }
+
+    @Override
+    public void saveCheckpoint(int rangeId, int checkpointId) {
+    }
+
+    @Override
+    public void saveCheckpoints(Map<Integer, Integer> checkpoints) {
+    }
+
+    @Override
+    public void releaseRanges(List<MigrationRange> ranges) {
+    }
+
+    @Override
+    public boolean seedRanges(boolean init) {
+        return false;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return true;
+    }
+
+    @Override
+    public void cleanup() {
+    }
+}
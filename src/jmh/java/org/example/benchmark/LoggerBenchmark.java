@@ -0,0 +1,69 @@
+package org.example.benchmark;
+
+import org.example.logger.AsyncLogWriter;
+import org.example.logger.AsyncLogger;
+import org.example.logger.LogLevel;
+import org.example.logger.Logger;
+import org.example.logger.SystemLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of formatting and writing a log line, with output discarded so only the logger itself is timed.
+ * The async variants measure what the calling thread pays; formatting happens on the log writer thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggerBenchmark {
+    private final Logger log = new SystemLogger();
+    private PrintStream out;
+    private AsyncLogWriter writer;
+    private Logger asyncLog;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.out = System.out;
+        PrintStream nullStream = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(nullStream);
+        this.writer = new AsyncLogWriter(nullStream, nullStream, LogLevel.INFO, 8_192, 0, 10);
+        this.asyncLog = new AsyncLogger(LoggerBenchmark.class.getName(), this.writer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.writer.close();
+        System.setOut(this.out);
+    }
+
+    @Benchmark
+    public void infoWithArguments() {
+        this.log.info("Processed %d file migrations, %d failed", 1_000, 3);
+    }
+
+    @Benchmark
+    public void infoPlain() {
+        this.log.info("No migration ranges available");
+    }
+
+    @Benchmark
+    public void asyncInfoWithArguments() {
+        this.asyncLog.info("Processed %d file migrations, %d failed", 1_000, 3);
+    }
+
+    @Benchmark
+    public void asyncInfoPlain() {
+        this.asyncLog.info("No migration ranges available");
+    }
+
+    @Benchmark
+    public void asyncDebugDisabled() {
+        this.asyncLog.debug("Saved %d records of range %d through file %d", 1_000, 7, 70_000);
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.benchmark;
+
+import org.example.file.MigrationFile;
+import org.example.file.MigrationStatus;
+import org.example.persistence.repository.PostgresMigrationFilesRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the JDBC batch for a page of results against a stub connection, isolating the per-row cost of
+ * the write path from the database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MigrationFilesRepositoryBenchmark {
+    private final static int BATCH_SIZE = 1_000;
+    private PostgresMigrationFilesRepository repository;
+    private List<MigrationFile> records;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.repository = new PostgresMigrationFilesRepository(StubJdbc.database(), new InMemoryConfigurationProperties());
+        this.records = new ArrayList<>(BATCH_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        for (int id = 1; id <= BATCH_SIZE; id++) {
+            this.records.add(new MigrationFile(id, "/files/" + id, "/migrated/" + id, "file" + id, now, MigrationStatus.SUCCESS, 0, now));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void save() throws SQLException {
+        this.repository.save(this.records);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void saveRetries() throws SQLException {
+        this.repository.saveRetries(this.records);
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.benchmark;
+
+import org.example.BackoffCounter;
+import org.example.concurrency.AdaptiveConcurrencyController;
+import org.example.control.NodeControl;
+import org.example.dispatch.RangeDispatcher;
+import org.example.file.JobStatus;
+import org.example.file.MigrationFile;
+import org.example.file.SourceFile;
+import org.example.jobs.MigrationJob;
+import org.example.lock.Lock;
+import org.example.mover.FileMover;
+import org.example.mover.MoveResult;
+import org.example.persistence.database.StubDatabase;
+import org.example.persistence.repository.FilesRepository;
+import org.example.persistence.sink.ResultSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Processes one whole range per invocation through {@link MigrationJob#run()}, with in-memory repositories, a no-op
+ * result sink and a mover that only injects latency. With zero latency this measures the per-file overhead of the job.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MigrationJobBenchmark {
+    private final static int RANGE_SIZE = 1_000;
+
+    @Param({"0", "100"})
+    public int moveLatencyMicros;
+
+    @Param({"1", "4"})
+    public int moveConcurrency;
+
+    private MigrationJob job;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService moveExecutor;
+    private LongAdder saved;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InMemoryConfigurationProperties config = new InMemoryConfigurationProperties()
+                .set("ENABLE_JOB", true)
+                .set("AFTER_HOURS", false)
+                .set("MIGRATION_CHUNK_SIZE", 250)
+                .set("MOVE_CONCURRENCY", this.moveConcurrency);
+        // a shut down scheduler makes the job skip rescheduling itself, so each invocation processes exactly one range
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.scheduler.shutdown();
+        this.moveExecutor = Executors.newCachedThreadPool();
+        this.saved = new LongAdder();
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(this.moveLatencyMicros);
+        FileMover mover = sourceFile -> {
+            if (latencyNanos > 0) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+            return new MoveResult("/migrated/" + sourceFile.getId(), 1_024);
+        };
+        this.job = new MigrationJob(
+                config,
+                this.scheduler,
+                new AtomicBoolean(),
+                new NodeControl(),
+                new RangeDispatcher(new InMemoryRangesRepository(RANGE_SIZE), null, 4, 1_800, 0, 0),
+                new CountingResultSink(this.saved),
+                new GeneratedFilesRepository(),
+                mover,
+                this.moveExecutor,
+                new AdaptiveConcurrencyController(1, 1, this.moveConcurrency, () -> this.moveConcurrency, 0.5, 0.1, new StubDatabase()),
+                new Lock(() -> {
+                    throw new IllegalStateException("range locking is disabled");
+                }),
+                new BackoffCounter(List.of(10))
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.moveExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RANGE_SIZE)
+    public long processRange() {
+        this.job.run();
+        return this.saved.sum();
+    }
+
+    /**
+     * Generates source files for any requested page instead of reading them from a table.
+     */
+    private static class GeneratedFilesRepository implements FilesRepository {
+        private final LocalDateTime createDate = LocalDateTime.now();
+
+        @Override
+        public List<SourceFile> getSourceFiles(int afterId, int maxId, int limit) {
+            int count = Math.max(0, Math.min(limit, maxId - afterId));
+            List<SourceFile> files = new ArrayList<>(count);
+            for (int id = afterId + 1; id <= afterId + count; id++) {
+                files.add(new SourceFile(id, "file" + id, "/files/" + id, this.createDate));
+            }
+            return files;
+        }
+    }
+
+    private static class CountingResultSink implements ResultSink {
+        private final LongAdder saved;
+
+        CountingResultSink(LongAdder saved) {
+            this.saved = saved;
+        }
+
+        @Override
+        public void save(int rangeId, List<MigrationFile> records) {
+            this.saved.add(records.size());
+        }
+
+        @Override
+        public void saveRetries(List<MigrationFile> records) {
+        }
+
+        @Override
+        public void saveCheckpoint(int rangeId, int checkpointId) {
+        }
+
+        @Override
+        public void saveRange(int rangeId, JobStatus status) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.benchmark;
+
+import org.example.persistence.database.Database;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * JDBC stand-ins which accept every call and do nothing, so benchmarks measure only the statement building done by
+ * the repositories. Batches report one updated row per added row.
+ */
+final class StubJdbc {
+    private StubJdbc() {
+    }
+
+    static Database database() {
+        DataSource dataSource = proxy(DataSource.class, (method, args) -> "getConnection".equals(method) ? connection() : null);
+        return new Database() {
+            @Override
+            public DataSource getDataSource() {
+                return dataSource;
+            }
+
+            @Override
+            public int getThreadsAwaitingConnection() {
+                return 0;
+            }
+        };
+    }
+
+    private static Connection connection() {
+        return proxy(Connection.class, (method, args) -> "prepareStatement".equals(method) ? statement() : null);
+    }
+
+    private static PreparedStatement statement() {
+        int[] batched = new int[1];
+        return proxy(PreparedStatement.class, (method, args) -> {
+            switch (method) {
+                case "addBatch" -> batched[0]++;
+                case "executeBatch" -> {
+                    int[] counts = new int[batched[0]];
+                    java.util.Arrays.fill(counts, 1);
+                    batched[0] = 0;
+                    return counts;
+                }
+                case "executeUpdate" -> {
+                    return 1;
+                }
+                default -> {
+                }
+            }
+            return null;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                StubJdbc.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    if (result == null && method.getReturnType() == int.class) {
+                        return 0;
+                    }
+                    return result;
+                }
+        ));
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+}
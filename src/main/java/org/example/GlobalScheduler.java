@@ -1,44 +1,69 @@
 package org.example;
 
+import org.example.cluster.ShardAssignment;
+import org.example.concurrency.AdaptiveConcurrencyController;
 import org.example.configuration.ConfigurationProperties;
+import org.example.control.NodeControl;
+import org.example.dispatch.RangeDispatcher;
+import org.example.file.MigrationFile;
+import org.example.jobs.AbstractJobRunner;
 import org.example.jobs.CleanupJob;
 import org.example.jobs.MigrationJob;
+import org.example.jobs.RetryFeedJob;
 import org.example.jobs.RetryJob;
 import org.example.jobs.SeedJob;
 import org.example.lock.Lock;
 import org.example.logger.Logger;
-import org.example.logger.SystemLogger;
+import org.example.logger.LoggerFactory;
 import org.example.mover.FileMover;
+import org.example.mover.TransferCleaner;
 import org.example.persistence.repository.FilesRepository;
 import org.example.persistence.repository.MigrationFilesRepository;
 import org.example.persistence.repository.MigrationRangesRepository;
+import org.example.persistence.sink.ResultSink;
+import org.example.retry.RetryQueue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 public class GlobalScheduler implements Runnable {
     private static final String GLOBAL_KEY = "MIGRATION_GLOBAL_LOCK";
     private static final UUID GLOBAL_LOCK = UUID.randomUUID();
-    private final Logger log = new SystemLogger();
+    private final Logger log = LoggerFactory.getLogger(GlobalScheduler.class);
     private final ConfigurationProperties config;
     private final Lock lock;
     private final FilesRepository filesRepository;
     private final MigrationFilesRepository migrationFilesRepository;
     private final MigrationRangesRepository rangesRepository;
     private final FileMover fileMover;
+    private final ResultSink resultSink;
+    private final AdaptiveConcurrencyController concurrencyController;
+    private final ShardAssignment shardAssignment;
+    private final NodeControl control;
+    private final TransferCleaner transferCleaner;
     private final ScheduledExecutorService globalScheduler;
-    private ScheduledExecutorService jobScheduler;
+    private ScheduledThreadPoolExecutor jobScheduler;
+    private ExecutorService moveExecutor;
+    private RangeDispatcher rangeDispatcher;
     private ScheduledExecutorService seedScheduler;
-    private ScheduledExecutorService retryScheduler;
+    private ScheduledThreadPoolExecutor retryScheduler;
+    private ScheduledExecutorService retryFeedScheduler;
+    private RetryQueue retryQueue;
     private ScheduledExecutorService cleanupScheduler;
+    private final List<MigrationJob> migrationJobs = new ArrayList<>();
+    private final List<RetryJob> retryJobs = new ArrayList<>();
     private boolean schedulersInitialized = false;
     private final AtomicBoolean shutdown;
 
-    public GlobalScheduler(ConfigurationProperties config, Lock lock, FilesRepository filesRepository, MigrationFilesRepository migrationFilesRepository, MigrationRangesRepository rangesRepository, FileMover fileMover) {
+    public GlobalScheduler(ConfigurationProperties config, Lock lock, FilesRepository filesRepository, MigrationFilesRepository migrationFilesRepository, MigrationRangesRepository rangesRepository, FileMover fileMover, ResultSink resultSink, AdaptiveConcurrencyController concurrencyController, ShardAssignment shardAssignment, NodeControl control, TransferCleaner transferCleaner) {
         this.shutdown = new AtomicBoolean(false);
         this.config = config;
         this.lock = lock;
@@ -46,12 +71,33 @@ public class GlobalScheduler implements Runnable {
         this.migrationFilesRepository = migrationFilesRepository;
         this.rangesRepository = rangesRepository;
         this.fileMover = fileMover;
+        this.resultSink = resultSink;
+        this.concurrencyController = concurrencyController;
+        this.shardAssignment = shardAssignment;
+        this.control = control;
+        this.transferCleaner = transferCleaner;
         this.globalScheduler = Executors.newSingleThreadScheduledExecutor();
+        if (config.getBoolean("ENABLE_ADAPTIVE_CONCURRENCY", false)) {
+            int interval = config.getInteger("CONCURRENCY_ADJUST_INTERVAL", 10);
+            this.globalScheduler.scheduleWithFixedDelay(concurrencyController, interval, interval, TimeUnit.SECONDS);
+        }
+        int controlInterval = config.getInteger("CONTROL_INTERVAL", 5);
+        this.globalScheduler.scheduleWithFixedDelay(this::applyControls, controlInterval, controlInterval, TimeUnit.SECONDS);
     }
 
     @Override
     public void run() {
-        if (this.config.getBoolean("ENABLE_GLOBAL_LOCKING", false)) {
+        if (this.shardAssignment != null) {
+            // every node migrates its own share of range partitions; seed and cleanup stay singleton via their own locks
+            int heartbeatInterval = this.config.getInteger("NODE_HEARTBEAT_INTERVAL", 10);
+            this.globalScheduler.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatInterval, TimeUnit.SECONDS);
+            this.globalScheduler.submit(this::scheduleJobs);
+        } else if (this.config.getBoolean("ENABLE_GLOBAL_LOCKING", false)) {
+            if (this.control.isDraining()) {
+                // a drained node leaves the global lock to the other containers
+                this.globalScheduler.schedule(this, this.config.getInteger("GLOBAL_LOCK_TTL", 7_200), TimeUnit.SECONDS);
+                return;
+            }
             try {
                 this.log.info("Running global schedule check");
                 // only run job on one container during a given period to reduce load if needed
@@ -69,7 +115,7 @@ public class GlobalScheduler implements Runnable {
                     // transition to another container
                     this.globalScheduler.schedule(this, globalJobTtl, TimeUnit.SECONDS);
                 } else {
-                    this.log.info(String.format("Global schedule lock already acquired; sleeping for %d seconds", globalJobTtl));
+                    this.log.info("Global schedule lock already acquired; sleeping for %d seconds", globalJobTtl);
                     // job already locked by another container; wait to check again until lock period is over
                     this.globalScheduler.schedule(this, globalJobTtl, TimeUnit.SECONDS);
                     // in case this container had previous lock, shut down schedulers
@@ -88,12 +134,25 @@ public class GlobalScheduler implements Runnable {
         this.schedulersInitialized = true;
 
         // Schedulers
+        // JOB_THREADS is the ceiling; with adaptive concurrency only up to the current limit process ranges at once
         int jobThreads = config.getInteger("JOB_THREADS", 20);
-        this.jobScheduler = Executors.newScheduledThreadPool(jobThreads);
+        this.jobScheduler = new ScheduledThreadPoolExecutor(jobThreads);
+        // helper threads for intra-range parallel moves; bounded by JOB_THREADS * (MOVE_CONCURRENCY - 1)
+        this.moveExecutor = Executors.newCachedThreadPool();
         int retryThreads = config.getInteger("RETRY_THREADS", 5);
-        this.retryScheduler = Executors.newScheduledThreadPool(retryThreads);
+        this.retryScheduler = new ScheduledThreadPoolExecutor(retryThreads);
+        this.retryFeedScheduler = Executors.newSingleThreadScheduledExecutor();
+        this.retryQueue = new RetryQueue(config.getInteger("RETRY_QUEUE_SIZE", 5_000));
         this.seedScheduler = Executors.newSingleThreadScheduledExecutor();
         this.cleanupScheduler = Executors.newSingleThreadScheduledExecutor();
+        this.rangeDispatcher = new RangeDispatcher(
+                this.rangesRepository,
+                this.shardAssignment,
+                config.getInteger("RANGE_CLAIM_BATCH", 4),
+                config.getInteger("RANGE_CLAIM_TTL", 1_800),
+                config.getInteger("RANGE_CLAIM_COOLDOWN", 5),
+                config.getBoolean("ENABLE_RANGE_SPLITTING", false) ? config.getInteger("RANGE_SPLIT_MIN_SIZE", 2_000) : 0
+        );
 
         // Initialize
         this.seedScheduler.submit(new SeedJob(
@@ -101,45 +160,186 @@ public class GlobalScheduler implements Runnable {
                 this.seedScheduler,
                 this.lock,
                 this.rangesRepository,
-                this.shutdown
+                this.shutdown,
+                this.control
         ));
         for (int i = 0; i < jobThreads; i++) {
-            this.jobScheduler.schedule(new MigrationJob(
-                    this.config,
-                    this.jobScheduler,
-                    this.shutdown,
-                    this.rangesRepository,
-                    this.migrationFilesRepository,
-                    this.filesRepository,
-                    this.fileMover,
-                    this.lock,
-                    new BackoffCounter(List.of(10, 30, 60, 300))
-            ), 5, TimeUnit.SECONDS);
+            this.jobScheduler.schedule(this.addMigrationJob(), 5, TimeUnit.SECONDS);
         }
+        this.retryFeedScheduler.schedule(new RetryFeedJob(
+                this.config,
+                this.retryFeedScheduler,
+                this.retryQueue,
+                this.migrationFilesRepository,
+                this.shutdown,
+                this.control
+        ), 30, TimeUnit.SECONDS);
         for (int i = 0; i < retryThreads; i++) {
-            this.retryScheduler.schedule(new RetryJob(
-                    this.config,
-                    this.retryScheduler,
-                    this.migrationFilesRepository,
-                    this.fileMover,
-                    this.shutdown
-            ), 30, TimeUnit.SECONDS);
+            this.retryScheduler.schedule(this.addRetryJob(), 30, TimeUnit.SECONDS);
         }
         this.cleanupScheduler.schedule(new CleanupJob(
                 this.config,
                 this.cleanupScheduler,
                 this.lock,
                 this.rangesRepository,
-                this.shutdown
+                this.migrationFilesRepository,
+                this.transferCleaner,
+                this.shutdown,
+                this.control
         ), 60, TimeUnit.SECONDS);
     }
 
+    private MigrationJob addMigrationJob() {
+        MigrationJob job = new MigrationJob(
+                this.config,
+                this.jobScheduler,
+                this.shutdown,
+                this.control,
+                this.rangeDispatcher,
+                this.resultSink,
+                this.filesRepository,
+                this.fileMover,
+                this.moveExecutor,
+                this.concurrencyController,
+                this.lock,
+                new BackoffCounter(List.of(10, 30, 60, 300))
+        );
+        this.migrationJobs.add(job);
+        return job;
+    }
+
+    private RetryJob addRetryJob() {
+        RetryJob job = new RetryJob(
+                this.config,
+                this.retryScheduler,
+                this.retryQueue,
+                this.resultSink,
+                this.fileMover,
+                this.shutdown,
+                this.control
+        );
+        this.retryJobs.add(job);
+        return job;
+    }
+
+    /**
+     * Applies runtime changes on every control tick: resizes the worker and retry pools to JOB_THREADS and
+     * RETRY_THREADS, and hands queued ranges and retries back while this node is drained.
+     */
+    private void applyControls() {
+        try {
+            if (!this.schedulersInitialized) {
+                return;
+            }
+            int jobThreads = Math.max(0, this.config.getInteger("JOB_THREADS", 20));
+            int retryThreads = Math.max(0, this.config.getInteger("RETRY_THREADS", 5));
+            if (jobThreads != this.migrationJobs.size()) {
+                this.log.info("Resizing migration workers from %d to %d", this.migrationJobs.size(), jobThreads);
+                this.resize(this.jobScheduler, this.migrationJobs, jobThreads, this::addMigrationJob);
+            }
+            // no-op unless JOB_THREADS or MOVE_CONCURRENCY changed
+            int maxWorkers = Math.max(1, jobThreads);
+            this.concurrencyController.resize(maxWorkers, maxWorkers * Math.max(1, this.config.getInteger("MOVE_CONCURRENCY", 1)));
+            if (retryThreads != this.retryJobs.size()) {
+                this.log.info("Resizing retry workers from %d to %d", this.retryJobs.size(), retryThreads);
+                this.resize(this.retryScheduler, this.retryJobs, retryThreads, this::addRetryJob);
+            }
+            if (this.control.isDraining()) {
+                this.rangeDispatcher.releaseQueued();
+                this.releaseRetries();
+                if (this.config.getBoolean("ENABLE_GLOBAL_LOCKING", false)) {
+                    this.lock.releaseLock(GLOBAL_KEY, GLOBAL_LOCK);
+                }
+            }
+        } catch (Exception e) {
+            this.log.error("Failed to apply runtime controls");
+            this.log.error(e);
+        }
+    }
+
+    /**
+     * Grows a pool by scheduling new jobs right away, or shrinks it by retiring jobs, which stop once their current
+     * execution finishes.
+     */
+    private <T extends AbstractJobRunner> void resize(ScheduledThreadPoolExecutor scheduler, List<T> jobs, int size, Supplier<T> factory) {
+        if (size > jobs.size()) {
+            scheduler.setCorePoolSize(size);
+            while (jobs.size() < size) {
+                scheduler.schedule(factory.get(), 0, TimeUnit.SECONDS);
+            }
+        } else {
+            while (jobs.size() > size) {
+                jobs.remove(jobs.size() - 1).retire();
+            }
+            scheduler.setCorePoolSize(Math.max(1, size));
+        }
+    }
+
+    /**
+     * Hands queued retries back to FAIL so other containers can pick them up; they keep their next attempt date.
+     */
+    private void releaseRetries() {
+        List<MigrationFile> queued = this.retryQueue.drain();
+        if (queued.isEmpty()) {
+            return;
+        }
+        this.log.info("Releasing %d queued file migration retries", queued.size());
+        try {
+            this.migrationFilesRepository.releaseRetries(queued);
+        } catch (Exception e) {
+            // the cleanup job will release them once they go stale
+            this.log.error("Failed to release queued file migration retries");
+            this.log.error(e);
+        }
+    }
+
+    private void heartbeat() {
+        if (this.control.isDraining()) {
+            // leaving the ring hands this node's partitions to the other containers
+            this.shardAssignment.leave();
+        } else {
+            this.shardAssignment.run();
+        }
+    }
+
+    /**
+     * Stops all jobs from being rescheduled, then flushes any results still waiting to be persisted.
+     */
+    public void shutdown() {
+        this.log.info("Shutting down file migration");
+        this.shutdown.set(true);
+        this.globalScheduler.shutdown();
+        if (this.shardAssignment != null) {
+            this.shardAssignment.leave();
+        }
+        boolean running = this.schedulersInitialized;
+        this.shutdownSchedulers();
+        if (running) {
+            try {
+                // let in-flight ranges finish their current chunk before flushing results
+                this.jobScheduler.awaitTermination(this.config.getInteger("SHUTDOWN_TIMEOUT", 30), TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.resultSink.close();
+        // last, so everything logged while shutting down is written out
+        LoggerFactory.shutdown();
+    }
+
     private void shutdownSchedulers() {
         if (this.schedulersInitialized) {
+            // queued ranges go straight back to PENDING; ranges being processed are released by their workers
+            this.rangeDispatcher.close();
             this.jobScheduler.shutdown();
+            this.moveExecutor.shutdown();
             this.seedScheduler.shutdown();
             this.retryScheduler.shutdown();
+            this.retryFeedScheduler.shutdown();
             this.cleanupScheduler.shutdown();
+            this.releaseRetries();
+            this.migrationJobs.clear();
+            this.retryJobs.clear();
             this.schedulersInitialized = false;
         }
     }
@@ -1,20 +1,53 @@
 package org.example;
 
+import org.example.circuit.CircuitBreaker;
+import org.example.cluster.NodeRegistry;
+import org.example.cluster.ShardAssignment;
+import org.example.concurrency.AdaptiveConcurrencyController;
 import org.example.configuration.ConfigurationProperties;
+import org.example.configuration.ReloadableConfigurationProperties;
 import org.example.configuration.SystemConfigurationProperties;
+import org.example.control.AdminServer;
+import org.example.control.NodeControl;
 import org.example.lock.Lock;
-import org.example.mover.FileMover;
-import org.example.mover.StubFileMover;
+import org.example.metrics.Metrics;
+import org.example.metrics.MetricsServer;
+import org.example.mover.*;
+import org.example.objectstore.LocalObjectStore;
 import org.example.persistence.database.Database;
 import org.example.persistence.database.HikariDatabase;
 import org.example.persistence.repository.*;
+import org.example.persistence.sink.DirectResultSink;
+import org.example.persistence.sink.ResultSink;
+import org.example.persistence.sink.WriteBehindResultSink;
+import org.example.progress.ProgressTracker;
+import org.example.ratelimit.RateLimiter;
+import org.example.ratelimit.RedisTokenBucket;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
 public class Main {
     public static void main(String[] args) {
         // Dependencies
-        ConfigurationProperties config = new SystemConfigurationProperties();
+        ReloadableConfigurationProperties config = new SystemConfigurationProperties();
+        if (config.getBoolean("ENABLE_METRICS", true)) {
+            try {
+                new MetricsServer(Metrics.registry(), config.getInteger("METRICS_PORT", 8080)).start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to start metrics server", e);
+            }
+        }
         Database database = new HikariDatabase(config);
 
         JedisPoolConfig jedisPoolConfig = new JedisPoolConfig();
@@ -26,9 +59,116 @@ public class Main {
         Lock lock = new Lock(jedisPool::getResource);
 
         FilesRepository filesRepository = new PostgresFilesRepository(database);
-        MigrationFilesRepository migrationFilesRepository = new PostgresMigrationFilesRepository(database);
+        MigrationFilesRepository migrationFilesRepository = new PostgresMigrationFilesRepository(database, config);
         MigrationRangesRepository rangesRepository = new PostgresMigrationRangesRepository(database, config);
-        FileMover fileMover = new StubFileMover();
+
+        // Concurrency
+        int jobThreads = config.getInteger("JOB_THREADS", 20);
+        int maxMoves = jobThreads * Math.max(1, config.getInteger("MOVE_CONCURRENCY", 1));
+        AdaptiveConcurrencyController concurrencyController = new AdaptiveConcurrencyController(
+                jobThreads,
+                Math.min(maxMoves, config.getInteger("MIN_CONCURRENCY", 1)),
+                maxMoves,
+                () -> config.getInteger("MOVE_CONCURRENCY", 1),
+                config.getInteger("LATENCY_TOLERANCE_PERCENT", 50) / 100d,
+                config.getInteger("MAX_ERROR_RATE_PERCENT", 10) / 100d,
+                database
+        );
+        Metrics.registry().gauge("migration_concurrency_worker_limit", "Workers allowed to process ranges at once", concurrencyController::getWorkerLimit);
+        Metrics.registry().gauge("migration_concurrency_move_limit", "Moves allowed in flight at once", concurrencyController::getMoveLimit);
+        List<TransferCleaner> transferCleaners = new ArrayList<>();
+        FileMover fileMover = new InstrumentedFileMover(createFileMover(config, database, transferCleaners), Metrics.registry());
+        if (config.getBoolean("ENABLE_ADAPTIVE_CONCURRENCY", false)) {
+            // migration and retry moves share the same in-flight limit since they load the same destination
+            fileMover = new ConcurrencyLimitedFileMover(fileMover, concurrencyController);
+        }
+
+        // Sharding
+        ShardAssignment shardAssignment = null;
+        if (config.getBoolean("ENABLE_SHARDING", false)) {
+            String nodeId = String.format("%s-%s", config.getString("HOSTNAME", "node"), UUID.randomUUID());
+            shardAssignment = new ShardAssignment(
+                    new NodeRegistry(jedisPool::getResource, nodeId, config.getInteger("NODE_TTL", 30)),
+                    config.getInteger("SHARD_PARTITIONS", 256),
+                    config.getInteger("SHARD_VIRTUAL_NODES", 64)
+            );
+        }
+
+        // Rate limits
+        // rate limit waits happen before a move slot is taken, so they do not count as mover latency
+        // limits are read on every move so they can be changed at runtime; a limit of 0 leaves that dimension unlimited
+        int burstSeconds = Math.max(1, config.getInteger("RATE_LIMIT_BURST_SECONDS", 1));
+        // without sharding only the lock holder moves files; with it, a node cut off from Redis takes its share of the rate
+        ShardAssignment shards = shardAssignment;
+        IntSupplier nodeCount = shards != null ? shards::getNodeCount : () -> 1;
+        fileMover = new RateLimitedFileMover(
+                fileMover,
+                new RateLimiter(
+                        new RedisTokenBucket(jedisPool::getResource, "MIGRATION_RATE_FILES", () -> config.getInteger("RATE_LIMIT_FILES_PER_SECOND", 0), burstSeconds),
+                        config.getInteger("RATE_LIMIT_FILES_BATCH", 10),
+                        nodeCount
+                ),
+                new RateLimiter(
+                        new RedisTokenBucket(jedisPool::getResource, "MIGRATION_RATE_BYTES", () -> config.getInteger("RATE_LIMIT_MB_PER_SECOND", 0) * 1_048_576L, burstSeconds),
+                        config.getInteger("RATE_LIMIT_BYTES_BATCH_MB", 8) * 1_048_576L,
+                        nodeCount
+                )
+        );
+        // breakers are checked before anything else, so a move rejected by an open breaker takes no rate limit tokens
+        int failureThreshold = config.getInteger("BREAKER_FAILURE_THRESHOLD", 10);
+        int openSeconds = config.getInteger("BREAKER_OPEN_SECONDS", 30);
+        CircuitBreaker sourceBreaker = new CircuitBreaker("source", failureThreshold, openSeconds);
+        CircuitBreaker destinationBreaker = new CircuitBreaker("destination", failureThreshold, openSeconds);
+        Metrics.registry().gauge("migration_circuit_open", "Whether the circuit breaker of an endpoint is open", "endpoint", "source", () -> sourceBreaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1);
+        Metrics.registry().gauge("migration_circuit_open", "Whether the circuit breaker of an endpoint is open", "endpoint", "destination", () -> destinationBreaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1);
+        fileMover = new CircuitBreakingFileMover(fileMover, sourceBreaker, destinationBreaker);
+
+        // Result persistence
+        ResultSink resultSink;
+        if (config.getBoolean("ENABLE_WRITE_BEHIND", false)) {
+            // flusher threads get their own connections so group commits never wait on the worker pool
+            int sinkThreads = config.getInteger("SINK_THREADS", 2);
+            Database sinkDatabase = new HikariDatabase(config, "result-sink-pool", sinkThreads);
+            resultSink = new WriteBehindResultSink(
+                    new PostgresMigrationFilesRepository(sinkDatabase, config),
+                    new PostgresMigrationRangesRepository(sinkDatabase, config),
+                    sinkThreads,
+                    config.getInteger("SINK_QUEUE_SIZE", 64),
+                    config.getInteger("SINK_MAX_GROUP_SIZE", 16),
+                    config.getInteger("SHUTDOWN_TIMEOUT", 30) * 1000L
+            );
+        } else {
+            resultSink = new DirectResultSink(migrationFilesRepository, rangesRepository);
+        }
+
+        // Control plane
+        NodeControl control = new NodeControl();
+        if (config.getBoolean("ENABLE_ADMIN", false)) {
+            try {
+                new AdminServer(
+                        config,
+                        control,
+                        concurrencyController,
+                        config.getInteger("ADMIN_PORT", 8081),
+                        config.getString("ADMIN_TOKEN", "")
+                ).start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to start admin server", e);
+            }
+        }
+
+        // Progress
+        if (config.getBoolean("ENABLE_PROGRESS", true)) {
+            // counters are global, so every container can report the cluster-wide throughput and projected completion
+            ProgressTracker progressTracker = new ProgressTracker(config, new PostgresProgressRepository(database), Metrics.registry());
+            int progressInterval = Math.max(1, config.getInteger("PROGRESS_INTERVAL", 60));
+            ScheduledExecutorService progressScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "progress-tracker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            progressScheduler.scheduleWithFixedDelay(progressTracker, 0, progressInterval, TimeUnit.SECONDS);
+        }
 
         // Global Scheduler
         GlobalScheduler globalScheduler = new GlobalScheduler(
@@ -37,8 +177,81 @@ public class Main {
                 filesRepository,
                 migrationFilesRepository,
                 rangesRepository,
-                fileMover
+                fileMover,
+                resultSink,
+                concurrencyController,
+                shardAssignment,
+                control,
+                transferCleaners.isEmpty() ? null : transferCleaners.get(0)
         );
+        Runtime.getRuntime().addShutdownHook(new Thread(globalScheduler::shutdown));
         globalScheduler.run();
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the configured mover; a mover which keeps resumable uploads is added to transferCleaners so the cleanup
+     * job can abort uploads which will never be resumed.
+     */
+    private static FileMover createFileMover(ConfigurationProperties config, Database database, List<TransferCleaner> transferCleaners) {
+        String mover = config.getString("FILE_MOVER", "STUB");
+        if ("STUB".equalsIgnoreCase(mover)) {
+            return new StubFileMover();
+        }
+        SourceStore sourceStore = new FileSystemSourceStore(Path.of(config.getString("SOURCE_ROOT", "/")));
+        BufferPool bufferPool = new BufferPool(
+                config.getInteger("TRANSFER_BUFFER_SIZE", 1_048_576),
+                config.getInteger("TRANSFER_BUFFERS", 64)
+        );
+        StreamingFileMover streamingMover = createStreamingFileMover(config, mover, sourceStore, bufferPool);
+        streamingMover.setVerifyChecksums(config.getBoolean("VERIFY_CHECKSUMS", false));
+        if (streamingMover instanceof HttpObjectStoreFileMover httpMover && config.getBoolean("ENABLE_RESUMABLE_UPLOADS", false)) {
+            httpMover.setTransferRepository(new PostgresTransferRepository(database));
+            transferCleaners.add(httpMover);
+        }
+        if (config.getBoolean("ENABLE_DEDUP", false)) {
+            return new DeduplicatingFileMover(
+                    streamingMover,
+                    sourceStore,
+                    new PostgresContentIndexRepository(database),
+                    config.getInteger("DEDUP_MIN_SIZE", 65_536)
+            );
+        }
+        return streamingMover;
+    }
+
+    private static StreamingFileMover createStreamingFileMover(ConfigurationProperties config, String mover, SourceStore sourceStore, BufferPool bufferPool) {
+        if ("FILESYSTEM".equalsIgnoreCase(mover)) {
+            return new FileSystemFileMover(sourceStore, bufferPool, Path.of(config.getString("DESTINATION_ROOT", "/migrated")));
+        }
+        if ("HTTP".equalsIgnoreCase(mover)) {
+            String endpoint = config.getString("OBJECT_STORE_URL", "http://localhost:9000");
+            if (config.getBoolean("OBJECT_STORE_EMBEDDED", false)) {
+                // run the local object store stand-in in-process for local runs
+                try {
+                    new LocalObjectStore(
+                            Path.of(config.getString("OBJECT_STORE_ROOT", "/object-store")),
+                            config.getInteger("OBJECT_STORE_PORT", 9000),
+                            config.getInteger("OBJECT_STORE_THREADS", 32)
+                    ).start();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to start local object store", e);
+                }
+            }
+            return new HttpObjectStoreFileMover(
+                    sourceStore,
+                    bufferPool,
+                    endpoint,
+                    config.getString("OBJECT_STORE_BUCKET", "migrated-files"),
+                    config.getInteger("OBJECT_STORE_TIMEOUT", 60_000),
+                    new MultipartSettings(
+                            config.getInteger("MULTIPART_THRESHOLD_MB", 256) * 1_048_576L,
+                            config.getInteger("MULTIPART_PART_SIZE_MB", 64) * 1_048_576L,
+                            config.getInteger("MULTIPART_CONCURRENCY", 4),
+                            config.getInteger("MULTIPART_PART_ATTEMPTS", 3),
+                            Executors.newFixedThreadPool(config.getInteger("MULTIPART_THREADS", 16))
+                    )
+            );
+        }
+        throw new IllegalArgumentException(String.format("Unknown FILE_MOVER %s", mover));
+    }
+}
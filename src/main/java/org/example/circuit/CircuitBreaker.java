@@ -0,0 +1,117 @@
+package org.example.circuit;
+
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the health of a single endpoint. After FAILURE_THRESHOLD consecutive endpoint failures the breaker opens and
+ * rejects moves for the open duration; it then lets a single trial move through (half open), closing again if the
+ * trial succeeds and reopening if it fails. A trial which reports no outcome within the trial timeout (the open duration,
+ * at least a minute) is considered lost, and the next move becomes the trial instead.
+ * <p>
+ * The closed state is checked with a single volatile read, so healthy endpoints add no locking to the move path.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final long trialNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile State state = State.CLOSED;
+    private long openUntil;
+    private boolean trialInFlight;
+    private long trialStarted;
+
+    public CircuitBreaker(String name, int failureThreshold, long openSeconds) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.SECONDS.toNanos(Math.max(1, openSeconds));
+        this.trialNanos = Math.max(this.openNanos, TimeUnit.MINUTES.toNanos(1));
+    }
+
+    /**
+     * Returns 0 if a move may go ahead, otherwise the number of seconds to wait before asking again.
+     */
+    public long tryAcquire() {
+        if (this.state == State.CLOSED) {
+            return 0;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (this.state == State.OPEN) {
+                if (now - this.openUntil < 0) {
+                    return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(this.openUntil - now + 999_999_999));
+                }
+                this.state = State.HALF_OPEN;
+                this.trialInFlight = false;
+            }
+            if (this.state == State.HALF_OPEN) {
+                if (this.trialInFlight && now - this.trialStarted < this.trialNanos) {
+                    return 1;
+                }
+                if (this.trialInFlight) {
+                    this.log.info("Circuit breaker trial for %s timed out; starting a new trial", this.name);
+                }
+                this.trialInFlight = true;
+                this.trialStarted = now;
+            }
+            return 0;
+        }
+    }
+
+    public void recordSuccess() {
+        if (this.consecutiveFailures.get() != 0) {
+            this.consecutiveFailures.set(0);
+        }
+        if (this.state != State.CLOSED) {
+            synchronized (this) {
+                if (this.state == State.HALF_OPEN) {
+                    this.state = State.CLOSED;
+                    this.trialInFlight = false;
+                    this.log.info("Circuit breaker for %s closed", this.name);
+                }
+            }
+        }
+    }
+
+    public void recordFailure() {
+        int failures = this.consecutiveFailures.incrementAndGet();
+        if (this.state == State.HALF_OPEN || (this.state == State.CLOSED && failures >= this.failureThreshold)) {
+            synchronized (this) {
+                if (this.state != State.OPEN) {
+                    this.state = State.OPEN;
+                    this.trialInFlight = false;
+                    this.openUntil = System.nanoTime() + this.openNanos;
+                    this.log.error("Circuit breaker for %s opened after %d consecutive failures", this.name, failures);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends a move whose outcome says nothing about this endpoint, so a pending trial does not block others forever.
+     */
+    public void release() {
+        if (this.state == State.HALF_OPEN) {
+            synchronized (this) {
+                this.trialInFlight = false;
+            }
+        }
+    }
+
+    public State getState() {
+        return this.state;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.cluster;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Tracks live migration containers in a Redis sorted set scored by each node's last heartbeat.
+ * Nodes which miss heartbeats for longer than the TTL are considered gone and pruned by the next heartbeat.
+ */
+public class NodeRegistry {
+    private final static String NODES_KEY = "MIGRATION_NODES";
+    private final Supplier<Jedis> jedisSupplier;
+    private final String nodeId;
+    private final long ttlMillis;
+
+    public NodeRegistry(Supplier<Jedis> jedisSupplier, String nodeId, int ttlSeconds) {
+        this.jedisSupplier = jedisSupplier;
+        this.nodeId = nodeId;
+        this.ttlMillis = ttlSeconds * 1000L;
+    }
+
+    /**
+     * Records a heartbeat for this node and returns the ids of all live nodes, this node included.
+     */
+    public List<String> heartbeat() {
+        try (Jedis jedis = this.jedisSupplier.get()) {
+            long now = System.currentTimeMillis();
+            jedis.zadd(NODES_KEY, now, this.nodeId);
+            jedis.zremrangeByScore(NODES_KEY, Double.NEGATIVE_INFINITY, now - this.ttlMillis);
+            return jedis.zrangeByScore(NODES_KEY, now - this.ttlMillis, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Removes this node so the remaining nodes rebalance without waiting for its heartbeat to expire.
+     */
+    public void leave() {
+        try (Jedis jedis = this.jedisSupplier.get()) {
+            jedis.zrem(NODES_KEY, this.nodeId);
+        }
+    }
+
+    public String getNodeId() {
+        return this.nodeId;
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.cluster;
+
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns range partitions ({@code range_id % partitionCount}) to live nodes using a consistent hash ring, so every
+ * container claims ranges from its own partitions instead of contending for the same rows. Each run heartbeats this
+ * node and recomputes the assignment from the current membership; when a node joins or leaves, only the partitions
+ * of that node change owner.
+ */
+public class ShardAssignment implements Runnable {
+    private final Logger log = LoggerFactory.getLogger(ShardAssignment.class);
+    private final NodeRegistry registry;
+    private final int partitionCount;
+    private final int virtualNodes;
+    private volatile int[] partitions;
+    private volatile List<String> nodes = List.of();
+
+    public ShardAssignment(NodeRegistry registry, int partitionCount, int virtualNodes) {
+        this.registry = registry;
+        this.partitionCount = partitionCount;
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    public void run() {
+        try {
+            // the registry lists nodes in heartbeat order, which changes every run; compare sorted ids instead
+            List<String> live = this.registry.heartbeat().stream().sorted().toList();
+            if (!live.equals(this.nodes)) {
+                this.rebalance(live);
+            }
+        } catch (Exception e) {
+            // keep the last known assignment; other nodes will drop this one if heartbeats keep failing
+            this.log.error("Failed to refresh migration cluster membership");
+            this.log.error(e);
+        }
+    }
+
+    private void rebalance(List<String> live) {
+        ConsistentHashRing ring = new ConsistentHashRing(live, this.virtualNodes);
+        List<Integer> owned = new ArrayList<>();
+        for (int partition = 0; partition < this.partitionCount; partition++) {
+            if (this.registry.getNodeId().equals(ring.getNode("partition-" + partition))) {
+                owned.add(partition);
+            }
+        }
+        this.partitions = owned.stream().mapToInt(Integer::intValue).toArray();
+        this.nodes = live;
+        this.log.info("Cluster has %d live nodes; %s owns %d of %d range partitions", live.size(), this.registry.getNodeId(), owned.size(), this.partitionCount);
+    }
+
+    /**
+     * Partitions currently owned by this node, or null if no assignment has been made yet.
+     */
+    public int[] getPartitions() {
+        return this.partitions;
+    }
+
+    /**
+     * Number of live nodes in the last membership seen, counting this node even before its first heartbeat.
+     */
+    public int getNodeCount() {
+        return Math.max(1, this.nodes.size());
+    }
+
+    public int getPartitionCount() {
+        return this.partitionCount;
+    }
+
+    public void leave() {
+        try {
+            this.registry.leave();
+        } catch (Exception e) {
+            this.log.error(e);
+        }
+    }
+}
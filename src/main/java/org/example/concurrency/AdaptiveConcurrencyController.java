@@ -0,0 +1,172 @@
+package org.example.concurrency;
+
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+import org.example.persistence.database.Database;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Adjusts the number of active migration workers and in-flight file moves based on observed mover latency, mover error
+ * rate and database pool contention, using additive-increase/multiplicative-decrease.
+ * <p>
+ * Each tick compares the average move latency of the last interval to a slowly rising baseline of the best latency
+ * seen so far. The move limit backs off multiplicatively when latency degrades past the tolerance, the error rate
+ * exceeds its threshold or threads are waiting on the connection pool; otherwise, when the current limit was fully
+ * used, it grows by one. The worker limit follows the move limit, since each worker runs up to MOVE_CONCURRENCY moves.
+ * <p>
+ * When adaptive concurrency is disabled both limits stay at their maximum, so workers and moves are never throttled.
+ */
+public class AdaptiveConcurrencyController implements Runnable {
+    private final static double DECREASE_FACTOR = 0.75;
+    private final static double BASELINE_DRIFT = 1.05;
+    private final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+    private final AdjustableLimit workers;
+    private final AdjustableLimit moves;
+    private final int minMoves;
+    private volatile int maxMoves;
+    private volatile int maxWorkers;
+    private final IntSupplier moveConcurrency;
+    private final double latencyTolerance;
+    private final double maxErrorRate;
+    private final Database database;
+    private final LongAdder moveCount = new LongAdder();
+    private final LongAdder moveErrors = new LongAdder();
+    private final LongAdder moveNanos = new LongAdder();
+    private double baselineNanos = Double.MAX_VALUE;
+
+    public AdaptiveConcurrencyController(
+            int maxWorkers,
+            int minMoves,
+            int maxMoves,
+            IntSupplier moveConcurrency,
+            double latencyTolerance,
+            double maxErrorRate,
+            Database database
+    ) {
+        this.maxWorkers = maxWorkers;
+        this.minMoves = minMoves;
+        this.maxMoves = maxMoves;
+        this.moveConcurrency = moveConcurrency;
+        this.latencyTolerance = latencyTolerance;
+        this.maxErrorRate = maxErrorRate;
+        this.database = database;
+        this.workers = new AdjustableLimit(maxWorkers);
+        this.moves = new AdjustableLimit(maxMoves);
+    }
+
+    /**
+     * Reserves a slot for a migration worker to process a range, if the worker limit allows it.
+     */
+    public boolean tryAcquireWorker() {
+        return this.workers.tryAcquire();
+    }
+
+    public void releaseWorker() {
+        this.workers.release();
+    }
+
+    /**
+     * Waits for a slot to run a single file move.
+     */
+    public void acquireMove() throws InterruptedException {
+        this.moves.acquire();
+    }
+
+    public void releaseMove() {
+        this.moves.release();
+    }
+
+    /**
+     * Records the outcome of a single file move.
+     */
+    public void recordMove(long nanos, boolean success) {
+        this.moveCount.increment();
+        this.moveNanos.add(nanos);
+        if (!success) {
+            this.moveErrors.increment();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.adjust();
+        } catch (Exception e) {
+            this.log.error("Failed to adjust migration concurrency");
+            this.log.error(e);
+        }
+    }
+
+    private synchronized void adjust() {
+        long count = this.moveCount.sumThenReset();
+        long errors = this.moveErrors.sumThenReset();
+        long nanos = this.moveNanos.sumThenReset();
+        int peakMoves = this.moves.getAndResetPeakInUse();
+        if (count == 0) {
+            // nothing to learn from an idle interval
+            return;
+        }
+        double latency = (double) nanos / count;
+        double errorRate = (double) errors / count;
+        int poolWaiters = this.database.getThreadsAwaitingConnection();
+        this.baselineNanos = Math.min(this.baselineNanos * BASELINE_DRIFT, latency);
+        double gradient = this.baselineNanos / latency;
+
+        int limit = this.moves.getLimit();
+        int next = limit;
+        String reason = null;
+        if (errorRate > this.maxErrorRate) {
+            reason = String.format("error rate %.1f%%", errorRate * 100);
+        } else if (poolWaiters > 0) {
+            reason = String.format("%d threads waiting on DB connections", poolWaiters);
+        } else if (gradient < this.latencyTolerance) {
+            reason = String.format("move latency %.0fms vs baseline %.0fms", latency / 1e6, this.baselineNanos / 1e6);
+        }
+        if (reason != null) {
+            next = Math.max(this.minMoves, (int) (limit * DECREASE_FACTOR));
+        } else if (peakMoves >= limit) {
+            next = Math.min(this.maxMoves, limit + 1);
+        }
+        if (next != limit) {
+            this.moves.setLimit(next);
+            int perWorker = Math.max(1, this.moveConcurrency.getAsInt());
+            int workerLimit = Math.max(1, Math.min(this.maxWorkers, (next + perWorker - 1) / perWorker));
+            this.workers.setLimit(workerLimit);
+            if (reason != null) {
+                this.log.info("Decreased concurrency to %d moves / %d workers (%s)", next, workerLimit, reason);
+            } else {
+                this.log.info("Increased concurrency to %d moves / %d workers", next, workerLimit);
+            }
+        }
+    }
+
+    /**
+     * Changes the worker and move ceilings, e.g. when JOB_THREADS is changed at runtime. Limits sitting at the old
+     * ceiling follow it to the new one; backed-off limits are only lowered if they exceed the new ceiling.
+     */
+    public synchronized void resize(int maxWorkers, int maxMoves) {
+        int workerLimit = this.workers.getLimit();
+        int moveLimit = this.moves.getLimit();
+        this.workers.setLimit(workerLimit >= this.maxWorkers ? maxWorkers : Math.min(workerLimit, maxWorkers));
+        this.moves.setLimit(moveLimit >= this.maxMoves ? maxMoves : Math.min(moveLimit, maxMoves));
+        this.maxWorkers = maxWorkers;
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Returns the number of workers currently processing a range.
+     */
+    public int getActiveWorkers() {
+        return this.workers.getInUse();
+    }
+
+    public int getWorkerLimit() {
+        return this.workers.getLimit();
+    }
+
+    public int getMoveLimit() {
+        return this.moves.getLimit();
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.concurrency;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit which can be raised or lowered while permits are held.
+ * Lowering the limit never revokes held permits; it only delays new acquisitions until enough permits are released.
+ */
+public class AdjustableLimit {
+    private final ResizableSemaphore permits;
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private int limit;
+
+    public AdjustableLimit(int limit) {
+        this.permits = new ResizableSemaphore(limit);
+        this.limit = limit;
+    }
+
+    public boolean tryAcquire() {
+        if (this.permits.tryAcquire()) {
+            this.onAcquire();
+            return true;
+        }
+        return false;
+    }
+
+    public void acquire() throws InterruptedException {
+        this.permits.acquire();
+        this.onAcquire();
+    }
+
+    public void release() {
+        this.inUse.decrementAndGet();
+        this.permits.release();
+    }
+
+    public synchronized void setLimit(int limit) {
+        int delta = limit - this.limit;
+        if (delta > 0) {
+            this.permits.release(delta);
+        } else if (delta < 0) {
+            this.permits.reducePermits(-delta);
+        }
+        this.limit = limit;
+    }
+
+    public synchronized int getLimit() {
+        return this.limit;
+    }
+
+    public int getInUse() {
+        return this.inUse.get();
+    }
+
+    /**
+     * Returns the highest number of permits held at once since the last call, then resets it to the current usage.
+     */
+    public int getAndResetPeakInUse() {
+        return this.peakInUse.getAndSet(this.inUse.get());
+    }
+
+    private void onAcquire() {
+        int current = this.inUse.incrementAndGet();
+        this.peakInUse.accumulateAndGet(current, Math::max);
+    }
+
+    private static class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
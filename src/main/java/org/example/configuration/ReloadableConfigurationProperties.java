@@ -0,0 +1,16 @@
+package org.example.configuration;
+
+import java.util.Map;
+
+/**
+ * Configuration whose values can be overridden while the migration is running. Overrides take precedence over the
+ * environment and are picked up by the next read, so settings read on every scheduling tick change without a redeploy.
+ */
+public interface ReloadableConfigurationProperties extends ConfigurationProperties {
+    /**
+     * Applies the given overrides in a single swap; a null value removes the override for that name.
+     */
+    void override(Map<String, String> values);
+
+    Map<String, String> getOverrides();
+}
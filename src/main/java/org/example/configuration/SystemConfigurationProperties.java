@@ -1,64 +1,83 @@
 package org.example.configuration;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
-public class SystemConfigurationProperties implements ConfigurationProperties {
-    private final Map<String, Object> cache = new ConcurrentHashMap<>();
+/**
+ * Reads configuration from environment variables and system properties, with runtime overrides on top.
+ * <p>
+ * Parsed values are cached in an immutable snapshot, so reads on hot paths are a single lock-free map lookup.
+ * Overriding a value builds a new snapshot and swaps it in; readers holding the old snapshot finish with the old
+ * values and the next read sees the new ones.
+ */
+public class SystemConfigurationProperties implements ReloadableConfigurationProperties {
+    private final static Object NULL = new Object();
+    private volatile Snapshot snapshot = new Snapshot(Map.of());
 
     @Override
     public Integer getInteger(String name, Integer defaultValue) {
-        String key = name + "_INT";
-        if (this.cache.containsKey(key)) {
-            return (Integer) this.cache.get(key);
-        }
-        String value = this.getProperty(name);
-        if (value == null) {
-            this.cache.put(key, defaultValue);
-            return defaultValue;
-        }
-        value = value.replaceAll("_", "").replaceAll(",", "");
-        Integer result = Integer.parseInt(value);
-        this.cache.put(key, result);
-        return result;
+        return this.snapshot.get(name, "_INT", defaultValue, value -> Integer.parseInt(value.replaceAll("_", "").replaceAll(",", "")));
     }
 
     @Override
     public String getString(String name, String defaultValue) {
-        String key = name + "_STR";
-        if (this.cache.containsKey(key)) {
-            return (String) this.cache.get(key);
-        }
-        String value = this.getProperty(name);
-        if (value == null) {
-            this.cache.put(key, defaultValue);
-            return defaultValue;
-        }
-        this.cache.put(key, value);
-        return value;
+        return this.snapshot.get(name, "_STR", defaultValue, Function.identity());
     }
 
     @Override
     public Boolean getBoolean(String name, Boolean defaultValue) {
-        String key = name + "_BOOL";
-        if (this.cache.containsKey(key)) {
-            return (Boolean) this.cache.get(key);
+        return this.snapshot.get(name, "_BOOL", defaultValue, Boolean::parseBoolean);
+    }
+
+    @Override
+    public synchronized void override(Map<String, String> values) {
+        Map<String, String> overrides = new HashMap<>(this.snapshot.overrides);
+        values.forEach((name, value) -> {
+            if (value == null) {
+                overrides.remove(name);
+            } else {
+                overrides.put(name, value);
+            }
+        });
+        this.snapshot = new Snapshot(Map.copyOf(overrides));
+    }
+
+    @Override
+    public Map<String, String> getOverrides() {
+        return this.snapshot.overrides;
+    }
+
+    private static class Snapshot {
+        private final Map<String, String> overrides;
+        private final Map<String, Object> cache = new ConcurrentHashMap<>();
+
+        Snapshot(Map<String, String> overrides) {
+            this.overrides = overrides;
         }
-        String value = this.getProperty(name);
-        if (value == null) {
-            this.cache.put(key, defaultValue);
-            return defaultValue;
+
+        @SuppressWarnings("unchecked")
+        <T> T get(String name, String suffix, T defaultValue, Function<String, T> parser) {
+            String key = name + suffix;
+            Object cached = this.cache.get(key);
+            if (cached == null) {
+                String value = this.getProperty(name);
+                cached = value != null ? parser.apply(value) : defaultValue;
+                this.cache.put(key, cached != null ? cached : NULL);
+            }
+            return cached == NULL ? null : (T) cached;
         }
-        Boolean result = Boolean.parseBoolean(value);
-        this.cache.put(key, result);
-        return result;
-    }
 
-    private String getProperty(String name) {
-        String value = System.getenv(name);
-        if (value == null) {
-            value = System.getProperty(name);
+        private String getProperty(String name) {
+            String value = this.overrides.get(name);
+            if (value == null) {
+                value = System.getenv(name);
+            }
+            if (value == null) {
+                value = System.getProperty(name);
+            }
+            return value;
         }
-        return value;
     }
 }
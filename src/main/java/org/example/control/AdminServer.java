@@ -0,0 +1,214 @@
+package org.example.control;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.concurrency.AdaptiveConcurrencyController;
+import org.example.configuration.ReloadableConfigurationProperties;
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Serves the admin API used to control the migration on this container without a redeploy:
+ * <ul>
+ *     <li>{@code GET /admin/status} -- pause/drain state, active workers and current overrides</li>
+ *     <li>{@code POST /admin/pause}, {@code /admin/resume} and {@code /admin/drain}</li>
+ *     <li>{@code GET /admin/config} and {@code POST /admin/config} with a form body ({@code JOB_THREADS=10&BATCH_SIZE=5000});
+ *     an empty value removes the override</li>
+ * </ul>
+ * Only settings which are read on every scheduling tick can be overridden. If a token is configured, every request
+ * must send it as a bearer token; without a token the API only listens on the loopback interface.
+ */
+public class AdminServer {
+    private final static Set<String> BOOLEAN_SETTINGS = Set.of("ENABLE_JOB", "AFTER_HOURS");
+    private final static Set<String> INTEGER_SETTINGS = Set.of(
+            "JOB_THREADS",
+            "RETRY_THREADS",
+            "MOVE_CONCURRENCY",
+            "MIGRATION_CHUNK_SIZE",
+            "BATCH_SIZE",
+            "RATE_LIMIT_FILES_PER_SECOND",
+            "RATE_LIMIT_MB_PER_SECOND",
+            "MIGRATION_DELAY",
+            "RETRY_DELAY",
+            "RETRY_BATCH_SIZE",
+            "SEED_DELAY",
+            "CLEANUP_DELAY",
+            "START_HOUR",
+            "START_MINUTE",
+            "END_HOUR",
+            "END_MINUTE"
+    );
+    // sizes which seed ranges and claim retries; zero would seed empty ranges (generate_series with a zero step)
+    private final static Set<String> POSITIVE_SETTINGS = Set.of("BATCH_SIZE", "RETRY_BATCH_SIZE");
+    private final Logger log = LoggerFactory.getLogger(AdminServer.class);
+    private final ReloadableConfigurationProperties config;
+    private final NodeControl control;
+    private final AdaptiveConcurrencyController concurrencyController;
+    private final byte[] token;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public AdminServer(ReloadableConfigurationProperties config, NodeControl control, AdaptiveConcurrencyController concurrencyController, int port, String token) throws IOException {
+        this.config = config;
+        this.control = control;
+        this.concurrencyController = concurrencyController;
+        this.token = token == null || token.isEmpty() ? null : ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(this.token != null ? new InetSocketAddress(port) : new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newSingleThreadExecutor();
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/admin/status", exchange -> this.handle(exchange, "GET", this::status));
+        this.server.createContext("/admin/pause", exchange -> this.handle(exchange, "POST", () -> {
+            this.control.pause();
+            this.log.info("Migration paused through admin API");
+            return this.status();
+        }));
+        this.server.createContext("/admin/resume", exchange -> this.handle(exchange, "POST", () -> {
+            this.control.resume();
+            this.log.info("Migration resumed through admin API");
+            return this.status();
+        }));
+        this.server.createContext("/admin/drain", exchange -> this.handle(exchange, "POST", () -> {
+            this.control.drain();
+            this.log.info("Draining node through admin API");
+            return this.status();
+        }));
+        this.server.createContext("/admin/config", this::handleConfig);
+    }
+
+    public void start() {
+        this.server.start();
+        if (this.token == null) {
+            this.log.info("ADMIN_TOKEN is not set; serving unauthenticated admin API on %s only", this.server.getAddress());
+        } else {
+            this.log.info("Serving admin API on port %d", this.server.getAddress().getPort());
+        }
+    }
+
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdown();
+    }
+
+    private void handleConfig(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!this.isAuthorized(exchange)) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            if ("POST".equals(method)) {
+                Map<String, String> values = new HashMap<>();
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                for (String pair : body.split("[&\\n]")) {
+                    if (pair.isBlank()) {
+                        continue;
+                    }
+                    int separator = pair.indexOf('=');
+                    String name = URLDecoder.decode(separator < 0 ? pair : pair.substring(0, separator), StandardCharsets.UTF_8).trim();
+                    String value = separator < 0 ? "" : URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8).trim();
+                    String error = validate(name, value);
+                    if (error != null) {
+                        this.respond(exchange, 400, error + "\n");
+                        return;
+                    }
+                    values.put(name, value.isEmpty() ? null : value);
+                }
+                // applied as one snapshot swap; jobs pick the new values up on their next tick
+                this.config.override(values);
+                this.log.info("Configuration overridden through admin API: %s", values);
+            } else if (!"GET".equals(method)) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            this.respond(exchange, 200, this.overrides());
+        }
+    }
+
+    private static String validate(String name, String value) {
+        if (BOOLEAN_SETTINGS.contains(name)) {
+            if (!value.isEmpty() && !"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                return String.format("%s must be true or false", name);
+            }
+            return null;
+        }
+        if (!INTEGER_SETTINGS.contains(name)) {
+            return String.format("%s cannot be changed at runtime", name);
+        }
+        if (!value.isEmpty()) {
+            try {
+                int parsed = Integer.parseInt(value.replaceAll("_", "").replaceAll(",", ""));
+                if (POSITIVE_SETTINGS.contains(name) && parsed < 1) {
+                    return String.format("%s must be at least 1", name);
+                }
+                if (parsed < 0) {
+                    return String.format("%s must not be negative", name);
+                }
+            } catch (NumberFormatException e) {
+                return String.format("%s must be an integer", name);
+            }
+        }
+        return null;
+    }
+
+    private String status() {
+        StringBuilder status = new StringBuilder();
+        status.append("paused ").append(this.control.isPaused()).append('\n');
+        status.append("draining ").append(this.control.isDraining()).append('\n');
+        status.append("active_workers ").append(this.concurrencyController.getActiveWorkers()).append('\n');
+        status.append("worker_limit ").append(this.concurrencyController.getWorkerLimit()).append('\n');
+        status.append("move_limit ").append(this.concurrencyController.getMoveLimit()).append('\n');
+        return status.append(this.overrides()).toString();
+    }
+
+    private String overrides() {
+        StringBuilder overrides = new StringBuilder();
+        new TreeMap<>(this.config.getOverrides()).forEach((name, value) -> overrides.append(name).append('=').append(value).append('\n'));
+        return overrides.toString();
+    }
+
+    private void handle(HttpExchange exchange, String method, Supplier<String> body) throws IOException {
+        try (exchange) {
+            if (!this.isAuthorized(exchange)) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            this.respond(exchange, 200, body.get());
+        }
+    }
+
+    private boolean isAuthorized(HttpExchange exchange) {
+        if (this.token == null) {
+            return true;
+        }
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && MessageDigest.isEqual(this.token, header.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
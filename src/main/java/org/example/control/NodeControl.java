@@ -0,0 +1,41 @@
+package org.example.control;
+
+/**
+ * Operator controls for the jobs of this container. Jobs check these flags on every scheduling tick.
+ * <p>
+ * Pausing stops workers at their next page or tick while keeping this node's claimed ranges and cluster membership.
+ * Draining additionally hands queued ranges back and removes the node from the cluster, so other containers take over
+ * its share of the migration. Resuming clears both.
+ */
+public class NodeControl {
+    private volatile boolean paused = false;
+    private volatile boolean draining = false;
+
+    public void pause() {
+        this.paused = true;
+    }
+
+    public void drain() {
+        this.draining = true;
+    }
+
+    public void resume() {
+        this.paused = false;
+        this.draining = false;
+    }
+
+    public boolean isPaused() {
+        return this.paused;
+    }
+
+    public boolean isDraining() {
+        return this.draining;
+    }
+
+    /**
+     * Returns true if jobs should not pick up new work.
+     */
+    public boolean isHalted() {
+        return this.paused || this.draining;
+    }
+}
@@ -0,0 +1,211 @@
+package org.example.dispatch;
+
+import org.example.cluster.ShardAssignment;
+import org.example.file.MigrationRange;
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
+import org.example.persistence.repository.MigrationRangesRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out migration ranges to the workers of this container from a small local queue, claiming a batch of ranges in
+ * a single query whenever the queue runs dry. Only one worker refills the queue at a time; the others wait for that
+ * claim instead of issuing their own, and an empty claim is remembered for a short cooldown so workers waking up from
+ * backoff together do not all query the database.
+ * <p>
+ * Queued ranges are already PROCESSING in the database. Ranges left in the queue longer than the claim TTL are handed
+ * back rather than processed, so they can never be picked up by the stale-range cleanup while still queued here, and
+ * all queued ranges are handed back on shutdown. Ranges are only handed back if nobody has touched them since they
+ * were claimed.
+ * <p>
+ * With splitting enabled, a worker finding no ranges to claim splits the running range with the most remaining ids
+ * and takes its upper half. The owner of the split range re-reads its upper bound before every page, so at most the
+ * page it was already processing overlaps with the new range; results are upserted, so that overlap is harmless.
+ */
+public class RangeDispatcher {
+    private final Logger log = LoggerFactory.getLogger(RangeDispatcher.class);
+    private final MigrationRangesRepository rangesRepository;
+    private final ShardAssignment shardAssignment;
+    private final int batchSize;
+    private final long claimTtlNanos;
+    private final long emptyCooldownNanos;
+    private final int splitMinRemaining;
+    private final Deque<ClaimedRange> queue = new ArrayDeque<>();
+    private final ReentrantLock claimLock = new ReentrantLock();
+    private final Histogram claimLatency = Metrics.registry().histogram("migration_range_claim_seconds", "Time to claim a batch of ranges", Histogram.LATENCY_BUCKETS);
+    private final Histogram splitLatency = Metrics.registry().histogram("migration_range_split_seconds", "Time to split a running range", Histogram.LATENCY_BUCKETS);
+    // nanoTime values are only comparable by difference, so this starts at the current time rather than 0
+    private long emptyUntil;
+    private boolean closed = false;
+
+    public RangeDispatcher(
+            MigrationRangesRepository rangesRepository,
+            ShardAssignment shardAssignment,
+            int batchSize,
+            int claimTtlSeconds,
+            int emptyCooldownSeconds,
+            int splitMinRemaining
+    ) {
+        this.rangesRepository = rangesRepository;
+        this.shardAssignment = shardAssignment;
+        this.batchSize = Math.max(1, batchSize);
+        this.claimTtlNanos = TimeUnit.SECONDS.toNanos(claimTtlSeconds);
+        this.emptyCooldownNanos = TimeUnit.SECONDS.toNanos(emptyCooldownSeconds);
+        this.splitMinRemaining = splitMinRemaining;
+        this.emptyUntil = System.nanoTime();
+    }
+
+    /**
+     * Returns the next range for this worker to process, claiming a new batch if the local queue is empty.
+     * Returns null if no ranges are available.
+     */
+    public MigrationRange next() throws SQLException {
+        MigrationRange range = this.poll();
+        if (range != null) {
+            return range;
+        }
+        this.claimLock.lock();
+        try {
+            // another worker may have refilled the queue while this one waited
+            range = this.poll();
+            if (range != null || this.isClosed() || System.nanoTime() - this.emptyUntil < 0) {
+                return range;
+            }
+            long start = System.nanoTime();
+            List<MigrationRange> claimed = this.claim();
+            this.claimLatency.observeSince(start);
+            if (claimed.isEmpty() && this.splitMinRemaining > 0) {
+                // nothing left to claim -- steal the upper half of the largest running range instead of idling
+                start = System.nanoTime();
+                MigrationRange split = this.rangesRepository.splitRange(this.splitMinRemaining);
+                this.splitLatency.observeSince(start);
+                if (split != null) {
+                    this.log.info("Split off range %d (ids %d to %d) from a running range", split.getRangeId(), split.getMinId(), split.getMaxId());
+                    return split;
+                }
+            }
+            if (claimed.isEmpty()) {
+                this.emptyUntil = System.nanoTime() + this.emptyCooldownNanos;
+                return null;
+            }
+            long now = System.nanoTime();
+            synchronized (this.queue) {
+                if (this.closed) {
+                    // shut down while claiming -- hand the batch straight back
+                    this.release(claimed);
+                    return null;
+                }
+                claimed.forEach(claimedRange -> this.queue.add(new ClaimedRange(claimedRange, now)));
+            }
+            return this.poll();
+        } finally {
+            this.claimLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current upper bound of a range being processed, which shrinks when another worker splits it.
+     */
+    public int getMaxId(MigrationRange range) throws SQLException {
+        if (this.splitMinRemaining <= 0) {
+            return range.getMaxId();
+        }
+        return this.rangesRepository.getMaxId(range.getRangeId());
+    }
+
+    /**
+     * Stops handing out ranges and releases every queued range back to PENDING.
+     */
+    public void close() {
+        synchronized (this.queue) {
+            this.closed = true;
+        }
+        this.releaseQueued();
+    }
+
+    /**
+     * Releases every queued range back to PENDING, e.g. when this node is drained. Later calls to {@link #next()} claim
+     * new ranges as usual.
+     */
+    public void releaseQueued() {
+        List<MigrationRange> unclaimed = new ArrayList<>();
+        synchronized (this.queue) {
+            this.queue.forEach(claimedRange -> unclaimed.add(claimedRange.range));
+            this.queue.clear();
+        }
+        if (!unclaimed.isEmpty()) {
+            this.log.info("Releasing %d queued migration ranges", unclaimed.size());
+            this.release(unclaimed);
+        }
+    }
+
+    /**
+     * Claims ranges from this node's partitions when sharding is enabled. Once those are drained, ranges of other
+     * partitions are claimed instead of idling, so nodes finishing early help with the tail of the migration.
+     */
+    private List<MigrationRange> claim() throws SQLException {
+        int[] partitions = this.shardAssignment != null ? this.shardAssignment.getPartitions() : null;
+        if (partitions != null && partitions.length > 0) {
+            List<MigrationRange> ranges = this.rangesRepository.claimRanges(this.shardAssignment.getPartitionCount(), partitions, this.batchSize);
+            if (!ranges.isEmpty()) {
+                return ranges;
+            }
+        }
+        return this.rangesRepository.claimRanges(this.batchSize);
+    }
+
+    private MigrationRange poll() {
+        List<MigrationRange> stale = new ArrayList<>();
+        MigrationRange range = null;
+        synchronized (this.queue) {
+            while (range == null && !this.queue.isEmpty()) {
+                ClaimedRange next = this.queue.poll();
+                if (System.nanoTime() - next.claimedAt > this.claimTtlNanos) {
+                    stale.add(next.range);
+                } else {
+                    range = next.range;
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            this.log.info("Releasing %d migration ranges which were queued too long", stale.size());
+            this.release(stale);
+        }
+        return range;
+    }
+
+    private void release(List<MigrationRange> ranges) {
+        try {
+            this.rangesRepository.releaseRanges(ranges);
+        } catch (Exception e) {
+            // the cleanup job will release them once they go stale
+            this.log.error("Failed to release queued migration ranges");
+            this.log.error(e);
+        }
+    }
+
+    private boolean isClosed() {
+        synchronized (this.queue) {
+            return this.closed;
+        }
+    }
+
+    private static class ClaimedRange {
+        private final MigrationRange range;
+        private final long claimedAt;
+
+        ClaimedRange(MigrationRange range, long claimedAt) {
+            this.range = range;
+            this.claimedAt = claimedAt;
+        }
+    }
+}
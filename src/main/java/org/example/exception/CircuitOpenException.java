@@ -0,0 +1,21 @@
+package org.example.exception;
+
+/**
+ * Thrown instead of attempting a move while the circuit breaker of an endpoint is open. The file was not touched, so
+ * callers should hand it back rather than record a failure.
+ */
+public class CircuitOpenException extends MigrationException {
+    private final long retryAfterSeconds;
+
+    public CircuitOpenException(Endpoint endpoint, long retryAfterSeconds) {
+        super(String.format("Circuit breaker for %s is open", endpoint.name().toLowerCase()), FailureType.TRANSIENT, endpoint);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Seconds until the breaker lets a trial move through.
+     */
+    public long getRetryAfterSeconds() {
+        return this.retryAfterSeconds;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.exception;
+
+/**
+ * The side of a move a failure is attributed to.
+ */
+public enum Endpoint {
+    SOURCE, DESTINATION
+}
@@ -0,0 +1,67 @@
+package org.example.exception;
+
+import java.io.FileNotFoundException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * Classifies why a move failed, which decides whether the file is retried and whether the failure counts against the
+ * health of the endpoint involved.
+ */
+public enum FailureType {
+    /** Timeouts, dropped connections and server errors; retried, and counted against the endpoint. */
+    TRANSIENT,
+    /** The endpoint asked us to slow down (429 or 503); retried, and counted against the endpoint. */
+    THROTTLED,
+    /** The file itself can never be moved as is (i.e. rejected as malformed or too large); not retried. */
+    PERMANENT,
+    /** The source file no longer exists; not retried. */
+    NOT_FOUND,
+    /** The checksum reported by the destination does not match the bytes sent; retried. */
+    MISMATCH;
+
+    /**
+     * Whether the failure says something about the endpoint rather than the file being moved.
+     */
+    public boolean isEndpointFailure() {
+        return this == TRANSIENT || this == THROTTLED;
+    }
+
+    /**
+     * Whether the file can succeed on a later attempt.
+     */
+    public boolean isRetryable() {
+        return this == TRANSIENT || this == THROTTLED || this == MISMATCH;
+    }
+
+    /**
+     * Classifies an exception by the first cause in its chain that identifies the failure, defaulting to TRANSIENT.
+     */
+    public static FailureType of(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MigrationException migrationException && migrationException.isClassified()) {
+                return migrationException.getType();
+            }
+            if (cause instanceof NoSuchFileException || cause instanceof FileNotFoundException) {
+                return NOT_FOUND;
+            }
+            if (cause instanceof AccessDeniedException) {
+                return PERMANENT;
+            }
+        }
+        return TRANSIENT;
+    }
+
+    /**
+     * Classifies an HTTP status returned by the destination. Statuses which could apply to every request (auth, a
+     * missing bucket, timeouts and server errors) are treated as TRANSIENT so they trip the circuit breaker instead of
+     * failing files one by one.
+     */
+    public static FailureType fromStatus(int status) {
+        return switch (status) {
+            case 429, 503 -> THROTTLED;
+            case 400, 405, 411, 413, 414, 415, 422 -> PERMANENT;
+            default -> TRANSIENT;
+        };
+    }
+}
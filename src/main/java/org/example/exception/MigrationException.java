@@ -1,7 +1,48 @@
 package org.example.exception;
 
 public class MigrationException extends Exception {
+    private final FailureType type;
+    private final Endpoint endpoint;
+
     public MigrationException(String message) {
-        super(message);
+        this(message, null, null, null);
+    }
+
+    public MigrationException(String message, Throwable cause) {
+        this(message, null, null, cause);
+    }
+
+    public MigrationException(String message, FailureType type, Endpoint endpoint) {
+        this(message, type, endpoint, null);
+    }
+
+    public MigrationException(String message, FailureType type, Endpoint endpoint, Throwable cause) {
+        super(message, cause);
+        this.type = type;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Returns the failure type, classifying unclassified exceptions by their cause.
+     */
+    public FailureType getType() {
+        if (this.type != null) {
+            return this.type;
+        }
+        return this.getCause() != null ? FailureType.of(this.getCause()) : FailureType.TRANSIENT;
+    }
+
+    public boolean isClassified() {
+        return this.type != null;
+    }
+
+    /**
+     * Returns the endpoint the failure is attributed to, or null if unknown.
+     */
+    public Endpoint getEndpoint() {
+        if (this.endpoint == null && this.getCause() instanceof MigrationException cause) {
+            return cause.getEndpoint();
+        }
+        return this.endpoint;
     }
-}
\ No newline at end of file
+}
@@ -23,6 +23,9 @@ public class MigrationFile {
     private MigrationStatus status;
     private int retryCount;
     private LocalDateTime lastAttemptDate;
+    private LocalDateTime nextAttemptDate;
+    private String checksum;
+    private long bytes;
 
     public MigrationFile(int id, String oldUri, String newUri, String fileName, LocalDateTime createDate, MigrationStatus status, int retryCount, LocalDateTime lastAttemptDate) {
         this.id = id;
@@ -98,4 +101,28 @@ public class MigrationFile {
     public void setLastAttemptDate(LocalDateTime lastAttemptDate) {
         this.lastAttemptDate = lastAttemptDate;
     }
+
+    public LocalDateTime getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(LocalDateTime nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
 }
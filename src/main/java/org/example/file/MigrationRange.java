@@ -6,13 +6,15 @@ public class MigrationRange {
     private int rangeId;
     private int minId;
     private int maxId;
+    private int checkpointId;
     private JobStatus status;
     private LocalDateTime lastUpdated;
 
-    public MigrationRange(int rangeId, int minId, int maxId, JobStatus status, LocalDateTime lastUpdated) {
+    public MigrationRange(int rangeId, int minId, int maxId, int checkpointId, JobStatus status, LocalDateTime lastUpdated) {
         this.rangeId = rangeId;
         this.minId = minId;
         this.maxId = maxId;
+        this.checkpointId = checkpointId;
         this.status = status;
         this.lastUpdated = lastUpdated;
     }
@@ -41,6 +43,17 @@ public class MigrationRange {
         this.maxId = maxId;
     }
 
+    /**
+     * The last file id whose result has been committed for this range, or 0 if the range has not been started.
+     */
+    public int getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(int checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
     public JobStatus getStatus() {
         return status;
     }
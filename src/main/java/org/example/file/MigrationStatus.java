@@ -1,14 +1,18 @@
 package org.example.file;
 
+import org.example.exception.FailureType;
+
 import java.util.Map;
 
 public enum MigrationStatus {
-    SUCCESS("SUCCESS"), FAIL("FAIL"), RETRYING("RETRYING");
+    SUCCESS("SUCCESS"), FAIL("FAIL"), RETRYING("RETRYING"), TERMINAL("TERMINAL"), MISMATCH("MISMATCH");
     private final String value;
     private static final Map<String, MigrationStatus> LOOKUP = Map.of(
             "SUCCESS", SUCCESS,
             "FAIL", FAIL,
-            "RETRYING", RETRYING
+            "RETRYING", RETRYING,
+            "TERMINAL", TERMINAL,
+            "MISMATCH", MISMATCH
     );
 
     MigrationStatus(String value) {
@@ -22,4 +26,14 @@ public enum MigrationStatus {
     public static MigrationStatus from(String value) {
         return LOOKUP.get(value);
     }
+
+    /**
+     * The status recorded for a failed attempt: MISMATCH and FAIL are retried, TERMINAL is not.
+     */
+    public static MigrationStatus of(FailureType type) {
+        if (type == FailureType.MISMATCH) {
+            return MISMATCH;
+        }
+        return type.isRetryable() ? FAIL : TERMINAL;
+    }
 }
@@ -0,0 +1,57 @@
+package org.example.file;
+
+/*
+file_id BIGINT PRIMARY KEY,
+    upload_id VARCHAR(64) NOT NULL,
+    object_url VARCHAR(300) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    part_size BIGINT NOT NULL,
+    started_at TIMESTAMP DEFAULT now()
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A multipart upload session left open by a failed move, with the parts the destination has already committed.
+ */
+public class Transfer {
+    private final int fileId;
+    private final String uploadId;
+    private final String objectUrl;
+    private final long size;
+    private final long partSize;
+    private final List<TransferPart> parts = new ArrayList<>();
+
+    public Transfer(int fileId, String uploadId, String objectUrl, long size, long partSize) {
+        this.fileId = fileId;
+        this.uploadId = uploadId;
+        this.objectUrl = objectUrl;
+        this.size = size;
+        this.partSize = partSize;
+    }
+
+    public int getFileId() {
+        return fileId;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public String getObjectUrl() {
+        return objectUrl;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public List<TransferPart> getParts() {
+        return parts;
+    }
+}
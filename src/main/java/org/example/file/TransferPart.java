@@ -0,0 +1,43 @@
+package org.example.file;
+
+/*
+file_id BIGINT REFERENCES migration_transfers (file_id) ON DELETE CASCADE,
+    part_number INTEGER NOT NULL,
+    etag VARCHAR(64) NOT NULL,
+    checksum VARCHAR(8),
+    content_hash VARCHAR(64)
+ */
+
+/**
+ * A part of a multipart upload committed by the destination. The checksum and content hash are only recorded when
+ * checksums and content hashing are enabled, so a resumed upload can rebuild the composite values without re-reading it.
+ */
+public class TransferPart {
+    private final int partNumber;
+    private final String etag;
+    private final String checksum;
+    private final String contentHash;
+
+    public TransferPart(int partNumber, String etag, String checksum, String contentHash) {
+        this.partNumber = partNumber;
+        this.etag = etag;
+        this.checksum = checksum;
+        this.contentHash = contentHash;
+    }
+
+    public int getPartNumber() {
+        return partNumber;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+}
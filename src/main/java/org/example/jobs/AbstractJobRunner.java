@@ -1,10 +1,14 @@
 package org.example.jobs;
 
 import org.example.configuration.ConfigurationProperties;
+import org.example.control.NodeControl;
 import org.example.logger.Logger;
-import org.example.logger.SystemLogger;
+import org.example.logger.LoggerFactory;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
 
-import java.time.*;
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -15,7 +19,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public abstract class AbstractJobRunner implements Runnable {
     protected int backoffCounter = 0;
-    private final static ZoneId ET_ZONE = ZoneId.of("America/New_York");
+    // paused, drained and disabled jobs check again after this many seconds
+    protected final static long CONTROL_DELAY = 5;
+    // waits for the run window are capped so window changes are picked up without a redeploy
+    private final static long MAX_WINDOW_WAIT = 300;
     protected final static List<Integer> DEFAULT_BACKOFF_PERIODS = List.of(
             30,
             300,
@@ -23,15 +30,21 @@ public abstract class AbstractJobRunner implements Runnable {
             1800,
             3600
     );
-    protected final Logger log = new SystemLogger();
+    protected final Logger log = LoggerFactory.getLogger(this.getClass());
     protected final ConfigurationProperties config;
     private final ScheduledExecutorService scheduler;
     private final AtomicBoolean shutdown;
+    private final NodeControl control;
+    private final Counter backoffs;
+    private volatile boolean retired = false;
 
-    public AbstractJobRunner(ConfigurationProperties config, ScheduledExecutorService scheduler, AtomicBoolean shutdown) {
+    public AbstractJobRunner(ConfigurationProperties config, ScheduledExecutorService scheduler, AtomicBoolean shutdown, NodeControl control) {
         this.config = config;
         this.scheduler = scheduler;
         this.shutdown = shutdown;
+        this.control = control;
+        // resolved once, so backoffs do not look the counter up; job names are constants, so this is safe in the constructor
+        this.backoffs = Metrics.registry().counter("migration_backoff_total", "Job executions delayed by backoff", "job", this.getName());
     }
 
     @Override
@@ -41,49 +54,37 @@ public abstract class AbstractJobRunner implements Runnable {
         }
     }
 
+    /**
+     * Stops this job from being rescheduled, e.g. when its pool is resized down. A running execution finishes first.
+     */
+    public void retire() {
+        this.retired = true;
+    }
+
     protected boolean shouldRun() {
-        if (this.shutdown.get()) {
+        if (this.shutdown.get() || this.retired) {
+            return false;
+        }
+        if (this.control.isHalted()) {
+            this.schedule(CONTROL_DELAY);
             return false;
         }
         boolean enabled = this.config.getBoolean("ENABLE_JOB", false);
         if (enabled) {
-            boolean afterHoursOnly = this.config.getBoolean("AFTER_HOURS", true);
-            if (afterHoursOnly) {
-                int startHour = this.config.getInteger("START_HOUR", 22);
-                int startMinute = this.config.getInteger("START_MINUTE", 0);
-                int endHour = this.config.getInteger("END_HOUR", 6);
-                int endMinute = this.config.getInteger("END_MINUTE", 0);
-                // only run after target time window during weekdays or on weekends
-                ZonedDateTime nowEst = ZonedDateTime.now(ET_ZONE);
-                LocalTime now = nowEst.toLocalTime();
-                LocalTime startTime = LocalTime.of(startHour, startMinute);
-                LocalTime endTime = LocalTime.of(endHour, endMinute);
-
-                DayOfWeek day = nowEst.getDayOfWeek();
-                boolean isInWindow;
-                if (startTime.isBefore(endTime)) {
-                    // normal same-day window
-                    isInWindow = !now.isBefore(startTime) && now.isBefore(endTime);
-                } else {
-                    // cross-midnight window
-                    isInWindow = !now.isBefore(startTime) || now.isBefore(endTime);
-                }
-
-                boolean isWeekend = (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY);
-                boolean shouldRun = isWeekend || isInWindow;
-
-                if (!shouldRun) {
-                    // wait to try again until target time ET (i.e. 10PM ET)
-                    ZonedDateTime targetTime = nowEst.withHour(startHour).withMinute(startMinute).withSecond(0).withNano(0);
-                    Duration waitDuration = Duration.between(nowEst, targetTime);
-                    long secondsToWait = waitDuration.getSeconds();
-                    this.schedule(secondsToWait);
-                }
-
-                return shouldRun;
+            // only run after target time window during weekdays or on weekends
+            RunWindow window = RunWindow.from(this.config);
+            ZonedDateTime now = ZonedDateTime.now(RunWindow.ET_ZONE);
+            if (!window.isOpen(now)) {
+                // wait to try again until the window opens (i.e. 10PM ET)
+                ZonedDateTime opens = window.nextOpen(now);
+                long secondsToWait = opens == null ? MAX_WINDOW_WAIT : Duration.between(now, opens).getSeconds();
+                this.schedule(Math.min(MAX_WINDOW_WAIT, Math.max(CONTROL_DELAY, secondsToWait)));
+                return false;
             }
             return true;
         }
+        // keep checking so the job starts once ENABLE_JOB is turned on
+        this.schedule(CONTROL_DELAY);
         return false;
     }
 
@@ -94,17 +95,29 @@ public abstract class AbstractJobRunner implements Runnable {
             // increment delay based on backoff periods if no records are available at this time to avoid wasting resources
             int index = Math.min(backoffCounter - 1, backoffPeriods.size() - 1);
             delay = backoffPeriods.get(index);
-            this.log.info(String.format("%s job backoff triggered; delaying job for %d seconds", this.getName(), delay));
+            this.log.info("%s job backoff triggered; delaying job for %d seconds", this.getName(), delay);
+            this.backoffs.increment();
         }
         this.schedule(delay);
     }
 
     public void schedule(long delay) {
-        if (!this.shutdown.get() && !this.scheduler.isShutdown() && !this.scheduler.isTerminated()) {
+        if (!this.shutdown.get() && !this.retired && !this.scheduler.isShutdown() && !this.scheduler.isTerminated()) {
             this.scheduler.schedule(this, delay, TimeUnit.SECONDS);
         }
     }
 
+    protected boolean isShutdown() {
+        return this.shutdown.get();
+    }
+
+    /**
+     * Returns true if the job should stop picking up new work, i.e. it was shut down, retired, paused or drained.
+     */
+    protected boolean isStopping() {
+        return this.shutdown.get() || this.retired || this.control.isHalted();
+    }
+
     protected List<Integer> getBackoffPeriods() {
         return DEFAULT_BACKOFF_PERIODS;
     }
@@ -1,9 +1,13 @@
 package org.example.jobs;
 
 import org.example.configuration.ConfigurationProperties;
+import org.example.control.NodeControl;
 import org.example.lock.Lock;
+import org.example.mover.TransferCleaner;
+import org.example.persistence.repository.MigrationFilesRepository;
 import org.example.persistence.repository.MigrationRangesRepository;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -12,11 +16,15 @@ public class CleanupJob extends AbstractJobRunner {
     private final static String JOB_KEY = "CLEANUP_JOB";
     private final Lock lock;
     private final MigrationRangesRepository rangesRepository;
+    private final MigrationFilesRepository migrationFilesRepository;
+    private final TransferCleaner transferCleaner;
 
-    public CleanupJob(ConfigurationProperties config, ScheduledExecutorService scheduler, Lock lock, MigrationRangesRepository rangesRepository, AtomicBoolean shutdown) {
-        super(config, scheduler, shutdown);
+    public CleanupJob(ConfigurationProperties config, ScheduledExecutorService scheduler, Lock lock, MigrationRangesRepository rangesRepository, MigrationFilesRepository migrationFilesRepository, TransferCleaner transferCleaner, AtomicBoolean shutdown, NodeControl control) {
+        super(config, scheduler, shutdown, control);
         this.lock = lock;
         this.rangesRepository = rangesRepository;
+        this.migrationFilesRepository = migrationFilesRepository;
+        this.transferCleaner = transferCleaner;
     }
 
     @Override
@@ -27,6 +35,25 @@ public class CleanupJob extends AbstractJobRunner {
                 this.log.info("Running file migration cleanup job");
                 try {
                     this.rangesRepository.cleanup();
+                    // retries claimed by a container which crashed before retrying them
+                    this.migrationFilesRepository.cleanup();
+                    if (this.transferCleaner != null) {
+                        // uploads of files which succeeded, failed for good or were left behind are never resumed
+                        int aborted = this.transferCleaner.abortAbandonedTransfers(
+                                this.config.getInteger("TRANSFER_TTL", 1_440),
+                                this.config.getInteger("TRANSFER_CLEANUP_BATCH", 500)
+                        );
+                        if (aborted > 0) {
+                            this.log.info("Aborted %d abandoned uploads", aborted);
+                        }
+                    }
+                    if (this.config.getBoolean("ENABLE_PARTITION_ARCHIVING", false)) {
+                        // completed partitions leave migration_files, so vacuum and retry scans never revisit them
+                        List<String> archived = this.migrationFilesRepository.archivePartitions();
+                        if (!archived.isEmpty()) {
+                            this.log.info("Archived migration_files partitions %s", archived);
+                        }
+                    }
                 } catch (Exception e) {
                     this.log.error("Failed to run file migration cleanup job");
                     this.log.error(e);
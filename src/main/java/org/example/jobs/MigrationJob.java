@@ -2,77 +2,132 @@ package org.example.jobs;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.example.BackoffCounter;
+import org.example.concurrency.AdaptiveConcurrencyController;
 import org.example.configuration.ConfigurationProperties;
+import org.example.control.NodeControl;
+import org.example.dispatch.RangeDispatcher;
+import org.example.exception.CircuitOpenException;
+import org.example.exception.FailureType;
 import org.example.file.*;
 import org.example.lock.Lock;
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
 import org.example.mover.FileMover;
+import org.example.mover.MoveResult;
 import org.example.persistence.repository.FilesRepository;
-import org.example.persistence.repository.MigrationFilesRepository;
-import org.example.persistence.repository.MigrationRangesRepository;
+import org.example.persistence.sink.ResultSink;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 public class MigrationJob extends AbstractJobRunner {
-    private final MigrationRangesRepository rangesRepository;
-    private final MigrationFilesRepository migrationFilesRepository;
+    private final static long PARKED_DELAY = 5;
+    private final RangeDispatcher rangeDispatcher;
+    private final ResultSink resultSink;
     private final FilesRepository filesRepository;
     private final FileMover fileMover;
+    private final ExecutorService moveExecutor;
+    private final AdaptiveConcurrencyController concurrencyController;
     private final Lock lock;
     private final BackoffCounter lockCounter;
+    private final Histogram rangeDuration = Metrics.registry().histogram("migration_range_seconds", "Time to process a range", Histogram.DURATION_BUCKETS);
 
     public MigrationJob(
             ConfigurationProperties config,
             ScheduledExecutorService scheduler,
             AtomicBoolean shutdown,
-            MigrationRangesRepository rangesRepository,
-            MigrationFilesRepository migrationFilesRepository,
+            NodeControl control,
+            RangeDispatcher rangeDispatcher,
+            ResultSink resultSink,
             FilesRepository filesRepository,
             FileMover fileMover,
+            ExecutorService moveExecutor,
+            AdaptiveConcurrencyController concurrencyController,
             Lock lock,
             BackoffCounter lockCounter
     ) {
-        super(config, scheduler, shutdown);
-        this.rangesRepository = rangesRepository;
-        this.migrationFilesRepository = migrationFilesRepository;
+        super(config, scheduler, shutdown, control);
+        this.rangeDispatcher = rangeDispatcher;
+        this.resultSink = resultSink;
         this.filesRepository = filesRepository;
         this.fileMover = fileMover;
+        this.moveExecutor = moveExecutor;
+        this.concurrencyController = concurrencyController;
         this.lock = lock;
         this.lockCounter = lockCounter;
     }
 
     protected void process() {
+        // workers above the current adaptive limit stay parked until the limit grows again
+        if (!this.concurrencyController.tryAcquireWorker()) {
+            this.schedule(PARKED_DELAY);
+            return;
+        }
+        try {
+            this.processRange();
+        } finally {
+            this.concurrencyController.releaseWorker();
+        }
+    }
+
+    private void processRange() {
         try {
             UUID executionId = UUID.randomUUID();
-            MigrationRange job = this.rangesRepository.pickRange();
+            // ranges are claimed atomically, so the redis lock is only needed as an extra guard against double processing
+            boolean rangeLocking = this.config.getBoolean("ENABLE_RANGE_LOCKING", false);
+            MigrationRange job = this.rangeDispatcher.next();
             String jobKey = String.format("FILE_MIGRATION_%d", job != null ? job.getRangeId() : -1);
-            if (job != null && this.lock.acquireLock(jobKey, executionId, 1800)) {
+            if (job != null && (!rangeLocking || this.lock.acquireLock(jobKey, executionId, 1800))) {
                 this.log.info("Running file migration job");
+                long delay = -1;
                 try {
-                    this.rangesRepository.saveRange(job.getRangeId(), JobStatus.PROCESSING);
-                    int recordsProcessed = this.run(job.getMinId(), job.getMaxId());
-                    this.log.info(String.format("Processed %d records", recordsProcessed));
+                    int recordsProcessed = this.run(job);
+                    this.log.info("Processed %d records", recordsProcessed);
                     // if no attachments processed this time, last processed id should inherit from last successful run
-                    this.rangesRepository.saveRange(job.getRangeId(), JobStatus.COMPLETE);
+                    // a range interrupted by shutdown, pause or drain goes back to PENDING and resumes from its checkpoint
+                    this.resultSink.saveRange(job.getRangeId(), this.isStopping() ? JobStatus.PENDING : JobStatus.COMPLETE);
                     // reset backoff as long as ranges are available
                     this.backoffCounter = 0;
                     this.lockCounter.reset();
+                } catch (CircuitOpenException e) {
+                    // the endpoint is down: hand the range back right away and park until the breaker allows a trial
+                    delay = e.getRetryAfterSeconds();
+                    this.log.info("%s -- handing range %d back and parking for %d seconds", e.getMessage(), job.getRangeId(), delay);
+                    try {
+                        this.resultSink.saveRange(job.getRangeId(), JobStatus.PENDING);
+                    } catch (Exception ex) {
+                        this.log.error(ex);
+                    }
                 } catch (Exception e) {
                     this.log.error("Failed to execute file migration job");
                     this.log.error(e);
                     // release the job back to PENDING if possible
                     try {
-                        this.rangesRepository.saveRange(job.getRangeId(), JobStatus.PENDING);
+                        this.resultSink.saveRange(job.getRangeId(), JobStatus.PENDING);
                     } catch (Exception ex) {
                         this.log.error(ex);
                     }
                 } finally {
-                    this.lock.releaseLock(jobKey, executionId);
-                    this.schedule();
+                    if (rangeLocking) {
+                        this.lock.releaseLock(jobKey, executionId);
+                    }
+                    if (delay >= 0) {
+                        this.schedule(delay);
+                    } else {
+                        this.schedule();
+                    }
                 }
             } else {
                 // better luck next time
@@ -82,6 +137,8 @@ public class MigrationJob extends AbstractJobRunner {
                     this.backoffCounter++;
                     this.schedule();
                 } else {
+                    // the lock holder is still processing the range and will mark it COMPLETE or PENDING when finished,
+                    // so the claimed range is intentionally left in PROCESSING
                     this.lockCounter.increment();
                     this.log.info("Failed to lock range %d -- backing off %d seconds", job.getRangeId(), this.lockCounter.getBackoff());
                     this.schedule(this.lockCounter.getBackoff());
@@ -96,45 +153,163 @@ public class MigrationJob extends AbstractJobRunner {
         }
     }
 
-    private int run(int minId, int maxId) throws Exception {
-        List<SourceFile> sourceFiles = filesRepository.getSourceFiles(minId, maxId);
-        if (CollectionUtils.isNotEmpty(sourceFiles)) {
-            List<MigrationFile> records = new ArrayList<>(sourceFiles.size());
-            int failures = 0;
-            for (SourceFile sourceFile : sourceFiles) {
+    /**
+     * Streams the range in pages of MIGRATION_CHUNK_SIZE files, moving each page and flushing its results
+     * before reading the next one, so memory use does not grow with the size of the range.
+     * The range checkpoint advances after every flushed page, so a released range resumes where it stopped.
+     * If a circuit breaker opens mid-page, the files moved before the first unattempted one are saved and the
+     * {@link CircuitOpenException} is rethrown so the range is handed back.
+     */
+    private int run(MigrationRange range) throws Exception {
+        int chunkSize = Math.max(1, this.config.getInteger("MIGRATION_CHUNK_SIZE", 1_000));
+        int processed = 0;
+        AtomicInteger failures = new AtomicInteger();
+        LongAdder bytes = new LongAdder();
+        long start = System.nanoTime();
+        int afterId = Math.max(range.getMinId() - 1, range.getCheckpointId());
+        if (afterId >= range.getMinId()) {
+            this.log.info("Resuming range %d after file %d", range.getRangeId(), afterId);
+        }
+        while (!this.isStopping()) {
+            // the upper bound shrinks if an idle worker splits off the rest of this range
+            int maxId = this.rangeDispatcher.getMaxId(range);
+            List<SourceFile> sourceFiles = this.filesRepository.getSourceFiles(afterId, maxId, chunkSize);
+            if (CollectionUtils.isEmpty(sourceFiles)) {
+                break;
+            }
+            MigrationFile[] records = new MigrationFile[sourceFiles.size()];
+            CircuitOpenException unavailable = this.moveAll(sourceFiles, records, failures, bytes);
+            if (unavailable != null) {
+                this.saveMoved(range, sourceFiles, records);
+                throw unavailable;
+            }
+            this.resultSink.save(range.getRangeId(), Arrays.asList(records));
+            processed += records.length;
+            afterId = sourceFiles.get(sourceFiles.size() - 1).getId();
+            this.resultSink.saveCheckpoint(range.getRangeId(), afterId);
+            this.log.debug("Saved %d records of range %d through file %d", records.length, range.getRangeId(), afterId);
+            if (sourceFiles.size() < chunkSize) {
+                break;
+            }
+        }
+        this.rangeDuration.observeSince(start);
+        double seconds = Math.max(1, System.nanoTime() - start) / 1_000_000_000d;
+        this.log.info(
+                "Processed %d file migrations, %d failed (%d bytes in %.1fs, %.2f MB/s)",
+                processed,
+                failures.get(),
+                bytes.sum(),
+                seconds,
+                bytes.sum() / seconds / (1024 * 1024)
+        );
+        return processed;
+    }
+
+    /**
+     * Saves the moved prefix of a page interrupted by an open circuit breaker and checkpoints it. Files moved after
+     * the first unattempted one are left out so the checkpoint never skips a file; moving them again is harmless.
+     */
+    private void saveMoved(MigrationRange range, List<SourceFile> sourceFiles, MigrationFile[] records) throws SQLException {
+        int moved = 0;
+        while (moved < records.length && records[moved] != null) {
+            moved++;
+        }
+        if (moved > 0) {
+            this.resultSink.save(range.getRangeId(), Arrays.asList(records).subList(0, moved));
+            this.resultSink.saveCheckpoint(range.getRangeId(), sourceFiles.get(moved - 1).getId());
+        }
+    }
+
+    /**
+     * Moves the given files using up to MOVE_CONCURRENCY threads (the calling thread included).
+     * Results are written to the same index as their source file, so record order matches the source order.
+     * Returns the first {@link CircuitOpenException} encountered (leaving the remaining records null), or null.
+     */
+    private CircuitOpenException moveAll(List<SourceFile> sourceFiles, MigrationFile[] records, AtomicInteger failures, LongAdder bytes) throws Exception {
+        int concurrency = Math.min(Math.max(1, this.config.getInteger("MOVE_CONCURRENCY", 1)), sourceFiles.size());
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<CircuitOpenException> unavailable = new AtomicReference<>();
+        Runnable mover = () -> {
+            int index;
+            while (unavailable.get() == null && (index = next.getAndIncrement()) < sourceFiles.size()) {
                 try {
-                    String newUri = this.fileMover.move(sourceFile);
-                    records.add(new MigrationFile(
-                            sourceFile.getId(),
-                            sourceFile.getUri(),
-                            newUri,
-                            sourceFile.getName(),
-                            sourceFile.getCreateDate(),
-                            MigrationStatus.SUCCESS,
-                            0,
-                            LocalDateTime.now()
-                    ));
-                } catch (Exception e) {
-                    failures++;
-                    this.log.error(String.format("Failed to migrate file %s:", sourceFile.getUri()));
-                    this.log.error(e);
-                    records.add(new MigrationFile(
-                            sourceFile.getId(),
-                            sourceFile.getUri(),
-                            null,
-                            sourceFile.getName(),
-                            sourceFile.getCreateDate(),
-                            MigrationStatus.FAIL,
-                            0,
-                            LocalDateTime.now()
-                    ));
+                    records[index] = this.move(sourceFiles.get(index), failures, bytes);
+                } catch (CircuitOpenException e) {
+                    unavailable.compareAndSet(null, e);
                 }
             }
-            this.log.info(String.format("Processed %d file migrations, %d failed", records.size(), failures));
-            this.migrationFilesRepository.save(records);
-            return sourceFiles.size();
+        };
+        List<Future<?>> helpers = new ArrayList<>(concurrency - 1);
+        ExecutionException failure = null;
+        boolean interrupted = false;
+        try {
+            for (int i = 1; i < concurrency; i++) {
+                helpers.add(this.moveExecutor.submit(mover));
+            }
+            mover.run();
+        } finally {
+            // always wait for every helper, even after one failed, so no move outlives the range it belongs to
+            for (Future<?> helper : helpers) {
+                while (true) {
+                    try {
+                        helper.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return unavailable.get();
+    }
+
+    private MigrationFile move(SourceFile sourceFile, AtomicInteger failures, LongAdder bytes) throws CircuitOpenException {
+        try {
+            MoveResult result = this.fileMover.move(sourceFile);
+            bytes.add(result.getBytes());
+            MigrationFile record = new MigrationFile(
+                    sourceFile.getId(),
+                    sourceFile.getUri(),
+                    result.getUri(),
+                    sourceFile.getName(),
+                    sourceFile.getCreateDate(),
+                    MigrationStatus.SUCCESS,
+                    0,
+                    LocalDateTime.now()
+            );
+            record.setChecksum(result.getChecksum());
+            record.setBytes(result.getBytes());
+            return record;
+        } catch (CircuitOpenException e) {
+            throw e;
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            FailureType type = FailureType.of(e);
+            this.log.error("Failed to migrate file %s (%s):", sourceFile.getUri(), type);
+            this.log.error(e);
+            return new MigrationFile(
+                    sourceFile.getId(),
+                    sourceFile.getUri(),
+                    null,
+                    sourceFile.getName(),
+                    sourceFile.getCreateDate(),
+                    // permanent failures skip the retry budget
+                    MigrationStatus.of(type),
+                    0,
+                    LocalDateTime.now()
+            );
         }
-        return 0;
     }
 
     @Override
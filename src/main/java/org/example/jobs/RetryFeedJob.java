@@ -0,0 +1,70 @@
+package org.example.jobs;
+
+import org.example.configuration.ConfigurationProperties;
+import org.example.control.NodeControl;
+import org.example.file.MigrationFile;
+import org.example.persistence.repository.MigrationFilesRepository;
+import org.example.retry.RetryQueue;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds the retry queue by claiming failed files whose next attempt is due within RETRY_LOOKAHEAD seconds.
+ * Between claims it sleeps until the next unclaimed file is about to become due (at most RETRY_DELAY seconds, so newly
+ * failed files are noticed), which keeps the retry scan down to a few indexed queries per due file batch.
+ */
+public class RetryFeedJob extends AbstractJobRunner {
+    private final RetryQueue retryQueue;
+    private final MigrationFilesRepository migrationFilesRepository;
+
+    public RetryFeedJob(ConfigurationProperties config, ScheduledExecutorService scheduler, RetryQueue retryQueue, MigrationFilesRepository migrationFilesRepository, AtomicBoolean shutdown, NodeControl control) {
+        super(config, scheduler, shutdown, control);
+        this.retryQueue = retryQueue;
+        this.migrationFilesRepository = migrationFilesRepository;
+    }
+
+    @Override
+    protected void process() {
+        long delay = this.getDefaultDelay();
+        try {
+            int lookahead = this.config.getInteger("RETRY_LOOKAHEAD", 10);
+            int limit = Math.min(this.config.getInteger("RETRY_CLAIM_SIZE", 500), this.retryQueue.remainingCapacity());
+            if (limit <= 0) {
+                // retry workers are behind; wait for them to make room
+                delay = 1;
+            } else {
+                List<MigrationFile> claimed = this.migrationFilesRepository.claimRetries(lookahead, limit);
+                this.retryQueue.offer(claimed);
+                if (claimed.size() == limit) {
+                    // more files may be due -- claim again right away
+                    delay = 0;
+                } else {
+                    long nextRetry = this.migrationFilesRepository.getSecondsUntilNextRetry();
+                    if (nextRetry >= 0) {
+                        delay = Math.min(delay, Math.max(1, nextRetry - lookahead));
+                    }
+                }
+                if (!claimed.isEmpty()) {
+                    this.log.info("Queued %d file migration retries; next retry scan in %d seconds", claimed.size(), delay);
+                }
+            }
+        } catch (Exception e) {
+            this.log.error("Encountered error claiming file migration retries");
+            this.log.error(e);
+        } finally {
+            this.schedule(delay);
+        }
+    }
+
+    @Override
+    protected long getDefaultDelay() {
+        return this.config.getInteger("RETRY_DELAY", 60);
+    }
+
+    @Override
+    protected String getName() {
+        return "RetryFeed";
+    }
+}
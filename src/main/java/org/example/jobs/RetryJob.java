@@ -1,41 +1,52 @@
 package org.example.jobs;
 
-import org.apache.commons.collections4.CollectionUtils;
 import org.example.configuration.ConfigurationProperties;
+import org.example.control.NodeControl;
+import org.example.exception.CircuitOpenException;
+import org.example.exception.FailureType;
 import org.example.file.MigrationFile;
 import org.example.file.MigrationStatus;
 import org.example.file.SourceFile;
 import org.example.mover.FileMover;
-import org.example.persistence.repository.MigrationFilesRepository;
+import org.example.mover.MoveResult;
+import org.example.persistence.sink.ResultSink;
+import org.example.retry.RetryQueue;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Retries failed files as they become due in the retry queue. Each of the RETRY_THREADS workers takes up to
+ * RETRY_BATCH_SIZE due files at a time, so retries run concurrently and their results are saved in batches.
+ */
 public class RetryJob extends AbstractJobRunner {
-    private final MigrationFilesRepository migrationFilesRepository;
+    private final RetryQueue retryQueue;
+    private final ResultSink resultSink;
     private final FileMover fileMover;
 
-    public RetryJob(ConfigurationProperties config, ScheduledExecutorService scheduler, MigrationFilesRepository migrationFilesRepository, FileMover fileMover, AtomicBoolean shutdown) {
-        super(config, scheduler, shutdown);
-        this.migrationFilesRepository = migrationFilesRepository;
+    public RetryJob(ConfigurationProperties config, ScheduledExecutorService scheduler, RetryQueue retryQueue, ResultSink resultSink, FileMover fileMover, AtomicBoolean shutdown, NodeControl control) {
+        super(config, scheduler, shutdown, control);
+        this.retryQueue = retryQueue;
+        this.resultSink = resultSink;
         this.fileMover = fileMover;
     }
 
     @Override
     protected void process() {
         try {
-            this.log.info("Running file migration retry job");
-            List<MigrationFile> failures = this.migrationFilesRepository.getFailures();
-            if (CollectionUtils.isNotEmpty(failures)) {
-                List<MigrationFile> processed = new ArrayList<>(failures.size());
-                this.backoffCounter = 0;
+            // wait briefly so pause, drain and shutdown are still noticed on every tick
+            List<MigrationFile> due = this.retryQueue.takeDue(this.config.getInteger("RETRY_BATCH_SIZE", 50), CONTROL_DELAY, TimeUnit.SECONDS);
+            if (!due.isEmpty()) {
+                List<MigrationFile> processed = new ArrayList<>(due.size());
                 int failureCount = 0;
-                for (MigrationFile record : failures) {
+                for (int i = 0; i < due.size(); i++) {
+                    MigrationFile record = due.get(i);
                     try {
-                        this.fileMover.move(
+                        MoveResult result = this.fileMover.move(
                                 new SourceFile(
                                         record.getId(),
                                         record.getFileName(),
@@ -43,19 +54,31 @@ public class RetryJob extends AbstractJobRunner {
                                         LocalDateTime.now() // inconsequential at this stage; date only used in filter stage
                                 )
                         );
-                        processed.add(new MigrationFile(
+                        MigrationFile retried = new MigrationFile(
                                 record.getId(),
                                 record.getOldUri(),
-                                record.getNewUri(),
+                                result.getUri(),
                                 record.getFileName(),
                                 record.getCreateDate(),
                                 MigrationStatus.SUCCESS,
                                 record.getRetryCount(),
                                 LocalDateTime.now()
-                        ));
+                        );
+                        retried.setChecksum(result.getChecksum());
+                        retried.setBytes(result.getBytes());
+                        processed.add(retried);
+                    } catch (CircuitOpenException e) {
+                        // nothing was attempted; requeue the rest of the batch for when the breaker allows a trial
+                        List<MigrationFile> parked = due.subList(i, due.size());
+                        LocalDateTime retryAt = LocalDateTime.now().plusSeconds(e.getRetryAfterSeconds());
+                        parked.forEach(file -> file.setNextAttemptDate(retryAt));
+                        this.retryQueue.offer(parked);
+                        this.log.info("%s -- requeued %d retries for %d seconds", e.getMessage(), parked.size(), e.getRetryAfterSeconds());
+                        break;
                     } catch (Exception e) {
                         failureCount++;
-                        this.log.error(String.format("Failed to migrate file %s:", record.getOldUri()));
+                        FailureType type = FailureType.of(e);
+                        this.log.error("Failed to migrate file %s (%s):", record.getOldUri(), type);
                         this.log.error(e);
                         processed.add(new MigrationFile(
                                 record.getId(),
@@ -63,18 +86,20 @@ public class RetryJob extends AbstractJobRunner {
                                 record.getNewUri(),
                                 record.getFileName(),
                                 record.getCreateDate(),
-                                MigrationStatus.FAIL,
+                                // permanent failures skip the rest of the retry budget
+                                MigrationStatus.of(type),
                                 record.getRetryCount() + 1,
                                 LocalDateTime.now()
                         ));
                     }
                 }
-                this.log.info(String.format("Retried %d file migrations, %d failed", failures.size(), failureCount));
-                this.migrationFilesRepository.saveRetries(processed);
-            } else {
-                this.log.info("No file migration failures detected at this time");
-                this.backoffCounter++;
+                if (!processed.isEmpty()) {
+                    this.log.info("Retried %d file migrations, %d failed", processed.size(), failureCount);
+                    this.resultSink.saveRetries(processed);
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             this.log.error("Encountered error running file migration retry job");
             this.log.error(e);
@@ -85,7 +110,7 @@ public class RetryJob extends AbstractJobRunner {
 
     @Override
     protected long getDefaultDelay() {
-        return this.config.getInteger("RETRY_DELAY", 1800);
+        return 0;
     }
 
     @Override
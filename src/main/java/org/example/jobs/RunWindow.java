@@ -0,0 +1,108 @@
+package org.example.jobs;
+
+import org.example.configuration.ConfigurationProperties;
+
+import java.time.*;
+
+/**
+ * The hours jobs are allowed to run in (ET): always, or with AFTER_HOURS only between START_HOUR:START_MINUTE and
+ * END_HOUR:END_MINUTE on weekdays and all day on weekends. The window may cross midnight.
+ */
+public class RunWindow {
+    public final static ZoneId ET_ZONE = ZoneId.of("America/New_York");
+    // projections give up after this long, i.e. when the window is too short to ever finish the remaining work
+    private final static Duration HORIZON = Duration.ofDays(3_650);
+    private final boolean always;
+    private final LocalTime start;
+    private final LocalTime end;
+
+    public RunWindow(boolean always, LocalTime start, LocalTime end) {
+        this.always = always;
+        this.start = start;
+        this.end = end;
+    }
+
+    public static RunWindow from(ConfigurationProperties config) {
+        return new RunWindow(
+                !config.getBoolean("AFTER_HOURS", true),
+                LocalTime.of(config.getInteger("START_HOUR", 22), config.getInteger("START_MINUTE", 0)),
+                LocalTime.of(config.getInteger("END_HOUR", 6), config.getInteger("END_MINUTE", 0))
+        );
+    }
+
+    public boolean isOpen(ZonedDateTime time) {
+        if (this.always) {
+            return true;
+        }
+        ZonedDateTime et = time.withZoneSameInstant(ET_ZONE);
+        DayOfWeek day = et.getDayOfWeek();
+        if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY) {
+            return true;
+        }
+        LocalTime now = et.toLocalTime();
+        if (this.start.isBefore(this.end)) {
+            // normal same-day window
+            return !now.isBefore(this.start) && now.isBefore(this.end);
+        }
+        // cross-midnight window
+        return !now.isBefore(this.start) || now.isBefore(this.end);
+    }
+
+    /**
+     * Returns the first time at or after the given time when the window is open, or null if it never opens.
+     */
+    public ZonedDateTime nextOpen(ZonedDateTime time) {
+        ZonedDateTime current = time.withZoneSameInstant(ET_ZONE);
+        ZonedDateTime limit = current.plus(HORIZON);
+        while (!this.isOpen(current)) {
+            current = this.nextBoundary(current);
+            if (current.isAfter(limit)) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Projects when work needing the given number of seconds of open window finishes when started at the given time,
+     * skipping the closed hours in between. Returns null if it would not finish within the projection horizon.
+     */
+    public ZonedDateTime project(ZonedDateTime from, double runSeconds) {
+        ZonedDateTime current = from.withZoneSameInstant(ET_ZONE);
+        ZonedDateTime limit = current.plus(HORIZON);
+        long remaining = (long) Math.ceil(Math.max(0, runSeconds) * 1_000);
+        while (!current.isAfter(limit)) {
+            ZonedDateTime boundary = this.nextBoundary(current);
+            if (this.isOpen(current)) {
+                long open = Duration.between(current, boundary).toMillis();
+                if (open >= remaining) {
+                    return current.plus(Duration.ofMillis(remaining));
+                }
+                remaining -= open;
+            }
+            current = boundary;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the next time after the given one at which the window could open or close: the start or end of the
+     * window, or midnight (where weekends begin and end).
+     */
+    private ZonedDateTime nextBoundary(ZonedDateTime time) {
+        LocalDate date = time.toLocalDate();
+        LocalTime now = time.toLocalTime();
+        ZonedDateTime next = date.plusDays(1).atStartOfDay(ET_ZONE);
+        if (!this.always) {
+            for (LocalTime boundary : new LocalTime[]{this.start, this.end}) {
+                if (boundary.isAfter(now)) {
+                    ZonedDateTime candidate = date.atTime(boundary).atZone(ET_ZONE);
+                    if (candidate.isAfter(time) && candidate.isBefore(next)) {
+                        next = candidate;
+                    }
+                }
+            }
+        }
+        return next;
+    }
+}
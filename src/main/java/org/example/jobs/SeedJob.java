@@ -1,6 +1,7 @@
 package org.example.jobs;
 
 import org.example.configuration.ConfigurationProperties;
+import org.example.control.NodeControl;
 import org.example.lock.Lock;
 import org.example.persistence.repository.MigrationRangesRepository;
 
@@ -13,8 +14,8 @@ public class SeedJob extends AbstractJobRunner {
     private final MigrationRangesRepository rangesRepository;
     private final static String LOCK_KEY = "SEED_JOB";
 
-    public SeedJob(ConfigurationProperties config, ScheduledExecutorService scheduler, Lock lock, MigrationRangesRepository rangesRepository, AtomicBoolean shutdown) {
-        super(config, scheduler, shutdown);
+    public SeedJob(ConfigurationProperties config, ScheduledExecutorService scheduler, Lock lock, MigrationRangesRepository rangesRepository, AtomicBoolean shutdown, NodeControl control) {
+        super(config, scheduler, shutdown, control);
         this.lock = lock;
         this.rangesRepository = rangesRepository;
     }
@@ -22,18 +23,25 @@ public class SeedJob extends AbstractJobRunner {
     @Override
     protected void process() {
         UUID executionId = UUID.randomUUID();
+        boolean incomplete = false;
         try {
             try {
                 if (this.lock.acquireLock(LOCK_KEY, executionId, 1800)) {
                     this.log.info("Running file migration seed job");
-                    this.rangesRepository.seedRanges(!this.rangesRepository.isInitialized());
+                    incomplete = this.rangesRepository.seedRanges(!this.rangesRepository.isInitialized());
                 }
             } catch (Exception e) {
                 this.log.error("Failed to seed file migration ranges");
                 this.log.error(e);
             } finally {
                 this.lock.releaseLock(LOCK_KEY, executionId);
-                this.schedule();
+                if (incomplete) {
+                    // a long seed runs in bounded steps so it never outlives the seed lock
+                    this.log.info("Seeding not finished; continuing immediately");
+                    this.schedule(0);
+                } else {
+                    this.schedule();
+                }
             }
         } catch (Exception e) {
             this.log.error("Encountered error running file migration seed job");
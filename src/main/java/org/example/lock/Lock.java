@@ -1,5 +1,7 @@
 package org.example.lock;
 
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.params.SetParams;
 
@@ -8,18 +10,22 @@ import java.util.function.Supplier;
 
 public class Lock {
     private final Supplier<Jedis> jedisSupplier;
+    private final Histogram acquireLatency = Metrics.registry().histogram("migration_lock_acquire_seconds", "Time to attempt a redis lock", Histogram.LATENCY_BUCKETS);
 
     public Lock(Supplier<Jedis> jedisSupplier) {
         this.jedisSupplier = jedisSupplier;
     }
 
     public boolean acquireLock(String key, UUID lockId, int ttl) {
+        long start = System.nanoTime();
         try (Jedis jedis = this.jedisSupplier.get()) {
             SetParams params = new SetParams();
             params.nx();
             params.ex(ttl);
             String result = jedis.set(key, lockId.toString(), params);
             return "OK".equals(result);
+        } finally {
+            this.acquireLatency.observeSince(start);
         }
     }
 
@@ -0,0 +1,207 @@
+package org.example.logger;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log events from a bounded ring buffer on a single background thread, so logging threads never format
+ * messages or block on the console. Producers claim a preallocated slot with a CAS on the head sequence; when the
+ * buffer is full the event is dropped and counted instead of blocking the caller.
+ * <p>
+ * Errors are rate limited per message: within each repeat window only the first few occurrences of the same message
+ * template (or, for exceptions, the same exception type thrown from the same place) are written, and the writer
+ * reports how many repeats were suppressed once the window ends.
+ */
+public class AsyncLogWriter {
+    private final static long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private final LogEvent[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail = 0;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final LogLevel level;
+    private final int repeatLimit;
+    private final long repeatWindowNanos;
+    private final Map<String, Repeats> repeats = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final StringBuilder line = new StringBuilder(256);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public AsyncLogWriter(PrintStream out, PrintStream err, LogLevel level, int bufferSize, int repeatLimit, int repeatWindowSeconds) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.slots = new LogEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new LogEvent();
+        }
+        this.mask = capacity - 1;
+        this.out = out;
+        this.err = err;
+        this.level = level;
+        this.repeatLimit = repeatLimit;
+        this.repeatWindowNanos = TimeUnit.SECONDS.toNanos(repeatWindowSeconds);
+        this.thread = new Thread(this::run, "log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public boolean isEnabled(LogLevel level) {
+        return this.level != LogLevel.OFF && level.compareTo(this.level) >= 0;
+    }
+
+    void publish(LogLevel level, String logger, String message, Object[] args, Throwable error) {
+        if (level == LogLevel.ERROR && this.isRepeat(message, error)) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = this.head.get();
+            if (sequence - this.tail >= this.slots.length) {
+                this.dropped.increment();
+                return;
+            }
+        } while (!this.head.compareAndSet(sequence, sequence + 1));
+        LogEvent event = this.slots[(int) sequence & this.mask];
+        event.level = level;
+        event.logger = logger;
+        event.thread = Thread.currentThread().getName();
+        event.message = message;
+        event.args = args;
+        event.error = error;
+        event.sequence = sequence;
+    }
+
+    /**
+     * Writes everything queued so far and stops the writer thread.
+     */
+    public void close() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+        try {
+            this.thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isRepeat(String message, Throwable error) {
+        if (this.repeatLimit <= 0) {
+            return false;
+        }
+        String key = error == null ? message : repeatKey(error);
+        if (key == null) {
+            return false;
+        }
+        Repeats counter = this.repeats.computeIfAbsent(key, Repeats::new);
+        long now = System.nanoTime();
+        synchronized (counter) {
+            if (counter.count == 0) {
+                counter.windowStart = now;
+            }
+            return ++counter.count > this.repeatLimit;
+        }
+    }
+
+    private static String repeatKey(Throwable error) {
+        StackTraceElement[] trace = error.getStackTrace();
+        return trace.length > 0 ? error.getClass().getName() + "@" + trace[0] : error.getClass().getName();
+    }
+
+    private void run() {
+        long lastSweep = System.nanoTime();
+        while (true) {
+            boolean drained = this.drain();
+            long now = System.nanoTime();
+            if (now - lastSweep >= TimeUnit.SECONDS.toNanos(1)) {
+                this.sweep(now, false);
+                lastSweep = now;
+            }
+            if (drained) {
+                this.out.flush();
+                this.err.flush();
+                if (!this.running) {
+                    this.sweep(now, true);
+                    this.out.flush();
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Writes up to one buffer's worth of published events; returns true once the buffer is empty.
+     */
+    private boolean drain() {
+        for (int i = 0; i < this.slots.length; i++) {
+            long sequence = this.tail;
+            LogEvent event = this.slots[(int) sequence & this.mask];
+            if (event.sequence != sequence) {
+                return true;
+            }
+            this.write(event);
+            event.clear();
+            this.tail = sequence + 1;
+        }
+        return false;
+    }
+
+    private void write(LogEvent event) {
+        StringBuilder line = this.line;
+        line.setLength(0);
+        line.append('[').append(event.thread).append("] ").append(event.logger).append(": ");
+        if (event.message != null) {
+            try {
+                line.append(event.args == null || event.args.length == 0 ? event.message : String.format(event.message, event.args));
+            } catch (Exception e) {
+                line.append(event.message);
+            }
+        }
+        if (event.error != null) {
+            StringWriter trace = new StringWriter();
+            event.error.printStackTrace(new PrintWriter(trace));
+            if (event.message != null) {
+                line.append(System.lineSeparator());
+            }
+            line.append(trace.toString().stripTrailing());
+        }
+        (event.level == LogLevel.ERROR ? this.err : this.out).println(line);
+    }
+
+    private void sweep(long now, boolean all) {
+        long dropped = this.dropped.sumThenReset();
+        if (dropped > 0) {
+            this.err.printf("[log-writer] %s: Dropped %d log messages because the log buffer was full%n", AsyncLogWriter.class.getName(), dropped);
+        }
+        this.repeats.values().removeIf(counter -> {
+            synchronized (counter) {
+                if (!all && now - counter.windowStart < this.repeatWindowNanos) {
+                    return false;
+                }
+                long suppressed = counter.count - this.repeatLimit;
+                if (suppressed > 0) {
+                    this.err.printf("[log-writer] %s: Suppressed %d repeats of: %s%n", AsyncLogWriter.class.getName(), suppressed, counter.key);
+                }
+                return true;
+            }
+        });
+    }
+
+    private static class Repeats {
+        private final String key;
+        private long windowStart;
+        private long count;
+
+        Repeats(String key) {
+            this.key = key;
+        }
+    }
+}
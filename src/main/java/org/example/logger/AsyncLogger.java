@@ -0,0 +1,43 @@
+package org.example.logger;
+
+/**
+ * Logger handing events to an {@link AsyncLogWriter}. The logger name is resolved once when the logger is created,
+ * and message arguments are only formatted on the writer thread.
+ */
+public class AsyncLogger implements Logger {
+    private final String name;
+    private final AsyncLogWriter writer;
+
+    public AsyncLogger(String name, AsyncLogWriter writer) {
+        this.name = name;
+        this.writer = writer;
+    }
+
+    @Override
+    public void debug(String message, Object... args) {
+        if (this.writer.isEnabled(LogLevel.DEBUG)) {
+            this.writer.publish(LogLevel.DEBUG, this.name, message, args, null);
+        }
+    }
+
+    @Override
+    public void info(String message, Object... args) {
+        if (this.writer.isEnabled(LogLevel.INFO)) {
+            this.writer.publish(LogLevel.INFO, this.name, message, args, null);
+        }
+    }
+
+    @Override
+    public void error(String error, Object... args) {
+        if (this.writer.isEnabled(LogLevel.ERROR)) {
+            this.writer.publish(LogLevel.ERROR, this.name, error, args, null);
+        }
+    }
+
+    @Override
+    public void error(Exception e) {
+        if (this.writer.isEnabled(LogLevel.ERROR)) {
+            this.writer.publish(LogLevel.ERROR, this.name, null, null, e);
+        }
+    }
+}
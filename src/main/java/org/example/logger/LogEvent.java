@@ -0,0 +1,23 @@
+package org.example.logger;
+
+/**
+ * A reusable slot in the log ring buffer. Producers fill the fields, then publish the slot by writing its sequence;
+ * the writer thread formats the event and clears it for reuse.
+ */
+final class LogEvent {
+    volatile long sequence = -1;
+    LogLevel level;
+    String logger;
+    String thread;
+    String message;
+    Object[] args;
+    Throwable error;
+
+    void clear() {
+        this.logger = null;
+        this.thread = null;
+        this.message = null;
+        this.args = null;
+        this.error = null;
+    }
+}
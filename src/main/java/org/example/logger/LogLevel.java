@@ -0,0 +1,14 @@
+package org.example.logger;
+
+public enum LogLevel {
+    DEBUG, INFO, ERROR, OFF;
+
+    public static LogLevel from(String value) {
+        for (LogLevel level : values()) {
+            if (level.name().equalsIgnoreCase(value)) {
+                return level;
+            }
+        }
+        return INFO;
+    }
+}
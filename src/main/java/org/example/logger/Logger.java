@@ -1,6 +1,7 @@
 package org.example.logger;
 
 public interface Logger {
+    void debug(String message, Object...args);
     void info(String message, Object...args);
     void error(String error, Object...args);
     void error(Exception e);
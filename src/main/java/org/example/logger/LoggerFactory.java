@@ -0,0 +1,49 @@
+package org.example.logger;
+
+import org.example.configuration.ConfigurationProperties;
+import org.example.configuration.SystemConfigurationProperties;
+
+/**
+ * Creates loggers backed by a single process-wide {@link AsyncLogWriter}, or by {@link SystemLogger} when
+ * LOG_MODE is SYNC.
+ */
+public final class LoggerFactory {
+    private final static AsyncLogWriter WRITER;
+    private final static LogLevel LEVEL;
+    private final static boolean SYNC;
+
+    static {
+        ConfigurationProperties config = new SystemConfigurationProperties();
+        LEVEL = LogLevel.from(config.getString("LOG_LEVEL", "INFO"));
+        SYNC = "SYNC".equalsIgnoreCase(config.getString("LOG_MODE", "ASYNC"));
+        if (SYNC) {
+            WRITER = null;
+        } else {
+            WRITER = new AsyncLogWriter(
+                    System.out,
+                    System.err,
+                    LEVEL,
+                    config.getInteger("LOG_BUFFER_SIZE", 8_192),
+                    config.getInteger("LOG_REPEAT_LIMIT", 5),
+                    config.getInteger("LOG_REPEAT_WINDOW", 10)
+            );
+        }
+    }
+
+    private LoggerFactory() {
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return SYNC ? new SystemLogger(LEVEL) : new AsyncLogger(type.getName(), WRITER);
+    }
+
+    /**
+     * Writes out everything logged so far and stops the writer. Called as the last step of shutdown, so the lines
+     * logged while shutting down are not lost; messages logged afterwards are dropped.
+     */
+    public static void shutdown() {
+        if (WRITER != null) {
+            WRITER.close();
+        }
+    }
+}
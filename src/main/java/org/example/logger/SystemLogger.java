@@ -1,19 +1,46 @@
 package org.example.logger;
 
 public class SystemLogger implements Logger {
+    private final LogLevel level;
+
+    public SystemLogger() {
+        this(LogLevel.INFO);
+    }
+
+    public SystemLogger(LogLevel level) {
+        this.level = level;
+    }
+
+    @Override
+    public void debug(String message, Object... args) {
+        if (this.isEnabled(LogLevel.DEBUG)) {
+            System.out.printf(getPrefix() + message + "%n", args);
+        }
+    }
+
     @Override
     public void info(String message, Object... args) {
-        System.out.printf(getPrefix() + message + "%n", args);
+        if (this.isEnabled(LogLevel.INFO)) {
+            System.out.printf(getPrefix() + message + "%n", args);
+        }
     }
 
     @Override
     public void error(String error, Object... args) {
-        System.err.printf(getPrefix() + error + "%n", args);
+        if (this.isEnabled(LogLevel.ERROR)) {
+            System.err.printf(getPrefix() + error + "%n", args);
+        }
     }
 
     @Override
     public void error(Exception e) {
-        e.printStackTrace();
+        if (this.isEnabled(LogLevel.ERROR)) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean isEnabled(LogLevel level) {
+        return this.level != LogLevel.OFF && level.compareTo(this.level) >= 0;
     }
 
     private static String getPrefix() {
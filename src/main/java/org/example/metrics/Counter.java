@@ -0,0 +1,32 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count. Increments are contention-free and do not allocate.
+ */
+public class Counter implements Metric {
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        this.value.increment();
+    }
+
+    public void add(long amount) {
+        this.value.add(amount);
+    }
+
+    public long get() {
+        return this.value.sum();
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        out.append(name).append(labels).append(' ').append(this.get()).append('\n');
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value sampled from its source at scrape time.
+ */
+public class Gauge implements Metric {
+    private final DoubleSupplier supplier;
+
+    Gauge(DoubleSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        out.append(name).append(labels).append(' ').append(this.supplier.getAsDouble()).append('\n');
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Records how long threads wait for a pooled connection, plus pool usage gauges, for every Hikari pool.
+ */
+public class HikariMetricsTrackerFactory implements MetricsTrackerFactory {
+    private final MetricsRegistry registry;
+
+    public HikariMetricsTrackerFactory(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.registry.gauge("migration_db_pool_active_connections", "Connections in use", "pool", poolName, poolStats::getActiveConnections);
+        this.registry.gauge("migration_db_pool_idle_connections", "Idle connections", "pool", poolName, poolStats::getIdleConnections);
+        this.registry.gauge("migration_db_pool_pending_threads", "Threads waiting for a connection", "pool", poolName, poolStats::getPendingThreads);
+        Histogram wait = this.registry.histogram("migration_db_pool_wait_seconds", "Time spent waiting for a pooled connection", Histogram.LATENCY_BUCKETS, "pool", poolName);
+        Counter timeouts = this.registry.counter("migration_db_pool_timeouts_total", "Connection requests that timed out", "pool", poolName);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                wait.observeNanos(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency distribution over fixed buckets, recorded in nanoseconds and exposed in seconds.
+ * Observations only increment striped counters, so recording does not allocate or contend.
+ */
+public class Histogram implements Metric {
+    public final static double[] LATENCY_BUCKETS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60
+    };
+    public final static double[] DURATION_BUCKETS = {
+            1, 5, 15, 30, 60, 120, 300, 600, 1_200, 1_800, 3_600, 7_200
+    };
+    private final double[] bounds;
+    private final long[] boundNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    Histogram(double[] bounds) {
+        this.bounds = bounds;
+        this.boundNanos = new long[bounds.length];
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            this.boundNanos[i] = (long) (bounds[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observeNanos(long nanos) {
+        int bucket = 0;
+        while (bucket < this.boundNanos.length && nanos > this.boundNanos[bucket]) {
+            bucket++;
+        }
+        this.buckets[bucket].increment();
+        this.count.increment();
+        this.sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()} value.
+     */
+    public void observeSince(long startNanos) {
+        this.observeNanos(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+        long cumulative = 0;
+        for (int i = 0; i < this.buckets.length; i++) {
+            cumulative += this.buckets[i].sum();
+            out.append(name).append("_bucket").append(separator).append("le=\"")
+                    .append(i < this.bounds.length ? String.valueOf(this.bounds[i]) : "+Inf")
+                    .append("\"} ").append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum").append(labels).append(' ').append(this.sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count").append(labels).append(' ').append(cumulative).append('\n');
+    }
+
+    @Override
+    public String getType() {
+        return "histogram";
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.metrics;
+
+interface Metric {
+    /**
+     * Appends the samples of this metric in the Prometheus text exposition format.
+     */
+    void write(StringBuilder out, String name, String labels);
+
+    String getType();
+}
@@ -0,0 +1,15 @@
+package org.example.metrics;
+
+/**
+ * Process-wide metrics registry shared by all jobs, repositories and movers.
+ */
+public final class Metrics {
+    private final static MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private Metrics() {
+    }
+
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+}
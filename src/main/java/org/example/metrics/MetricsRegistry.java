@@ -0,0 +1,79 @@
+package org.example.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Holds named metrics, each optionally split by a single label. Metrics are created on first lookup; callers on hot
+ * paths should look a metric up once and keep the reference.
+ */
+public class MetricsRegistry {
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String help) {
+        return this.counter(name, help, null, null);
+    }
+
+    public Counter counter(String name, String help, String label, String value) {
+        return this.get(name, help, label, value, key -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, double[] buckets) {
+        return this.histogram(name, help, buckets, null, null);
+    }
+
+    public Histogram histogram(String name, String help, double[] buckets, String label, String value) {
+        return this.get(name, help, label, value, key -> new Histogram(buckets));
+    }
+
+    public void gauge(String name, String help, DoubleSupplier supplier) {
+        this.gauge(name, help, null, null, supplier);
+    }
+
+    public void gauge(String name, String help, String label, String value, DoubleSupplier supplier) {
+        Family family = this.families.computeIfAbsent(name, key -> new Family(help));
+        family.metrics.put(labels(label, value), new Gauge(supplier));
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4_096);
+        new TreeMap<>(this.families).forEach((name, family) -> {
+            Map<String, Metric> metrics = new TreeMap<>(family.metrics);
+            if (metrics.isEmpty()) {
+                return;
+            }
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(metrics.values().iterator().next().getType()).append('\n');
+            metrics.forEach((labels, metric) -> metric.write(out, name, labels));
+        });
+        return out.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Metric> T get(String name, String help, String label, String value, Function<String, T> factory) {
+        Family family = this.families.computeIfAbsent(name, key -> new Family(help));
+        return (T) family.metrics.computeIfAbsent(labels(label, value), factory);
+    }
+
+    private static String labels(String label, String value) {
+        if (label == null) {
+            return "";
+        }
+        return String.format("{%s=\"%s\"}", label, value.replace("\\", "\\\\").replace("\"", "\\\""));
+    }
+
+    private static class Family {
+        private final String help;
+        private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+        Family(String help) {
+            this.help = help;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.mover;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of reusable direct buffers used to stream file contents without copying them onto the heap.
+ * Once the maximum number of buffers has been allocated, callers wait for a buffer to be released.
+ */
+public class BufferPool {
+    private final BlockingQueue<ByteBuffer> buffers = new LinkedBlockingQueue<>();
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final int bufferSize;
+    private final int maxBuffers;
+
+    public BufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+    }
+
+    public ByteBuffer acquire() throws InterruptedException {
+        ByteBuffer buffer = this.buffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (this.allocated.incrementAndGet() <= this.maxBuffers) {
+            return ByteBuffer.allocateDirect(this.bufferSize);
+        }
+        this.allocated.decrementAndGet();
+        return this.buffers.take();
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        this.buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.mover;
+
+import org.example.circuit.CircuitBreaker;
+import org.example.exception.CircuitOpenException;
+import org.example.exception.Endpoint;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Guards moves with a circuit breaker per endpoint. While either breaker is open, moves fail fast with a
+ * {@link CircuitOpenException} without touching the file, so callers can hand work back instead of failing it.
+ * Only TRANSIENT and THROTTLED failures count against the endpoint they are attributed to; a file-specific failure
+ * still proves the endpoint is responding.
+ */
+public class CircuitBreakingFileMover implements FileMover {
+    private final FileMover delegate;
+    private final Map<Endpoint, CircuitBreaker> breakers;
+
+    public CircuitBreakingFileMover(FileMover delegate, CircuitBreaker source, CircuitBreaker destination) {
+        this.delegate = delegate;
+        this.breakers = new EnumMap<>(Endpoint.class);
+        this.breakers.put(Endpoint.SOURCE, source);
+        this.breakers.put(Endpoint.DESTINATION, destination);
+    }
+
+    @Override
+    public MoveResult move(SourceFile sourceFile) throws MigrationException {
+        for (Map.Entry<Endpoint, CircuitBreaker> breaker : this.breakers.entrySet()) {
+            long wait = breaker.getValue().tryAcquire();
+            if (wait > 0) {
+                // a trial taken from an earlier breaker must not stay in flight
+                for (Map.Entry<Endpoint, CircuitBreaker> acquired : this.breakers.entrySet()) {
+                    if (acquired.getKey() == breaker.getKey()) {
+                        break;
+                    }
+                    acquired.getValue().release();
+                }
+                throw new CircuitOpenException(breaker.getKey(), wait);
+            }
+        }
+        MoveResult result;
+        boolean recorded = false;
+        try {
+            result = this.delegate.move(sourceFile);
+            this.breakers.values().forEach(CircuitBreaker::recordSuccess);
+            recorded = true;
+        } catch (MigrationException e) {
+            Endpoint failed = e.getEndpoint();
+            boolean endpointFailure = e.getType().isEndpointFailure();
+            for (Map.Entry<Endpoint, CircuitBreaker> breaker : this.breakers.entrySet()) {
+                if (breaker.getKey() != failed) {
+                    breaker.getValue().release();
+                } else if (endpointFailure) {
+                    breaker.getValue().recordFailure();
+                } else {
+                    breaker.getValue().recordSuccess();
+                }
+            }
+            recorded = true;
+            throw e;
+        } finally {
+            // unchecked exceptions and errors say nothing about the endpoints, but must not leave a trial in flight
+            if (!recorded) {
+                this.breakers.values().forEach(CircuitBreaker::release);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.mover;
+
+import org.example.concurrency.AdaptiveConcurrencyController;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+
+/**
+ * Bounds the number of in-flight moves by the adaptive concurrency limit and reports each move's latency and outcome.
+ */
+public class ConcurrencyLimitedFileMover implements FileMover {
+    private final FileMover delegate;
+    private final AdaptiveConcurrencyController controller;
+
+    public ConcurrencyLimitedFileMover(FileMover delegate, AdaptiveConcurrencyController controller) {
+        this.delegate = delegate;
+        this.controller = controller;
+    }
+
+    @Override
+    public MoveResult move(SourceFile sourceFile) throws MigrationException {
+        try {
+            this.controller.acquireMove();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MigrationException("Interrupted waiting to move file " + sourceFile.getUri(), e);
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            MoveResult result = this.delegate.move(sourceFile);
+            success = true;
+            return result;
+        } finally {
+            this.controller.recordMove(System.nanoTime() - start, success);
+            this.controller.releaseMove();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.mover;
+
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+import org.example.persistence.repository.ContentIndexRepository;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.sql.SQLException;
+
+/**
+ * Skips transferring files whose content has already been migrated, reusing the existing destination object instead.
+ * <p>
+ * The delegate hashes content inline while transferring, and each hash is recorded in the content index. A file is
+ * only hashed up front (a local read of the source, never a destination write) when indexed content of the exact same
+ * size exists, so files with unique sizes are still read just once.
+ */
+public class DeduplicatingFileMover implements FileMover {
+    private final Logger log = LoggerFactory.getLogger(DeduplicatingFileMover.class);
+    private final StreamingFileMover delegate;
+    private final SourceStore sourceStore;
+    private final ContentIndexRepository contentIndex;
+    private final long minSize;
+
+    public DeduplicatingFileMover(StreamingFileMover delegate, SourceStore sourceStore, ContentIndexRepository contentIndex, long minSize) {
+        this.delegate = delegate;
+        this.sourceStore = sourceStore;
+        this.contentIndex = contentIndex;
+        this.minSize = minSize;
+        this.delegate.setHashContent(true);
+    }
+
+    @Override
+    public MoveResult move(SourceFile sourceFile) throws MigrationException {
+        long size;
+        try (FileChannel source = this.sourceStore.open(sourceFile)) {
+            size = source.size();
+            if (size >= this.minSize && this.contentIndex.hasSize(size)) {
+                String contentHash = this.delegate.hash(source, size);
+                String uri = this.contentIndex.find(contentHash);
+                if (uri != null) {
+                    return new MoveResult(uri, 0, contentHash);
+                }
+            }
+        } catch (IOException | SQLException e) {
+            throw new MigrationException(String.format("Failed to check for duplicates of file %s", sourceFile.getUri()), e);
+        }
+        MoveResult result = this.delegate.move(sourceFile);
+        if (result.getContentHash() != null && size >= this.minSize) {
+            try {
+                this.contentIndex.save(result.getContentHash(), size, result.getUri());
+            } catch (SQLException e) {
+                // the file was moved; failing to index it only means later duplicates are transferred again
+                this.log.error("Failed to index content of file %s", sourceFile.getUri());
+                this.log.error(e);
+            }
+        }
+        return result;
+    }
+}
@@ -4,5 +4,5 @@ import org.example.exception.MigrationException;
 import org.example.file.SourceFile;
 
 public interface FileMover {
-    String move(SourceFile sourceFile) throws MigrationException;
+    MoveResult move(SourceFile sourceFile) throws MigrationException;
 }
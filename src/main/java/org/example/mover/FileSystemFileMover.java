@@ -0,0 +1,92 @@
+package org.example.mover;
+
+import org.example.exception.Endpoint;
+import org.example.exception.FailureType;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * Moves files to a destination file system using zero-copy {@link FileChannel#transferTo} transfers.
+ * Files are written to a temporary sibling and atomically renamed, so partially written files are never visible.
+ * When content hashing or checksums are enabled the bytes have to pass through user space, so pooled direct buffers are
+ * used instead. A file system reports no checksum of its own, so the CRC32C is recorded but not compared.
+ */
+public class FileSystemFileMover extends StreamingFileMover {
+    private final Path destinationRoot;
+
+    public FileSystemFileMover(SourceStore sourceStore, BufferPool bufferPool, Path destinationRoot) {
+        super(sourceStore, bufferPool);
+        this.destinationRoot = destinationRoot;
+    }
+
+    @Override
+    protected MoveResult transfer(SourceFile sourceFile, FileChannel source, long size) throws IOException, MigrationException {
+        // the root is never created here: a missing root means the destination is not mounted, which must not fail
+        // files one by one (or fill the local disk) but count against the destination until it is back
+        if (!Files.isDirectory(this.destinationRoot)) {
+            throw new MigrationException(String.format("Destination root %s is not available", this.destinationRoot), FailureType.TRANSIENT, Endpoint.DESTINATION);
+        }
+        Path target = this.destinationRoot.resolve(this.getKey(sourceFile));
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        long position = 0;
+        MessageDigest digest = this.isHashContent() ? newDigest() : null;
+        CRC32C checksum = this.isVerifyChecksums() ? new CRC32C() : null;
+        FileChannel destination;
+        try {
+            Files.createDirectories(target.getParent());
+            destination = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw destinationFailure(temp, e);
+        }
+        try (destination) {
+            if (digest != null || checksum != null) {
+                position = this.copy(source, 0, size, destination, digest, checksum);
+            }
+            while (position < size) {
+                long transferred;
+                try {
+                    transferred = source.transferTo(position, size - position, destination);
+                } catch (IOException e) {
+                    throw new SourceReadException(String.format("Failed to transfer source at byte %d", position), e);
+                }
+                if (transferred <= 0) {
+                    throw new SourceReadException(String.format("Unexpected end of source after %d of %d bytes", position, size), null);
+                }
+                position += transferred;
+            }
+        } catch (SourceReadException e) {
+            throw e;
+        } catch (IOException e) {
+            throw destinationFailure(temp, e);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw destinationFailure(target, e);
+        }
+        return new MoveResult(
+                target.toUri().toString(),
+                position,
+                digest != null ? HexFormat.of().formatHex(digest.digest()) : null,
+                checksum != null ? formatChecksum(checksum) : null
+        );
+    }
+
+    /**
+     * Missing directories and denied access on the destination say nothing about the file being moved (i.e. an
+     * unmounted or read-only share), so they are retried and counted against the destination like any other I/O error.
+     */
+    private static MigrationException destinationFailure(Path path, IOException e) {
+        return new MigrationException(String.format("Failed to write %s", path), FailureType.TRANSIENT, Endpoint.DESTINATION, e);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.mover;
+
+import org.example.exception.Endpoint;
+import org.example.exception.FailureType;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads source files from a mounted file system (i.e. an on-prem NAS share), resolving file URIs against a root path.
+ */
+public class FileSystemSourceStore implements SourceStore {
+    private final Path root;
+
+    public FileSystemSourceStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public FileChannel open(SourceFile sourceFile) throws MigrationException {
+        Path path = this.resolve(sourceFile);
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new MigrationException(String.format("Source file %s does not exist", path), FailureType.NOT_FOUND, Endpoint.SOURCE, e);
+        } catch (AccessDeniedException e) {
+            throw new MigrationException(String.format("Access to source file %s was denied", path), FailureType.PERMANENT, Endpoint.SOURCE, e);
+        } catch (IOException e) {
+            throw new MigrationException(String.format("Failed to open source file %s", path), FailureType.TRANSIENT, Endpoint.SOURCE, e);
+        }
+    }
+
+    private Path resolve(SourceFile sourceFile) throws MigrationException {
+        String uri = sourceFile.getUri();
+        // source URIs are absolute paths relative to the share root, i.e. /files/<uuid>
+        Path path = this.root.resolve(uri.startsWith("/") ? uri.substring(1) : uri).normalize();
+        // URIs such as /../../etc/x would escape the root; they can never be moved, so they are not retried
+        if (!path.startsWith(this.root)) {
+            throw new MigrationException(String.format("Source file %s is outside the source root", uri), FailureType.PERMANENT, Endpoint.SOURCE);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,505 @@
+package org.example.mover;
+
+import org.example.exception.Endpoint;
+import org.example.exception.FailureType;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+import org.example.file.Transfer;
+import org.example.file.TransferPart;
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+import org.example.persistence.repository.TransferRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+/**
+ * Moves files to an HTTP object store (i.e. {@link org.example.objectstore.LocalObjectStore}) with streaming PUT requests.
+ * Request bodies are streamed from the source channel through pooled direct buffers with a fixed content length.
+ * <p>
+ * Files larger than the multipart threshold are split into parts which are uploaded concurrently and then assembled by
+ * the object store; a failed part is retried on its own rather than restarting the whole file. Since parts are not
+ * streamed in order, the content hash of a multipart file is the hash of its part hashes, suffixed with the part count.
+ * <p>
+ * With checksums enabled, the CRC32C of every request body is compared with the {@code x-checksum-crc32c} header the
+ * object store returns; a mismatched part is retried on its own. The checksum of a multipart object is likewise the
+ * CRC32C of its part checksums (4 bytes each, big-endian), suffixed with the part count, and is sent with the manifest
+ * so the object store can check every part before assembling the object.
+ * <p>
+ * With a {@link TransferRepository}, multipart uploads are resumable: the upload id and every committed part are
+ * recorded, and a later move of the same file continues the upload instead of starting again from the first byte.
+ */
+public class HttpObjectStoreFileMover extends StreamingFileMover implements TransferCleaner {
+    private final static String CHECKSUM_HEADER = "x-checksum-crc32c";
+    private final Logger log = LoggerFactory.getLogger(HttpObjectStoreFileMover.class);
+    private final String endpoint;
+    private final String bucket;
+    private final int timeoutMillis;
+    private final MultipartSettings multipart;
+    private volatile TransferRepository transferRepository;
+
+    public HttpObjectStoreFileMover(SourceStore sourceStore, BufferPool bufferPool, String endpoint, String bucket, int timeoutMillis, MultipartSettings multipart) {
+        super(sourceStore, bufferPool);
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.bucket = bucket;
+        this.timeoutMillis = timeoutMillis;
+        this.multipart = multipart;
+    }
+
+    /**
+     * Enables resumable multipart uploads: committed parts are recorded as they complete, a failed upload is kept open
+     * instead of aborted, and the next move of the file only uploads the parts still missing.
+     */
+    public void setTransferRepository(TransferRepository transferRepository) {
+        this.transferRepository = transferRepository;
+    }
+
+    @Override
+    protected MoveResult transfer(SourceFile sourceFile, FileChannel source, long size) throws IOException, MigrationException {
+        String objectUrl = String.format("%s/%s/%s", this.endpoint, this.bucket, this.getKey(sourceFile));
+        if (this.isMultipart(size)) {
+            return this.transferParts(sourceFile, objectUrl, source, size);
+        }
+        MessageDigest digest = this.isHashContent() ? newDigest() : null;
+        CRC32C checksum = this.isVerifyChecksums() ? new CRC32C() : null;
+        this.put(objectUrl, source, 0, size, digest, checksum);
+        return new MoveResult(
+                objectUrl,
+                size,
+                digest != null ? HexFormat.of().formatHex(digest.digest()) : null,
+                checksum != null ? formatChecksum(checksum) : null
+        );
+    }
+
+    @Override
+    public String hash(FileChannel source, long size) throws IOException {
+        if (!this.isMultipart(size)) {
+            return super.hash(source, size);
+        }
+        int parts = this.getPartCount(size);
+        byte[][] partHashes = new byte[parts][];
+        for (int i = 0; i < parts; i++) {
+            long position = i * this.multipart.getPartSize();
+            MessageDigest digest = newDigest();
+            this.copy(source, position, Math.min(this.multipart.getPartSize(), size - position), null, digest);
+            partHashes[i] = digest.digest();
+        }
+        return compositeHash(partHashes);
+    }
+
+    private boolean isMultipart(long size) {
+        return this.multipart != null && size > this.multipart.getThreshold();
+    }
+
+    private int getPartCount(long size) {
+        return (int) ((size + this.multipart.getPartSize() - 1) / this.multipart.getPartSize());
+    }
+
+    private MoveResult transferParts(SourceFile sourceFile, String objectUrl, FileChannel source, long size) throws IOException, MigrationException {
+        int parts = this.getPartCount(size);
+        boolean hashContent = this.isHashContent();
+        boolean verifyChecksums = this.isVerifyChecksums();
+        String[] etags = new String[parts];
+        byte[][] partHashes = new byte[parts][];
+        long[] partChecksums = verifyChecksums ? new long[parts] : null;
+        String uploadId = this.resume(sourceFile, objectUrl, size, etags, partHashes, partChecksums);
+        if (uploadId == null) {
+            uploadId = this.initiateUpload(objectUrl);
+            this.startTransfer(new Transfer(sourceFile.getId(), uploadId, objectUrl, size, this.multipart.getPartSize()));
+        }
+        String session = uploadId;
+        try {
+            AtomicInteger next = new AtomicInteger();
+            PartUploader uploader = () -> {
+                int index;
+                while ((index = next.getAndIncrement()) < parts) {
+                    if (etags[index] != null) {
+                        // committed before the previous attempt failed
+                        continue;
+                    }
+                    long position = index * this.multipart.getPartSize();
+                    long length = Math.min(this.multipart.getPartSize(), size - position);
+                    MessageDigest digest = hashContent ? newDigest() : null;
+                    CRC32C checksum = verifyChecksums ? new CRC32C() : null;
+                    etags[index] = this.uploadPartWithRetries(objectUrl, session, index + 1, source, position, length, digest, checksum);
+                    if (digest != null) {
+                        partHashes[index] = digest.digest();
+                    }
+                    if (checksum != null) {
+                        partChecksums[index] = checksum.getValue();
+                    }
+                    this.savePart(sourceFile.getId(), new TransferPart(
+                            index + 1,
+                            etags[index],
+                            checksum != null ? formatChecksum(checksum) : null,
+                            digest != null ? HexFormat.of().formatHex(partHashes[index]) : null
+                    ));
+                }
+            };
+            int concurrency = Math.min(Math.max(1, this.multipart.getConcurrency()), parts);
+            List<Future<Void>> helpers = new ArrayList<>(concurrency - 1);
+            try {
+                for (int i = 1; i < concurrency; i++) {
+                    helpers.add(this.multipart.getPartExecutor().submit(() -> {
+                        uploader.run();
+                        return null;
+                    }));
+                }
+                uploader.run();
+            } finally {
+                // stop handing out parts if this thread failed, then wait for in-flight parts
+                next.set(parts);
+                for (Future<Void> helper : helpers) {
+                    this.await(helper);
+                }
+            }
+            String checksum = verifyChecksums ? compositeChecksum(partChecksums) : null;
+            this.completeUpload(objectUrl, session, etags, partChecksums, checksum);
+            this.deleteTransfer(sourceFile.getId());
+            return new MoveResult(objectUrl, size, hashContent ? compositeHash(partHashes) : null, checksum);
+        } catch (IOException | MigrationException | RuntimeException e) {
+            FailureType type = FailureType.of(e);
+            // parts which failed verification may already be committed, so a mismatched upload is never resumed
+            if (this.transferRepository != null && type.isRetryable() && type != FailureType.MISMATCH) {
+                // keep the session so the next attempt only uploads the missing parts
+                this.log.info("Keeping upload %s of %s open to resume", session, objectUrl);
+            } else {
+                this.abortUpload(objectUrl, session);
+                this.deleteTransfer(sourceFile.getId());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Resumes the open upload of a file, if any, filling in the parts both recorded in the database and still stored
+     * by the object store. Returns the upload id, or null if there is nothing to resume.
+     */
+    private String resume(SourceFile sourceFile, String objectUrl, long size, String[] etags, byte[][] partHashes, long[] partChecksums) {
+        if (this.transferRepository == null) {
+            return null;
+        }
+        Transfer transfer = null;
+        try {
+            transfer = this.transferRepository.find(sourceFile.getId());
+            if (transfer == null) {
+                return null;
+            }
+            if (transfer.getSize() != size || transfer.getPartSize() != this.multipart.getPartSize() || !transfer.getObjectUrl().equals(objectUrl)) {
+                // the file or the part layout changed since the upload started
+                this.abortUpload(transfer.getObjectUrl(), transfer.getUploadId());
+                this.transferRepository.delete(sourceFile.getId());
+                return null;
+            }
+            Map<Integer, StoredPart> stored = this.listParts(objectUrl, transfer.getUploadId());
+            if (stored == null) {
+                this.transferRepository.delete(sourceFile.getId());
+                return null;
+            }
+            int resumed = 0;
+            for (TransferPart part : transfer.getParts()) {
+                int index = part.getPartNumber() - 1;
+                StoredPart storedPart = stored.get(part.getPartNumber());
+                // an ETag may only describe the part's number and size, so a recorded checksum must match the stored bytes too
+                boolean complete = index < etags.length
+                        && storedPart != null
+                        && part.getEtag().equals(storedPart.etag)
+                        && (part.getChecksum() == null || part.getChecksum().equalsIgnoreCase(storedPart.checksum))
+                        && (!this.isHashContent() || part.getContentHash() != null)
+                        && (partChecksums == null || part.getChecksum() != null);
+                if (!complete) {
+                    continue;
+                }
+                etags[index] = part.getEtag();
+                if (part.getContentHash() != null) {
+                    partHashes[index] = HexFormat.of().parseHex(part.getContentHash());
+                }
+                if (partChecksums != null) {
+                    partChecksums[index] = Long.parseLong(part.getChecksum(), 16);
+                }
+                resumed++;
+            }
+            this.log.info("Resuming upload %s of %s with %d of %d parts already stored", transfer.getUploadId(), objectUrl, resumed, etags.length);
+            return transfer.getUploadId();
+        } catch (SQLException | IOException | MigrationException | RuntimeException e) {
+            // resuming is an optimization; start over if the state cannot be read, without leaving the old upload behind
+            this.log.error("Failed to resume upload of %s", objectUrl);
+            this.log.error(e);
+            if (transfer != null) {
+                this.abortUpload(transfer.getObjectUrl(), transfer.getUploadId());
+                this.deleteTransfer(sourceFile.getId());
+            }
+            Arrays.fill(etags, null);
+            Arrays.fill(partHashes, null);
+            return null;
+        }
+    }
+
+    private String uploadPartWithRetries(String objectUrl, String uploadId, int partNumber, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+        for (int attempt = 1; ; attempt++) {
+            if (digest != null) {
+                digest.reset();
+            }
+            if (checksum != null) {
+                checksum.reset();
+            }
+            try {
+                return this.uploadPart(objectUrl, uploadId, partNumber, source, position, length, digest, checksum);
+            } catch (IOException | MigrationException e) {
+                if (attempt >= this.multipart.getPartAttempts()) {
+                    throw e;
+                }
+                this.log.info("Retrying part %d of %s after failed attempt %d: %s", partNumber, objectUrl, attempt, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Uploads a single part, updating the digest and checksum (if any) with its bytes, and returns the ETag assigned to it
+     * by the object store.
+     */
+    protected String uploadPart(String objectUrl, String uploadId, int partNumber, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+        String partUrl = String.format("%s?uploadId=%s&partNumber=%d", objectUrl, uploadId, partNumber);
+        String etag = this.put(partUrl, source, position, length, digest, checksum);
+        if (etag == null) {
+            throw new MigrationException(String.format("Object store returned no ETag for part %d of %s", partNumber, objectUrl), FailureType.TRANSIENT, Endpoint.DESTINATION);
+        }
+        return etag;
+    }
+
+    private String initiateUpload(String objectUrl) throws IOException, MigrationException {
+        HttpURLConnection connection = this.open(objectUrl + "?uploads", "POST");
+        try {
+            this.checkResponse(connection, objectUrl);
+            try (InputStream body = connection.getInputStream()) {
+                return new String(body.readAllBytes(), StandardCharsets.UTF_8).trim();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Lists the parts stored for an upload by part number, or returns null if the object store no longer has the upload.
+     */
+    private Map<Integer, StoredPart> listParts(String objectUrl, String uploadId) throws IOException, MigrationException {
+        HttpURLConnection connection = this.open(objectUrl + "?uploadId=" + uploadId, "GET");
+        try {
+            if (connection.getResponseCode() == 404) {
+                return null;
+            }
+            this.checkResponse(connection, objectUrl);
+            Map<Integer, StoredPart> parts = new HashMap<>();
+            try (InputStream body = connection.getInputStream()) {
+                for (String line : new String(body.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                    String[] fields = line.trim().split(" ");
+                    if (fields.length >= 2) {
+                        parts.put(Integer.parseInt(fields[0]), new StoredPart(fields[1], fields.length > 2 ? fields[2] : null));
+                    }
+                }
+            }
+            return parts;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void startTransfer(Transfer transfer) {
+        if (this.transferRepository == null) {
+            return;
+        }
+        try {
+            this.transferRepository.start(transfer);
+        } catch (SQLException e) {
+            this.log.error("Failed to record upload %s of %s", transfer.getUploadId(), transfer.getObjectUrl());
+            this.log.error(e);
+        }
+    }
+
+    private void savePart(int fileId, TransferPart part) {
+        if (this.transferRepository == null) {
+            return;
+        }
+        try {
+            this.transferRepository.savePart(fileId, part);
+        } catch (SQLException e) {
+            // an unrecorded part is only uploaded again if the move is resumed
+            this.log.error("Failed to record part %d of file %d", part.getPartNumber(), fileId);
+            this.log.error(e);
+        }
+    }
+
+    private void deleteTransfer(int fileId) {
+        if (this.transferRepository == null) {
+            return;
+        }
+        try {
+            this.transferRepository.delete(fileId);
+        } catch (SQLException e) {
+            this.log.error("Failed to remove upload state of file %d", fileId);
+            this.log.error(e);
+        }
+    }
+
+    private void completeUpload(String objectUrl, String uploadId, String[] etags, long[] partChecksums, String checksum) throws IOException, MigrationException {
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < etags.length; i++) {
+            manifest.append(i + 1).append(' ').append(etags[i]);
+            if (partChecksums != null) {
+                manifest.append(' ').append(String.format("%08x", partChecksums[i]));
+            }
+            manifest.append('\n');
+        }
+        byte[] body = manifest.toString().getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = this.open(objectUrl + "?uploadId=" + uploadId, "POST");
+        try {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            this.checkResponse(connection, objectUrl);
+            verifyChecksum(objectUrl, checksum, connection.getHeaderField(CHECKSUM_HEADER));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public int abortAbandonedTransfers(int staleMinutes, int limit) throws SQLException {
+        TransferRepository transferRepository = this.transferRepository;
+        if (transferRepository == null) {
+            return 0;
+        }
+        List<Transfer> transfers = transferRepository.findAbandoned(staleMinutes, limit);
+        for (Transfer transfer : transfers) {
+            this.abortUpload(transfer.getObjectUrl(), transfer.getUploadId());
+            transferRepository.delete(transfer.getFileId());
+        }
+        return transfers.size();
+    }
+
+    private void abortUpload(String objectUrl, String uploadId) {
+        try {
+            HttpURLConnection connection = this.open(objectUrl + "?uploadId=" + uploadId, "DELETE");
+            try {
+                connection.getResponseCode();
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            this.log.error("Failed to abort multipart upload %s of %s", uploadId, objectUrl);
+        }
+    }
+
+    /**
+     * Streams a slice of the source to the given URL, verifying the checksum (if any) of the bytes sent against the one
+     * reported by the object store, and returns the ETag of the stored object or part, if any.
+     */
+    private String put(String url, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+        HttpURLConnection connection = this.open(url, "PUT");
+        try {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(length);
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            try (OutputStream body = connection.getOutputStream()) {
+                this.copy(source, position, length, Channels.newChannel(body), digest, checksum);
+            }
+            this.checkResponse(connection, url);
+            if (checksum != null) {
+                verifyChecksum(url, formatChecksum(checksum), connection.getHeaderField(CHECKSUM_HEADER));
+            }
+            return connection.getHeaderField("ETag");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String compositeHash(byte[][] partHashes) {
+        MessageDigest digest = newDigest();
+        for (byte[] partHash : partHashes) {
+            digest.update(partHash);
+        }
+        return HexFormat.of().formatHex(digest.digest()) + "-" + partHashes.length;
+    }
+
+    private static String compositeChecksum(long[] partChecksums) {
+        ByteBuffer values = ByteBuffer.allocate(partChecksums.length * 4);
+        for (long partChecksum : partChecksums) {
+            values.putInt((int) partChecksum);
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(values.flip());
+        return formatChecksum(checksum) + "-" + partChecksums.length;
+    }
+
+    private void await(Future<Void> helper) throws IOException, MigrationException {
+        try {
+            helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for part uploads", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof MigrationException cause) {
+                throw cause;
+            }
+            throw new IOException("Part upload failed", e.getCause());
+        }
+    }
+
+    protected HttpURLConnection open(String url, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(this.timeoutMillis);
+        connection.setReadTimeout(this.timeoutMillis);
+        return connection;
+    }
+
+    protected void checkResponse(HttpURLConnection connection, String url) throws IOException, MigrationException {
+        int status = connection.getResponseCode();
+        if (status < 200 || status >= 300) {
+            throw new MigrationException(
+                    String.format("Object store rejected %s %s with status %d", connection.getRequestMethod(), url, status),
+                    FailureType.fromStatus(status),
+                    Endpoint.DESTINATION
+            );
+        }
+    }
+
+    private interface PartUploader {
+        void run() throws IOException, MigrationException;
+    }
+
+    private static class StoredPart {
+        private final String etag;
+        // CRC32C of the stored bytes, if the object store lists it
+        private final String checksum;
+
+        StoredPart(String etag, String checksum) {
+            this.etag = etag;
+            this.checksum = checksum;
+        }
+    }
+}
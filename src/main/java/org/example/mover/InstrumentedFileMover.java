@@ -0,0 +1,54 @@
+package org.example.mover;
+
+import org.example.exception.FailureType;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+import org.example.metrics.Counter;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+
+/**
+ * Records the latency, outcome and transferred bytes of every move.
+ */
+public class InstrumentedFileMover implements FileMover {
+    private final FileMover delegate;
+    private final Histogram latency;
+    private final Counter successes;
+    private final Counter[] failures;
+    private final Counter failed;
+    private final Counter bytes;
+
+    public InstrumentedFileMover(FileMover delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.latency = registry.histogram("migration_move_seconds", "Time to move a single file", Histogram.LATENCY_BUCKETS);
+        this.successes = registry.counter("migration_moves_total", "Files moved", "result", "success");
+        this.failures = new Counter[FailureType.values().length];
+        for (FailureType type : FailureType.values()) {
+            this.failures[type.ordinal()] = registry.counter("migration_move_failures_total", "Failed moves by failure type", "type", type.name().toLowerCase());
+        }
+        // kept as a total so existing dashboards keep working
+        this.failed = registry.counter("migration_moves_total", "Files moved", "result", "fail");
+        this.bytes = registry.counter("migration_moved_bytes_total", "Bytes transferred to the destination");
+    }
+
+    @Override
+    public MoveResult move(SourceFile sourceFile) throws MigrationException {
+        long start = System.nanoTime();
+        try {
+            MoveResult result = this.delegate.move(sourceFile);
+            this.bytes.add(result.getBytes());
+            this.successes.increment();
+            return result;
+        } catch (MigrationException e) {
+            this.failed.increment();
+            this.failures[e.getType().ordinal()].increment();
+            throw e;
+        } catch (RuntimeException e) {
+            this.failed.increment();
+            this.failures[FailureType.TRANSIENT.ordinal()].increment();
+            throw e;
+        } finally {
+            this.latency.observeSince(start);
+        }
+    }
+}
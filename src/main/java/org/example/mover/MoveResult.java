@@ -0,0 +1,55 @@
+package org.example.mover;
+
+/**
+ * The outcome of a successful file move.
+ */
+public class MoveResult {
+    private final String uri;
+    private final long bytes;
+    private final String contentHash;
+    private final String checksum;
+
+    public MoveResult(String uri, long bytes) {
+        this(uri, bytes, null);
+    }
+
+    public MoveResult(String uri, long bytes, String contentHash) {
+        this(uri, bytes, contentHash, null);
+    }
+
+    public MoveResult(String uri, long bytes, String contentHash, String checksum) {
+        this.uri = uri;
+        this.bytes = bytes;
+        this.contentHash = contentHash;
+        this.checksum = checksum;
+    }
+
+    /**
+     * The URI of the file at its destination.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * The number of bytes transferred to the destination.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * The content hash computed while the file was transferred, or null if content hashing is disabled.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * The CRC32C checksum of the bytes sent (verified against the destination when it reports one), or null if
+     * checksums are disabled.
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.mover;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Controls how large files are split into parts and transferred concurrently by multipart-capable movers.
+ */
+public class MultipartSettings {
+    private final long threshold;
+    private final long partSize;
+    private final int concurrency;
+    private final int partAttempts;
+    private final ExecutorService partExecutor;
+
+    /**
+     * @param threshold    files larger than this many bytes are transferred in parts
+     * @param partSize     the size in bytes of each part (the last part may be smaller)
+     * @param concurrency  the max number of parts of a single file transferred at once
+     * @param partAttempts the max number of attempts per part before the file transfer fails
+     * @param partExecutor the executor shared by all files for transferring parts
+     */
+    public MultipartSettings(long threshold, long partSize, int concurrency, int partAttempts, ExecutorService partExecutor) {
+        this.threshold = threshold;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.partAttempts = partAttempts;
+        this.partExecutor = partExecutor;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getPartAttempts() {
+        return partAttempts;
+    }
+
+    public ExecutorService getPartExecutor() {
+        return partExecutor;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.mover;
+
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+import org.example.ratelimit.RateLimiter;
+
+/**
+ * Applies the cluster-wide files/second and bytes/second limits to every move. A file token is taken before each move;
+ * bytes are charged once the move reports its size, and the next move waits until that debt has been repaid.
+ * Either limiter may be null to leave that dimension unlimited.
+ */
+public class RateLimitedFileMover implements FileMover {
+    private final FileMover delegate;
+    private final RateLimiter filesLimiter;
+    private final RateLimiter bytesLimiter;
+
+    public RateLimitedFileMover(FileMover delegate, RateLimiter filesLimiter, RateLimiter bytesLimiter) {
+        this.delegate = delegate;
+        this.filesLimiter = filesLimiter;
+        this.bytesLimiter = bytesLimiter;
+    }
+
+    @Override
+    public MoveResult move(SourceFile sourceFile) throws MigrationException {
+        try {
+            if (this.filesLimiter != null) {
+                this.filesLimiter.acquire(1);
+            }
+            if (this.bytesLimiter != null) {
+                this.bytesLimiter.acquire(0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MigrationException("Interrupted waiting for rate limit to move file " + sourceFile.getUri(), e);
+        }
+        MoveResult result = this.delegate.move(sourceFile);
+        if (this.bytesLimiter != null) {
+            this.bytesLimiter.charge(result.getBytes());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.mover;
+
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides read access to the bytes of source files.
+ */
+public interface SourceStore {
+    /**
+     * Opens the given source file for reading; the caller is responsible for closing the channel.
+     */
+    FileChannel open(SourceFile sourceFile) throws MigrationException;
+}
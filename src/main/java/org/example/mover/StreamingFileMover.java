@@ -0,0 +1,180 @@
+package org.example.mover;
+
+import org.example.exception.Endpoint;
+import org.example.exception.FailureType;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.Checksum;
+
+/**
+ * Base class for movers that stream file contents from a {@link SourceStore} to a destination over NIO channels.
+ * Subclasses only implement the destination side of the transfer; file contents are never materialized on the heap.
+ * <p>
+ * When content hashing is enabled, subclasses compute a SHA-256 content hash inline while the bytes stream through,
+ * and {@link #hash} computes the same hash for a file without transferring it.
+ * <p>
+ * When checksums are enabled, subclasses also compute a CRC32C checksum of the bytes sent in the same pass and compare it
+ * with the checksum reported by the destination, so the copy is verified without reading either side again.
+ */
+public abstract class StreamingFileMover implements FileMover {
+    private final SourceStore sourceStore;
+    protected final BufferPool bufferPool;
+    private volatile boolean hashContent;
+    private volatile boolean verifyChecksums;
+
+    protected StreamingFileMover(SourceStore sourceStore, BufferPool bufferPool) {
+        this.sourceStore = sourceStore;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public MoveResult move(SourceFile sourceFile) throws MigrationException {
+        try (FileChannel source = this.sourceStore.open(sourceFile)) {
+            return this.transfer(sourceFile, source, source.size());
+        } catch (SourceReadException e) {
+            throw new MigrationException(String.format("Failed to read file %s", sourceFile.getUri()), FailureType.TRANSIENT, Endpoint.SOURCE, e);
+        } catch (IOException e) {
+            // source reads are marked as such, so the remaining I/O errors are attributed to the destination
+            throw new MigrationException(String.format("Failed to move file %s", sourceFile.getUri()), FailureType.of(e), Endpoint.DESTINATION, e);
+        }
+    }
+
+    /**
+     * Computes the content hash of the source, matching the hash the mover would compute while transferring it.
+     */
+    public String hash(FileChannel source, long size) throws IOException {
+        MessageDigest digest = newDigest();
+        this.copy(source, 0, size, null, digest);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public void setHashContent(boolean hashContent) {
+        this.hashContent = hashContent;
+    }
+
+    protected boolean isHashContent() {
+        return this.hashContent;
+    }
+
+    public void setVerifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    protected boolean isVerifyChecksums() {
+        return this.verifyChecksums;
+    }
+
+    /**
+     * Transfers the full contents of the source channel to the destination.
+     */
+    protected abstract MoveResult transfer(SourceFile sourceFile, FileChannel source, long size) throws IOException, MigrationException;
+
+    /**
+     * Builds the destination key of a file; keys are deterministic so repeated moves of a file overwrite the same object.
+     */
+    protected String getKey(SourceFile sourceFile) {
+        return String.format("files/%d", sourceFile.getId());
+    }
+
+    /**
+     * Copies {@code length} bytes of the source starting at {@code position} to the target through a pooled direct buffer.
+     */
+    protected long copy(FileChannel source, long position, long length, WritableByteChannel target) throws IOException {
+        return this.copy(source, position, length, target, null);
+    }
+
+    /**
+     * Copies {@code length} bytes of the source starting at {@code position} to the target (if any) through a pooled
+     * direct buffer, updating the digest (if any) with every byte copied.
+     */
+    protected long copy(FileChannel source, long position, long length, WritableByteChannel target, MessageDigest digest) throws IOException {
+        return this.copy(source, position, length, target, digest, null);
+    }
+
+    /**
+     * Copies {@code length} bytes of the source starting at {@code position} to the target (if any) through a pooled
+     * direct buffer, updating the digest and checksum (if any) with every byte copied.
+     */
+    protected long copy(FileChannel source, long position, long length, WritableByteChannel target, MessageDigest digest, Checksum checksum) throws IOException {
+        ByteBuffer buffer;
+        try {
+            buffer = this.bufferPool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a transfer buffer", e);
+        }
+        try {
+            long copied = 0;
+            while (copied < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - copied));
+                int read;
+                try {
+                    read = source.read(buffer, position + copied);
+                } catch (IOException e) {
+                    throw new SourceReadException(String.format("Failed to read source at byte %d", position + copied), e);
+                }
+                if (read < 0) {
+                    throw new SourceReadException(String.format("Unexpected end of source after %d of %d bytes", copied, length), null);
+                }
+                buffer.flip();
+                if (digest != null) {
+                    digest.update(buffer.duplicate());
+                }
+                if (checksum != null) {
+                    checksum.update(buffer.duplicate());
+                }
+                while (target != null && buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                copied += read;
+            }
+            return copied;
+        } finally {
+            this.bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Fails the move with a MISMATCH if the destination reported a checksum that differs from the one computed while
+     * sending. Destinations that report no checksum cannot be verified and are accepted.
+     */
+    protected static void verifyChecksum(String url, String computed, String reported) throws MigrationException {
+        if (computed != null && reported != null && !computed.equalsIgnoreCase(reported.trim())) {
+            throw new MigrationException(
+                    String.format("Checksum mismatch for %s: sent %s, destination reported %s", url, computed, reported),
+                    FailureType.MISMATCH,
+                    Endpoint.DESTINATION
+            );
+        }
+    }
+
+    /**
+     * An I/O failure reading an open source, which the move attributes to the source rather than the destination.
+     */
+    protected static class SourceReadException extends IOException {
+        protected SourceReadException(String message, IOException cause) {
+            super(message, cause);
+        }
+    }
+
+    protected static String formatChecksum(Checksum checksum) {
+        return String.format("%08x", checksum.getValue());
+    }
+
+    protected static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
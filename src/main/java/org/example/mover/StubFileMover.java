@@ -11,10 +11,10 @@ public class StubFileMover implements FileMover {
     private final static int FAIL_PERCENTAGE = 5;
 
     @Override
-    public String move(SourceFile sourceFile) throws MigrationException {
+    public MoveResult move(SourceFile sourceFile) throws MigrationException {
         double rand = random.nextDouble() * 100;
         if (rand >= FAIL_PERCENTAGE) {
-            return "s3://some-bucket/" + UUID.randomUUID();
+            return new MoveResult("s3://some-bucket/" + UUID.randomUUID(), 0);
         }
         throw new MigrationException("Failed to move file");
     }
@@ -0,0 +1,14 @@
+package org.example.mover;
+
+import java.sql.SQLException;
+
+/**
+ * Aborts resumable uploads which will never be resumed, so they do not linger in the destination or the database.
+ */
+public interface TransferCleaner {
+    /**
+     * Aborts up to limit uploads of files which completed, failed permanently or ran out of retries, or which were
+     * started more than staleMinutes ago, and removes their recorded state. Returns the number of uploads aborted.
+     */
+    int abortAbandonedTransfers(int staleMinutes, int limit) throws SQLException;
+}
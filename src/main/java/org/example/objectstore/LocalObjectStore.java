@@ -0,0 +1,325 @@
+package org.example.objectstore;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+
+/**
+ * A minimal S3-like object store backed by the local file system, used as a stand-in destination for local runs
+ * and tests. Objects are addressed as {@code /<bucket>/<key>} and support PUT, GET, HEAD and DELETE.
+ * <p>
+ * Multipart uploads follow the S3 flow: {@code POST ?uploads} returns an upload id, parts are uploaded with
+ * {@code PUT ?uploadId=&partNumber=} (returning an ETag), {@code POST ?uploadId=} with a manifest of
+ * {@code <partNumber> <etag>} lines assembles the object, and {@code DELETE ?uploadId=} aborts the upload.
+ * Upload sessions survive failed parts and restarts, and {@code GET ?uploadId=} lists the parts stored so far as
+ * {@code <partNumber> <etag> <checksum>} lines, so an interrupted upload can be resumed.
+ * <p>
+ * Like S3's additional checksums, every upload responds with the CRC32C of the bytes received in
+ * {@code x-checksum-crc32c}. Manifest lines may carry a third field with the expected part checksum, and assembled
+ * objects report the CRC32C of their part checksums suffixed with the part count.
+ */
+public class LocalObjectStore {
+    private final Logger log = LoggerFactory.getLogger(LocalObjectStore.class);
+    private final static String UPLOADS = ".uploads";
+    private final static String CHECKSUM_HEADER = "x-checksum-crc32c";
+    private final Path root;
+    private final Path uploads;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public LocalObjectStore(Path root, int port, int threads) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.uploads = this.root.resolve(UPLOADS);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        this.server.start();
+        this.log.info("Local object store listening on port %d", this.getPort());
+    }
+
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdown();
+    }
+
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Path object = this.resolve(exchange.getRequestURI().getPath());
+            if (object == null) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (query.containsKey("uploads") || query.containsKey("uploadId")) {
+                this.handleMultipart(exchange, object, query);
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> this.put(exchange, object);
+                case "GET" -> this.get(exchange, object, true);
+                case "HEAD" -> this.get(exchange, object, false);
+                case "DELETE" -> {
+                    Files.deleteIfExists(object);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        } catch (Exception e) {
+            this.log.error("Failed to handle object store request");
+            this.log.error(e);
+        }
+    }
+
+    private void put(HttpExchange exchange, Path object) throws IOException {
+        Files.createDirectories(object.getParent());
+        Path temp = object.resolveSibling(object.getFileName() + ".upload-" + Thread.currentThread().getId());
+        CRC32C checksum = new CRC32C();
+        long size = this.write(exchange.getRequestBody(), temp, checksum);
+        Files.move(temp, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        exchange.getResponseHeaders().set("x-object-size", String.valueOf(size));
+        exchange.getResponseHeaders().set(CHECKSUM_HEADER, formatChecksum(checksum.getValue()));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void handleMultipart(HttpExchange exchange, Path object, Map<String, String> query) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (query.containsKey("uploads") && "POST".equals(method)) {
+            String uploadId = UUID.randomUUID().toString();
+            Files.createDirectories(this.uploads.resolve(uploadId));
+            byte[] body = uploadId.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            return;
+        }
+        Path upload = this.resolveUpload(query.get("uploadId"));
+        if (upload == null || !Files.isDirectory(upload)) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        switch (method) {
+            case "PUT" -> {
+                int partNumber = Integer.parseInt(query.getOrDefault("partNumber", "0"));
+                if (partNumber < 1) {
+                    exchange.sendResponseHeaders(400, -1);
+                    return;
+                }
+                Path part = upload.resolve(partName(partNumber));
+                Path temp = upload.resolve(partName(partNumber) + ".tmp-" + Thread.currentThread().getId());
+                CRC32C checksum = new CRC32C();
+                long size = this.write(exchange.getRequestBody(), temp, checksum);
+                Files.move(temp, part, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // the part checksum is kept next to the part so the assembled object can report its composite checksum
+                Files.writeString(upload.resolve(partName(partNumber) + ".crc32c"), formatChecksum(checksum.getValue()));
+                exchange.getResponseHeaders().set("ETag", partNumber + "-" + size);
+                exchange.getResponseHeaders().set(CHECKSUM_HEADER, formatChecksum(checksum.getValue()));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "GET" -> this.listParts(exchange, upload);
+            case "POST" -> this.completeUpload(exchange, object, upload);
+            case "DELETE" -> {
+                deleteDirectory(upload);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> exchange.sendResponseHeaders(405, -1);
+        }
+    }
+
+    private void listParts(HttpExchange exchange, Path upload) throws IOException {
+        StringBuilder listing = new StringBuilder();
+        try (Stream<Path> files = Files.list(upload)) {
+            for (Path part : files.filter(file -> file.getFileName().toString().matches("part-\\d{5}")).sorted().toList()) {
+                int partNumber = Integer.parseInt(part.getFileName().toString().substring(5));
+                Path partChecksum = upload.resolve(partName(partNumber) + ".crc32c");
+                listing.append(partNumber).append(' ').append(partNumber).append('-').append(Files.size(part));
+                if (Files.isRegularFile(partChecksum)) {
+                    listing.append(' ').append(Files.readString(partChecksum));
+                }
+                listing.append('\n');
+            }
+        }
+        byte[] body = listing.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private void completeUpload(HttpExchange exchange, Path object, Path upload) throws IOException {
+        String manifest = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String[] lines = manifest.split("\n");
+        List<Path> parts = new ArrayList<>();
+        ByteBuffer partChecksums = ByteBuffer.allocate(lines.length * 4);
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.trim().split(" ");
+            int partNumber = Integer.parseInt(fields[0]);
+            Path part = upload.resolve(partName(partNumber));
+            // ETags encode the part size, so a mismatch means the part was overwritten or never stored
+            if (partNumber != parts.size() + 1 || !Files.isRegularFile(part) || !(partNumber + "-" + Files.size(part)).equals(fields[1])) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            Path partChecksum = upload.resolve(partName(partNumber) + ".crc32c");
+            String checksum = Files.isRegularFile(partChecksum) ? Files.readString(partChecksum) : null;
+            if (checksum == null || (fields.length > 2 && !checksum.equalsIgnoreCase(fields[2]))) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            partChecksums.putInt((int) Long.parseLong(checksum, 16));
+            parts.add(part);
+        }
+        Files.createDirectories(object.getParent());
+        Path temp = object.resolveSibling(object.getFileName() + ".upload-" + Thread.currentThread().getId());
+        long size = 0;
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path part : parts) {
+                try (FileChannel source = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long partSize = source.size();
+                    long position = 0;
+                    while (position < partSize) {
+                        position += source.transferTo(position, partSize - position, target);
+                    }
+                    size += partSize;
+                }
+            }
+        }
+        Files.move(temp, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteDirectory(upload);
+        CRC32C checksum = new CRC32C();
+        checksum.update(partChecksums.flip());
+        exchange.getResponseHeaders().set("x-object-size", String.valueOf(size));
+        exchange.getResponseHeaders().set(CHECKSUM_HEADER, formatChecksum(checksum.getValue()) + "-" + parts.size());
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void get(HttpExchange exchange, Path object, boolean includeBody) throws IOException {
+        if (!Files.isRegularFile(object)) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        long size = Files.size(object);
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        if (!includeBody) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(size));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+        try (FileChannel channel = FileChannel.open(object, StandardOpenOption.READ);
+             OutputStream body = exchange.getResponseBody()) {
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, Channels.newChannel(body));
+            }
+        }
+    }
+
+    /**
+     * Streams a request body into the given file, updating the checksum with every byte received, and returns the number
+     * of bytes written.
+     */
+    protected long write(InputStream body, Path target, Checksum checksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = 0;
+            long transferred;
+            ReadableByteChannel source = Channels.newChannel(new CheckedInputStream(body, checksum));
+            while ((transferred = channel.transferFrom(source, size, 1 << 20)) > 0) {
+                size += transferred;
+            }
+            return size;
+        }
+    }
+
+    private Path resolve(String path) {
+        Path object = this.root.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+        // reject keys escaping the store root, addressing a bucket itself or addressing in-progress uploads
+        if (!object.startsWith(this.root) || object.startsWith(this.uploads) || object.getNameCount() - this.root.getNameCount() < 2) {
+            return null;
+        }
+        return object;
+    }
+
+    private Path resolveUpload(String uploadId) {
+        if (uploadId == null) {
+            return null;
+        }
+        Path upload = this.uploads.resolve(uploadId).normalize();
+        return upload.getParent().equals(this.uploads) ? upload : null;
+    }
+
+    private static String formatChecksum(long checksum) {
+        return String.format("%08x", checksum);
+    }
+
+    private static String partName(int partNumber) {
+        return String.format("part-%05d", partNumber);
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                int separator = param.indexOf('=');
+                if (separator < 0) {
+                    params.put(URLDecoder.decode(param, StandardCharsets.UTF_8), "");
+                } else {
+                    params.put(
+                            URLDecoder.decode(param.substring(0, separator), StandardCharsets.UTF_8),
+                            URLDecoder.decode(param.substring(separator + 1), StandardCharsets.UTF_8)
+                    );
+                }
+            }
+        }
+        return params;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = Path.of(args.length > 0 ? args[0] : "object-store").toAbsolutePath();
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9000;
+        new LocalObjectStore(root, port, 16).start();
+    }
+}
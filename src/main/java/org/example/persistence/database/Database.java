@@ -4,4 +4,9 @@ import javax.sql.DataSource;
 
 public interface Database {
     DataSource getDataSource();
+
+    /**
+     * Number of threads currently blocked waiting for a pooled connection.
+     */
+    int getThreadsAwaitingConnection();
 }
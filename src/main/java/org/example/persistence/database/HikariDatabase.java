@@ -2,7 +2,10 @@ package org.example.persistence.database;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.example.configuration.ConfigurationProperties;
+import org.example.metrics.HikariMetricsTrackerFactory;
+import org.example.metrics.Metrics;
 
 import javax.sql.DataSource;
 
@@ -10,16 +13,24 @@ public class HikariDatabase implements Database {
     private final HikariDataSource dataSource;
 
     public HikariDatabase(ConfigurationProperties properties) {
+        this(properties, "migration-pool", properties.getInteger("DB_POOL_SIZE", 10));
+    }
+
+    public HikariDatabase(ConfigurationProperties properties, String poolName, int maximumPoolSize) {
         HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
         config.setJdbcUrl(properties.getString("DB_URL", null));
         config.setUsername(properties.getString("DB_USER", null));
         config.setPassword(properties.getString("DB_PASSWORD", null));
 
-        config.setMaximumPoolSize(properties.getInteger("DB_POOL_SIZE", 10));
-        config.setMinimumIdle(properties.getInteger("DB_MIN_IDLE", 2));
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(Math.min(maximumPoolSize, properties.getInteger("DB_MIN_IDLE", 2)));
         config.setIdleTimeout(properties.getInteger("DB_IDLE_TIMEOUT", 30000));
         config.setConnectionTimeout(properties.getInteger("DB_CONN_TIMEOUT", 30000));
         config.setMaxLifetime(properties.getInteger("DB_MAX_LIFETIME", 1800000));
+        // batched inserts are sent as multi-row statements, so statement-level triggers fire once per batch
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+        config.setMetricsTrackerFactory(new HikariMetricsTrackerFactory(Metrics.registry()));
 
         this.dataSource = new HikariDataSource(config);
     }
@@ -28,4 +39,10 @@ public class HikariDatabase implements Database {
     public DataSource getDataSource() {
         return this.dataSource;
     }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        HikariPoolMXBean pool = this.dataSource.getHikariPoolMXBean();
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
 }
\ No newline at end of file
@@ -15,6 +15,11 @@ public class StubDatabase implements Database {
         return this.dataSource;
     }
 
+    @Override
+    public int getThreadsAwaitingConnection() {
+        return 0;
+    }
+
     static class StubDataSource implements DataSource {
         @Override
         public Connection getConnection() throws SQLException {
@@ -0,0 +1,23 @@
+package org.example.persistence.repository;
+
+import java.sql.SQLException;
+
+/**
+ * Abstraction layer for the index of migrated file contents, used to reuse destination objects for duplicate files.
+ */
+public interface ContentIndexRepository {
+    /**
+     * Checks if any indexed content has the given size, which is a cheap pre-filter before hashing a file.
+     */
+    boolean hasSize(long size) throws SQLException;
+
+    /**
+     * Finds the destination URI of previously migrated content with the given hash, or null if there is none.
+     */
+    String find(String contentHash) throws SQLException;
+
+    /**
+     * Records the destination URI of migrated content; the first URI recorded for a hash is kept.
+     */
+    void save(String contentHash, long size, String uri) throws SQLException;
+}
@@ -0,0 +1,53 @@
+package org.example.persistence.repository;
+
+import org.example.configuration.ConfigurationProperties;
+import org.example.file.MigrationFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps file ids to the range partitions of migration_files: partition n is named migration_files_p{n} and holds ids
+ * [n * MIGRATION_FILES_PARTITION_SIZE, (n + 1) * MIGRATION_FILES_PARTITION_SIZE). The size must match the partitions
+ * already created, so it cannot be changed once the migration has been seeded.
+ */
+class FilePartitioning {
+    private final long size;
+
+    FilePartitioning(ConfigurationProperties config) {
+        this.size = Math.max(1, config.getInteger("MIGRATION_FILES_PARTITION_SIZE", 10_000_000));
+    }
+
+    long getSize() {
+        return this.size;
+    }
+
+    int index(long fileId) {
+        return (int) (fileId / this.size);
+    }
+
+    long lower(int index) {
+        return index * this.size;
+    }
+
+    long upper(int index) {
+        return (index + 1) * this.size - 1;
+    }
+
+    String table(int index) {
+        return "migration_files_p" + index;
+    }
+
+    /**
+     * Groups records by partition, in partition order so concurrent writers lock partitions in the same order.
+     */
+    Map<Integer, List<MigrationFile>> group(List<MigrationFile> records) {
+        Map<Integer, List<MigrationFile>> groups = new TreeMap<>();
+        for (MigrationFile record : records) {
+            groups.computeIfAbsent(this.index(record.getId()), index -> new ArrayList<>()).add(record);
+        }
+        return groups;
+    }
+}
@@ -6,5 +6,9 @@ import java.sql.SQLException;
 import java.util.List;
 
 public interface FilesRepository {
-    List<SourceFile> getSourceFiles(int minId, int maxId) throws SQLException;
+    /**
+     * Reads the next page of source files with ids in (afterId, maxId], ordered by id.
+     * Callers stream a range by passing the last id of the previous page as afterId.
+     */
+    List<SourceFile> getSourceFiles(int afterId, int maxId, int limit) throws SQLException;
 }
@@ -9,7 +9,43 @@ import java.util.List;
  * Abstraction layer for managing the state of individual attachment migrations.
  */
 public interface MigrationFilesRepository {
+    /**
+     * Saves migration results; failed files are scheduled for their first retry with a backoff delay.
+     */
     void save(List<MigrationFile> records) throws SQLException;
+
+    /**
+     * Saves retry results; files which failed again are scheduled for their next retry with a longer backoff delay.
+     */
     void saveRetries(List<MigrationFile> records) throws SQLException;
-    List<MigrationFile> getFailures() throws SQLException;
+
+    /**
+     * Claims up to limit failed files whose next attempt is due within lookaheadSeconds, marking them as RETRYING.
+     * Each returned file carries its next attempt date. Concurrent callers are guaranteed to receive distinct files.
+     */
+    List<MigrationFile> claimRetries(int lookaheadSeconds, int limit) throws SQLException;
+
+    /**
+     * Returns the seconds until the next unclaimed failed file is due for a retry (0 if one is already due),
+     * or -1 if no files are waiting to be retried.
+     */
+    long getSecondsUntilNextRetry() throws SQLException;
+
+    /**
+     * Returns claimed retries to the status they were claimed from (FAIL or MISMATCH) without counting an attempt,
+     * keeping their next attempt date.
+     */
+    void releaseRetries(List<MigrationFile> records) throws SQLException;
+
+    /**
+     * Releases any files stuck in RETRYING back to the status they were claimed from.
+     */
+    void cleanup() throws SQLException;
+
+    /**
+     * Detaches the partitions whose ranges are all complete and whose files have no retries left to run, moving them
+     * to the archive schema where they can be dumped or dropped without touching live data. Returns the archived
+     * partitions.
+     */
+    List<String> archivePartitions() throws SQLException;
 }
\ No newline at end of file
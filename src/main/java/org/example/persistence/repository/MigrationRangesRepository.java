@@ -4,6 +4,8 @@ import org.example.file.JobStatus;
 import org.example.file.MigrationRange;
 
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 public interface MigrationRangesRepository {
     /**
@@ -12,15 +14,55 @@ public interface MigrationRangesRepository {
     void saveRange(int rangeId, JobStatus status) throws SQLException;
 
     /**
-     * Picks the next available range to process.
+     * Saves the state of multiple migration ranges in a single transaction.
      */
-    MigrationRange pickRange() throws SQLException;
+    void saveRanges(Map<Integer, JobStatus> statuses) throws SQLException;
+
+    /**
+     * Persists the last file id whose result has been committed for a given range, so the range can resume from it.
+     * This also refreshes the range's last updated date, which keeps an active range from being cleaned up.
+     */
+    void saveCheckpoint(int rangeId, int checkpointId) throws SQLException;
+
+    /**
+     * Persists the checkpoints of multiple ranges in a single transaction.
+     */
+    void saveCheckpoints(Map<Integer, Integer> checkpoints) throws SQLException;
+
+    /**
+     * Claims up to limit available ranges in a single round trip, marking them as PROCESSING.
+     * Concurrent callers are guaranteed to receive distinct ranges.
+     */
+    List<MigrationRange> claimRanges(int limit) throws SQLException;
+
+    /**
+     * Claims up to limit available ranges whose partition ({@code range_id % partitionCount}) is one of the given partitions.
+     */
+    List<MigrationRange> claimRanges(int partitionCount, int[] partitions, int limit) throws SQLException;
+
+    /**
+     * Splits the running range with the most remaining ids (at least minRemaining), shrinking it to the lower half of
+     * its remaining ids and inserting the upper half as a new range already claimed as PROCESSING by the caller.
+     * Returns the new range, or null if no running range is large enough to split.
+     */
+    MigrationRange splitRange(int minRemaining) throws SQLException;
+
+    /**
+     * Returns the current upper bound of a range, which shrinks when the range is split.
+     */
+    int getMaxId(int rangeId) throws SQLException;
+
+    /**
+     * Returns claimed ranges to PENDING, skipping any range which has been updated since it was claimed.
+     */
+    void releaseRanges(List<MigrationRange> ranges) throws SQLException;
 
     /**
      * Seeds the range table based on the max attachment sequence in the source table(s).
      * If init is true, this represents the first seed -- otherwise, it will expand the range based on previous max.
+     * Returns true if seeding stopped before reaching the max sequence and should be continued right away.
      */
-    void seedRanges(boolean init) throws SQLException;
+    boolean seedRanges(boolean init) throws SQLException;
 
     /**
      * Checks if the ranges have been seeded yet.
@@ -0,0 +1,58 @@
+package org.example.persistence.repository;
+
+import org.example.persistence.database.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class PostgresContentIndexRepository implements ContentIndexRepository {
+    private final static String HAS_SIZE = "SELECT EXISTS (SELECT 1 FROM migration_content WHERE size_bytes = ?) AS found";
+    private final static String FIND = "SELECT new_uri FROM migration_content WHERE content_hash = ?";
+    private final static String SAVE = "INSERT INTO migration_content (content_hash, size_bytes, new_uri) VALUES (?, ?, ?) ON CONFLICT (content_hash) DO NOTHING";
+    private final Database database;
+
+    public PostgresContentIndexRepository(Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public boolean hasSize(long size) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(HAS_SIZE)) {
+                statement.setLong(1, size);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() && resultSet.getBoolean("found");
+                }
+            }
+        }
+    }
+
+    @Override
+    public String find(String contentHash) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(FIND)) {
+                statement.setString(1, contentHash);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return resultSet.getString("new_uri");
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void save(String contentHash, long size, String uri) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(SAVE)) {
+                statement.setString(1, contentHash);
+                statement.setLong(2, size);
+                statement.setString(3, uri);
+                statement.executeUpdate();
+            }
+        }
+    }
+}
@@ -11,7 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class PostgresFilesRepository implements FilesRepository {
-    private final static String QUERY = "SELECT * FROM source_files WHERE file_id BETWEEN ? AND ?";
+    private final static String QUERY = "SELECT * FROM source_files WHERE file_id > ? AND file_id <= ? ORDER BY file_id LIMIT ?";
     private final Database database;
 
     public PostgresFilesRepository(Database database) {
@@ -19,12 +19,15 @@ public class PostgresFilesRepository implements FilesRepository {
     }
 
     @Override
-    public List<SourceFile> getSourceFiles(int minId, int maxId) throws SQLException {
+    public List<SourceFile> getSourceFiles(int afterId, int maxId, int limit) throws SQLException {
         try (Connection conn = this.database.getDataSource().getConnection()) {
-            List<SourceFile> files = new ArrayList<>();
+            List<SourceFile> files = new ArrayList<>(limit);
             try (PreparedStatement statement = conn.prepareStatement(QUERY)) {
-                statement.setInt(1, minId);
+                // keyset page over the primary key; the connection is returned to the pool between pages
+                statement.setFetchSize(limit);
+                statement.setInt(1, afterId);
                 statement.setInt(2, maxId);
+                statement.setInt(3, limit);
                 try (ResultSet resultSet = statement.executeQuery()) {
                     while (resultSet.next()) {
                         files.add(new SourceFile(
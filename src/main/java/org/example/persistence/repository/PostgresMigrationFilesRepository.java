@@ -1,39 +1,96 @@
 package org.example.persistence.repository;
 
+import org.example.configuration.ConfigurationProperties;
 import org.example.file.MigrationFile;
 import org.example.file.MigrationStatus;
 import org.example.persistence.database.Database;
+import org.example.retry.RetryBackoff;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class PostgresMigrationFilesRepository implements MigrationFilesRepository {
-    private final static String SAVE = "INSERT INTO migration_files (file_id, old_uri, new_uri, file_name, create_date, status, migration_date) VALUES (?, ?, ?, ?, ?, ?, now()) ON CONFLICT (file_id) DO UPDATE SET new_uri = EXCLUDED.new_uri, status = EXCLUDED.status";
-    private final static String SAVE_RETRIES = "UPDATE migration_files SET new_uri = ?, status = ?, retry_count = ?, last_attempt_date = NOW() WHERE file_id = ?";
-    private final static String GET_FAILURES = "WITH retries AS (SELECT file_id FROM migration_files WHERE status = 'FAIL' AND retry_count < 3 ORDER BY last_attempt_date NULLS FIRST LIMIT 500 FOR UPDATE SKIP LOCKED) UPDATE migration_files SET status = 'RETRYING', last_attempt_date = NOW() FROM retries WHERE migration_files.file_id = retries.file_id RETURNING migration_files.*";
+    // FAIL and MISMATCH files are retried up to MAX_RETRIES times; the retry queries and the partial retry index use the same literal
+    private final static int MAX_RETRIES = 3;
+    // results are written straight to the partition holding their ids (%s), so writes never route through the parent
+    private final static String SAVE = "INSERT INTO %s (file_id, old_uri, new_uri, file_name, create_date, status, migration_date, next_attempt_at, checksum, bytes_moved) VALUES (?, ?, ?, ?, ?, ?, now(), now() + ? * INTERVAL '1 second', ?, ?) ON CONFLICT (file_id) DO UPDATE SET new_uri = EXCLUDED.new_uri, status = EXCLUDED.status, next_attempt_at = EXCLUDED.next_attempt_at, checksum = EXCLUDED.checksum, bytes_moved = EXCLUDED.bytes_moved";
+    // retry results and releases are applied as one multi-row statement per partition (unnest over arrays), so the progress
+    // triggers count each batch once instead of once per row; a file listed twice keeps its last result
+    private final static String SAVE_RETRIES = "UPDATE %s files SET new_uri = v.new_uri, status = v.status, retry_count = v.retry_count, last_attempt_date = NOW(), next_attempt_at = NOW() + v.retry_delay * INTERVAL '1 second', checksum = v.checksum, bytes_moved = v.bytes_moved " +
+            "FROM (SELECT DISTINCT ON (file_id) * FROM unnest(?::int4[], ?::varchar[], ?::varchar[], ?::int4[], ?::float8[], ?::varchar[], ?::int8[]) WITH ORDINALITY AS v(file_id, new_uri, status, retry_count, retry_delay, checksum, bytes_moved, ordinal) ORDER BY file_id, ordinal DESC) v WHERE files.file_id = v.file_id";
+    private final static String CLAIM_RETRIES = "WITH retries AS (SELECT file_id FROM migration_files WHERE status IN ('FAIL', 'MISMATCH') AND retry_count < 3 AND next_attempt_at <= NOW() + ? * INTERVAL '1 second' ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) UPDATE migration_files SET prev_status = status, status = 'RETRYING', last_attempt_date = NOW() FROM retries WHERE migration_files.file_id = retries.file_id RETURNING migration_files.*, EXTRACT(EPOCH FROM migration_files.next_attempt_at - NOW()) AS due_in";
+    private final static String GET_NEXT_RETRY = "SELECT EXTRACT(EPOCH FROM MIN(next_attempt_at) - NOW()) AS due_in FROM migration_files WHERE status IN ('FAIL', 'MISMATCH') AND retry_count < 3";
+    // released retries go back to the status they were claimed from, so a MISMATCH is not reported as a plain FAIL
+    private final static String RELEASE_RETRY = "UPDATE %s SET status = coalesce(prev_status, 'FAIL') WHERE file_id = ANY(?::int4[]) AND status = 'RETRYING'";
+    private final static String CLEANUP = "UPDATE migration_files SET status = coalesce(prev_status, 'FAIL') WHERE status = 'RETRYING' AND last_attempt_date < NOW() - INTERVAL '60 minutes'";
+    // COPY write path: rows are streamed into a per-connection staging table, then merged with one set-based statement.
+    // Grouped writes may stage the same file twice (i.e. a redone page), so merges keep only its last staged row
+    private final static String CREATE_STAGE = "CREATE TEMP TABLE IF NOT EXISTS migration_files_stage (file_id BIGINT, old_uri VARCHAR(150), new_uri VARCHAR(150), file_name VARCHAR(200), create_date TIMESTAMP, status VARCHAR(8), retry_count INTEGER, retry_delay DOUBLE PRECISION, checksum VARCHAR(24), bytes_moved BIGINT, ordinal INTEGER) ON COMMIT DELETE ROWS";
+    private final static String COPY_STAGE = "COPY migration_files_stage (file_id, old_uri, new_uri, file_name, create_date, status, retry_count, retry_delay, checksum, bytes_moved, ordinal) FROM STDIN";
+    private final static String MERGE_STAGE = "INSERT INTO %s (file_id, old_uri, new_uri, file_name, create_date, status, migration_date, next_attempt_at, checksum, bytes_moved) SELECT DISTINCT ON (file_id) file_id, old_uri, new_uri, file_name, create_date, status, now(), now() + retry_delay * INTERVAL '1 second', checksum, bytes_moved FROM migration_files_stage WHERE file_id BETWEEN %d AND %d ORDER BY file_id, ordinal DESC ON CONFLICT (file_id) DO UPDATE SET new_uri = EXCLUDED.new_uri, status = EXCLUDED.status, next_attempt_at = EXCLUDED.next_attempt_at, checksum = EXCLUDED.checksum, bytes_moved = EXCLUDED.bytes_moved";
+    private final static String MERGE_STAGE_RETRIES = "UPDATE %s files SET new_uri = stage.new_uri, status = stage.status, retry_count = stage.retry_count, last_attempt_date = NOW(), next_attempt_at = NOW() + stage.retry_delay * INTERVAL '1 second', checksum = stage.checksum, bytes_moved = stage.bytes_moved FROM (SELECT DISTINCT ON (file_id) * FROM migration_files_stage WHERE file_id BETWEEN %d AND %d ORDER BY file_id, ordinal DESC) stage WHERE files.file_id = stage.file_id";
+    // partitions whose ranges are all COMPLETE, which are below the highest seeded id and have no retries outstanding
+    private final static String FIND_ARCHIVABLE_PARTITIONS = "SELECT partition_name FROM migration_files_partitions p WHERE status = 'DETACHING' OR (status = 'ATTACHED' AND max_id < (SELECT max(max_id) FROM migration_ranges) " +
+            "AND NOT EXISTS (SELECT 1 FROM migration_ranges r WHERE r.max_id >= p.min_id AND r.min_id <= p.max_id AND r.status <> 'COMPLETE') " +
+            "AND NOT EXISTS (SELECT 1 FROM migration_files f WHERE f.file_id BETWEEN p.min_id AND p.max_id AND ((f.status IN ('FAIL', 'MISMATCH') AND f.retry_count < 3) OR f.status = 'RETRYING'))) ORDER BY min_id";
+    private final static String SAVE_PARTITION_STATUS = "UPDATE migration_files_partitions SET status = ? WHERE partition_name = ?";
+    // no row: detached, false: attached, true: an interrupted concurrent detach
+    private final static String GET_DETACH_PENDING = "SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass(?)";
+    private final static String DETACH_PARTITION = "ALTER TABLE migration_files DETACH PARTITION %s CONCURRENTLY";
+    private final static String FINALIZE_DETACH = "ALTER TABLE migration_files DETACH PARTITION %s FINALIZE";
+    private final static String ARCHIVE_PARTITION = "ALTER TABLE %s SET SCHEMA migration_archive";
+    // archived files move from the live counters to archived_files:<status> and archived_bytes, so totals and the
+    // files per completed id stay as they were (rebuild_migration_progress() only recounts attached partitions); the
+    // detached partition's own triggers are dropped in the same transaction so later writes to the archive are never counted
+    private final static String ARCHIVE_PARTITION_PROGRESS = "INSERT INTO migration_progress (metric, stripe, value) SELECT counted.metric, pg_backend_pid() %% 64, sum(counted.delta) " +
+            "FROM (SELECT status, retry_count, count(*) AS files, coalesce(sum(bytes_moved) FILTER (WHERE status = 'SUCCESS'), 0) AS bytes FROM %s GROUP BY status, retry_count) counts, " +
+            "LATERAL (VALUES ('files:' || status, -files), ('archived_files:' || status, files), ('retries:' || retry_count, -files), ('bytes', -bytes), ('archived_bytes', bytes)) AS counted(metric, delta) " +
+            "GROUP BY counted.metric HAVING sum(counted.delta) <> 0 ORDER BY counted.metric ON CONFLICT (metric, stripe) DO UPDATE SET value = migration_progress.value + EXCLUDED.value";
+    private final static String DROP_PARTITION_TRIGGERS = "DROP TRIGGER IF EXISTS %1$s_progress_insert ON %1$s; DROP TRIGGER IF EXISTS %1$s_progress_update ON %1$s; DROP TRIGGER IF EXISTS %1$s_progress_delete ON %1$s";
     private final Database database;
+    private final FilePartitioning partitioning;
+    private final boolean copyWrites;
+    private final RetryBackoff retryBackoff;
 
-    public PostgresMigrationFilesRepository(Database database) {
+    public PostgresMigrationFilesRepository(Database database, ConfigurationProperties config) {
         this.database = database;
+        this.partitioning = new FilePartitioning(config);
+        this.copyWrites = "COPY".equalsIgnoreCase(config.getString("MIGRATION_FILES_WRITE_MODE", "BATCH"));
+        this.retryBackoff = new RetryBackoff(config.getInteger("RETRY_BASE_DELAY", 30), config.getInteger("RETRY_MAX_DELAY", 3_600));
     }
 
     @Override
     public void save(List<MigrationFile> records) throws SQLException {
+        if (this.copyWrites) {
+            this.copyAndMerge(records, MERGE_STAGE);
+            return;
+        }
         try (Connection conn = this.database.getDataSource().getConnection()) {
             conn.setAutoCommit(false);
             try {
-                try (PreparedStatement statement = conn.prepareStatement(SAVE)) {
-                    for (MigrationFile file : records) {
-                        statement.setInt(1, file.getId());
-                        statement.setString(2, file.getOldUri());
-                        statement.setString(3, file.getNewUri());
-                        statement.setString(4, file.getFileName());
-                        statement.setTimestamp(5, Timestamp.valueOf(file.getCreateDate()));
-                        statement.setString(6, file.getStatus().getValue());
-                        statement.addBatch();
+                for (Map.Entry<Integer, List<MigrationFile>> partition : this.partitioning.group(records).entrySet()) {
+                    try (PreparedStatement statement = conn.prepareStatement(String.format(SAVE, this.partitioning.table(partition.getKey())))) {
+                        for (MigrationFile file : partition.getValue()) {
+                            statement.setInt(1, file.getId());
+                            statement.setString(2, file.getOldUri());
+                            statement.setString(3, file.getNewUri());
+                            statement.setString(4, file.getFileName());
+                            statement.setTimestamp(5, Timestamp.valueOf(file.getCreateDate()));
+                            statement.setString(6, file.getStatus().getValue());
+                            this.setRetryDelay(statement, 7, file);
+                            statement.setString(8, file.getChecksum());
+                            statement.setLong(9, file.getBytes());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
                     }
-                    statement.executeBatch();
                 }
                 conn.commit();
             } catch (Exception e) {
@@ -45,18 +102,42 @@ public class PostgresMigrationFilesRepository implements MigrationFilesRepositor
 
     @Override
     public void saveRetries(List<MigrationFile> records) throws SQLException {
+        if (this.copyWrites) {
+            this.copyAndMerge(records, MERGE_STAGE_RETRIES);
+            return;
+        }
         try (Connection conn = this.database.getDataSource().getConnection()) {
             conn.setAutoCommit(false);
             try {
-                try (PreparedStatement statement = conn.prepareStatement(SAVE_RETRIES)) {
-                    for (MigrationFile file : records) {
-                        statement.setString(1, file.getNewUri());
-                        statement.setString(2, file.getStatus().getValue());
-                        statement.setInt(3, file.getRetryCount());
-                        statement.setInt(4, file.getId());
-                        statement.addBatch();
+                for (Map.Entry<Integer, List<MigrationFile>> partition : this.partitioning.group(records).entrySet()) {
+                    List<MigrationFile> files = partition.getValue();
+                    Integer[] ids = new Integer[files.size()];
+                    String[] newUris = new String[files.size()];
+                    String[] statuses = new String[files.size()];
+                    Integer[] retryCounts = new Integer[files.size()];
+                    Double[] retryDelays = new Double[files.size()];
+                    String[] checksums = new String[files.size()];
+                    Long[] bytes = new Long[files.size()];
+                    for (int i = 0; i < files.size(); i++) {
+                        MigrationFile file = files.get(i);
+                        ids[i] = file.getId();
+                        newUris[i] = file.getNewUri();
+                        statuses[i] = file.getStatus().getValue();
+                        retryCounts[i] = file.getRetryCount();
+                        retryDelays[i] = this.getRetryDelay(file);
+                        checksums[i] = file.getChecksum();
+                        bytes[i] = file.getBytes();
+                    }
+                    try (PreparedStatement statement = conn.prepareStatement(String.format(SAVE_RETRIES, this.partitioning.table(partition.getKey())))) {
+                        statement.setArray(1, conn.createArrayOf("int4", ids));
+                        statement.setArray(2, conn.createArrayOf("varchar", newUris));
+                        statement.setArray(3, conn.createArrayOf("varchar", statuses));
+                        statement.setArray(4, conn.createArrayOf("int4", retryCounts));
+                        statement.setArray(5, conn.createArrayOf("float8", retryDelays));
+                        statement.setArray(6, conn.createArrayOf("varchar", checksums));
+                        statement.setArray(7, conn.createArrayOf("int8", bytes));
+                        statement.executeUpdate();
                     }
-                    statement.executeBatch();
                 }
                 conn.commit();
             } catch (Exception e) {
@@ -66,14 +147,109 @@ public class PostgresMigrationFilesRepository implements MigrationFilesRepositor
         }
     }
 
+    /**
+     * Streams the records into the staging table with a text COPY and applies them with a single merge statement per
+     * partition, all within one transaction. The staging table is emptied on commit or rollback.
+     */
+    private void copyAndMerge(List<MigrationFile> records, String merge) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute(CREATE_STAGE);
+                }
+                CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+                copyManager.copyIn(COPY_STAGE, new StringReader(this.toCopyText(records)));
+                try (Statement statement = conn.createStatement()) {
+                    // one merge per partition the records fall into, each bounded to that partition's ids
+                    for (int partition : this.partitioning.group(records).keySet()) {
+                        statement.executeUpdate(String.format(
+                                merge,
+                                this.partitioning.table(partition),
+                                this.partitioning.lower(partition),
+                                this.partitioning.upper(partition)
+                        ));
+                    }
+                }
+                conn.commit();
+            } catch (IOException e) {
+                conn.rollback();
+                throw new SQLException("Failed to copy migration files into staging table", e);
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    String toCopyText(List<MigrationFile> records) {
+        StringBuilder text = new StringBuilder(records.size() * 160);
+        for (int i = 0; i < records.size(); i++) {
+            MigrationFile file = records.get(i);
+            text.append(file.getId()).append('\t');
+            appendCopyValue(text, file.getOldUri()).append('\t');
+            appendCopyValue(text, file.getNewUri()).append('\t');
+            appendCopyValue(text, file.getFileName()).append('\t');
+            LocalDateTime createDate = file.getCreateDate();
+            appendCopyValue(text, createDate != null ? Timestamp.valueOf(createDate).toString() : null).append('\t');
+            appendCopyValue(text, file.getStatus().getValue()).append('\t');
+            text.append(file.getRetryCount()).append('\t');
+            Double retryDelay = this.getRetryDelay(file);
+            appendCopyValue(text, retryDelay != null ? retryDelay.toString() : null).append('\t');
+            appendCopyValue(text, file.getChecksum()).append('\t');
+            text.append(file.getBytes()).append('\t');
+            text.append(i).append('\n');
+        }
+        return text.toString();
+    }
+
+    static StringBuilder appendCopyValue(StringBuilder text, String value) {
+        if (value == null) {
+            return text.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> text.append("\\\\");
+                case '\t' -> text.append("\\t");
+                case '\n' -> text.append("\\n");
+                case '\r' -> text.append("\\r");
+                default -> text.append(c);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Sets the seconds until the next attempt of a file which failed and has retries left, or null otherwise.
+     */
+    private void setRetryDelay(PreparedStatement statement, int index, MigrationFile file) throws SQLException {
+        Double retryDelay = this.getRetryDelay(file);
+        if (retryDelay != null) {
+            statement.setDouble(index, retryDelay);
+        } else {
+            statement.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private Double getRetryDelay(MigrationFile file) {
+        if ((file.getStatus() != MigrationStatus.FAIL && file.getStatus() != MigrationStatus.MISMATCH) || file.getRetryCount() >= MAX_RETRIES) {
+            return null;
+        }
+        return this.retryBackoff.getDelaySeconds(file.getRetryCount());
+    }
+
     @Override
-    public List<MigrationFile> getFailures() throws SQLException {
+    public List<MigrationFile> claimRetries(int lookaheadSeconds, int limit) throws SQLException {
         List<MigrationFile> files = new ArrayList<>();
         try (Connection conn = this.database.getDataSource().getConnection()) {
-            try (PreparedStatement statement = conn.prepareStatement(GET_FAILURES)) {
+            try (PreparedStatement statement = conn.prepareStatement(CLAIM_RETRIES)) {
+                statement.setInt(1, lookaheadSeconds);
+                statement.setInt(2, limit);
                 try (ResultSet resultSet = statement.executeQuery()) {
+                    LocalDateTime now = LocalDateTime.now();
                     while (resultSet.next()) {
-                        files.add(new MigrationFile(
+                        MigrationFile file = new MigrationFile(
                                 resultSet.getInt("file_id"),
                                 resultSet.getString("old_uri"),
                                 resultSet.getString("new_uri"),
@@ -82,11 +258,120 @@ public class PostgresMigrationFilesRepository implements MigrationFilesRepositor
                                 MigrationStatus.from(resultSet.getString("status")),
                                 resultSet.getInt("retry_count"),
                                 resultSet.getTimestamp("last_attempt_date").toLocalDateTime()
-                        ));
+                        );
+                        // due time is computed against the database clock, then applied to the local clock
+                        file.setNextAttemptDate(now.plusNanos((long) (resultSet.getDouble("due_in") * 1_000_000_000)));
+                        files.add(file);
                     }
                 }
             }
         }
         return files;
     }
+
+    @Override
+    public long getSecondsUntilNextRetry() throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(GET_NEXT_RETRY)) {
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return -1;
+                    }
+                    double dueIn = resultSet.getDouble("due_in");
+                    return resultSet.wasNull() ? -1 : (long) Math.max(0, Math.ceil(dueIn));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void releaseRetries(List<MigrationFile> records) throws SQLException {
+        if (records.isEmpty()) {
+            return;
+        }
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<Integer, List<MigrationFile>> partition : this.partitioning.group(records).entrySet()) {
+                    Integer[] ids = partition.getValue().stream().map(MigrationFile::getId).toArray(Integer[]::new);
+                    try (PreparedStatement statement = conn.prepareStatement(String.format(RELEASE_RETRY, this.partitioning.table(partition.getKey())))) {
+                        statement.setArray(1, conn.createArrayOf("int4", ids));
+                        statement.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void cleanup() throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(CLEANUP)) {
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    @Override
+    public List<String> archivePartitions() throws SQLException {
+        List<String> archived = new ArrayList<>();
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            List<String> partitions = new ArrayList<>();
+            try (PreparedStatement statement = conn.prepareStatement(FIND_ARCHIVABLE_PARTITIONS)) {
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        partitions.add(resultSet.getString("partition_name"));
+                    }
+                }
+            }
+            for (String partition : partitions) {
+                this.savePartitionStatus(conn, partition, "DETACHING");
+                Boolean detachPending = null;
+                try (PreparedStatement statement = conn.prepareStatement(GET_DETACH_PENDING)) {
+                    statement.setString(1, partition);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (resultSet.next()) {
+                            detachPending = resultSet.getBoolean("inhdetachpending");
+                        }
+                    }
+                }
+                // a partition without an inheritance row was detached by an earlier run which stopped before archiving it
+                if (detachPending != null) {
+                    try (Statement statement = conn.createStatement()) {
+                        // a concurrent detach waits for queries on the partition instead of blocking writers to the others
+                        statement.execute(String.format(detachPending ? FINALIZE_DETACH : DETACH_PARTITION, partition));
+                    }
+                }
+                conn.setAutoCommit(false);
+                try {
+                    try (Statement statement = conn.createStatement()) {
+                        statement.execute(String.format(ARCHIVE_PARTITION_PROGRESS, partition));
+                        statement.execute(String.format(DROP_PARTITION_TRIGGERS, partition));
+                        statement.execute(String.format(ARCHIVE_PARTITION, partition));
+                    }
+                    this.savePartitionStatus(conn, partition, "ARCHIVED");
+                    conn.commit();
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                archived.add(partition);
+            }
+        }
+        return archived;
+    }
+
+    private void savePartitionStatus(Connection conn, String partition, String status) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(SAVE_PARTITION_STATUS)) {
+            statement.setString(1, status);
+            statement.setString(2, partition);
+            statement.executeUpdate();
+        }
+    }
 }
@@ -9,26 +9,52 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class PostgresMigrationRangesRepository implements MigrationRangesRepository {
     private final static String IS_INITIALIZED = "SELECT COUNT(*) AS total FROM migration_ranges";
     private final static String SEED_RANGES = "INSERT INTO migration_ranges (min_id, max_id) SELECT series.min_id, LEAST(series.min_id + ?, ?) FROM generate_series(?, ?, ?) AS series(min_id)";
     private final static String GET_FILES_RANGE = "SELECT MIN(file_id) as min_id, MAX(file_id) as max_id FROM source_files WHERE create_date >= ?";
-    private final static String PICK_RANGE = "SELECT * FROM migration_ranges WHERE status = 'PENDING' ORDER BY range_id LIMIT 1";
+    private final static String CLAIM_RANGES = "WITH next AS (SELECT range_id FROM migration_ranges WHERE status = 'PENDING' ORDER BY range_id LIMIT ? FOR UPDATE SKIP LOCKED) UPDATE migration_ranges SET status = 'PROCESSING', last_updated = NOW() FROM next WHERE migration_ranges.range_id = next.range_id RETURNING migration_ranges.*";
+    private final static String CLAIM_PARTITION_RANGES = "WITH next AS (SELECT range_id FROM migration_ranges WHERE status = 'PENDING' AND range_id % ? = ANY(?) ORDER BY range_id LIMIT ? FOR UPDATE SKIP LOCKED) UPDATE migration_ranges SET status = 'PROCESSING', last_updated = NOW() FROM next WHERE migration_ranges.range_id = next.range_id RETURNING migration_ranges.*";
+    private final static String SPLIT_RANGE = "WITH victim AS (SELECT range_id, max_id, (GREATEST(checkpoint_id, min_id - 1) + max_id) / 2 AS split_id FROM migration_ranges WHERE status = 'PROCESSING' AND last_updated > NOW() - INTERVAL '10 minutes' AND max_id - GREATEST(checkpoint_id, min_id - 1) >= ? ORDER BY max_id - GREATEST(checkpoint_id, min_id - 1) DESC LIMIT 1 FOR UPDATE SKIP LOCKED), " +
+            "shrunk AS (UPDATE migration_ranges SET max_id = victim.split_id FROM victim WHERE migration_ranges.range_id = victim.range_id RETURNING victim.range_id, victim.split_id, victim.max_id) " +
+            "INSERT INTO migration_ranges (min_id, max_id, status, last_updated, parent_range_id) SELECT split_id + 1, max_id, 'PROCESSING', NOW(), range_id FROM shrunk RETURNING *";
+    private final static String GET_RANGE_MAX = "SELECT max_id FROM migration_ranges WHERE range_id = ?";
+    private final static String RELEASE_RANGE = "UPDATE migration_ranges SET status = 'PENDING', last_updated = NOW() WHERE range_id = ? AND status = 'PROCESSING' AND last_updated = ?";
     private final static String SAVE_RANGE = "UPDATE migration_ranges SET status = ?, last_updated = NOW() WHERE range_id = ?";
+    private final static String SAVE_CHECKPOINT = "UPDATE migration_ranges SET checkpoint_id = ?, last_updated = NOW() WHERE range_id = ?";
+    private final static String GET_FIRST_FILE_FROM = "SELECT file_id, create_date FROM source_files WHERE file_id >= ? ORDER BY file_id LIMIT 1";
+    private final static String GET_LAST_FILE = "SELECT file_id FROM source_files ORDER BY file_id DESC LIMIT 1";
+    private final static String GET_FILE_AT_OFFSET = "SELECT file_id FROM source_files WHERE file_id > ? ORDER BY file_id OFFSET ? LIMIT 1";
+    private final static String INSERT_RANGE = "INSERT INTO migration_ranges (min_id, max_id) VALUES (?, ?)";
     private final static String GET_MAX_RANGE = "SELECT max(max_id) AS max_id FROM migration_ranges";
     private final static String GET_NEXT_MAX = "SELECT max(file_id) AS max_id FROM source_files WHERE file_id > ?";
+    private final static String CREATE_PARTITIONS = "SELECT create_migration_files_partitions(?, ?, ?) AS created";
     private final static String CLEANUP = "UPDATE migration_ranges SET status = 'PENDING' WHERE status = 'PROCESSING' AND last_updated < NOW() - INTERVAL '60 minutes'";
     private final Database database;
+    private final ConfigurationProperties config;
+    private final FilePartitioning partitioning;
     private final int retentionPeriod;
-    private final int batchSize;
+    private final boolean densitySeeding;
+    private final int seedCommitSize;
+    private final long seedMaxNanos;
 
     public PostgresMigrationRangesRepository(Database database, ConfigurationProperties config) {
         this.database = database;
+        this.config = config;
+        this.partitioning = new FilePartitioning(config);
         this.retentionPeriod = config.getInteger("RETENTION_PERIOD", 525_600);
-        this.batchSize = config.getInteger("BATCH_SIZE", 10_000);
+        this.densitySeeding = "DENSITY".equalsIgnoreCase(config.getString("SEED_MODE", "SERIES"));
+        this.seedCommitSize = config.getInteger("SEED_COMMIT_SIZE", 1_000);
+        this.seedMaxNanos = TimeUnit.SECONDS.toNanos(config.getInteger("SEED_MAX_DURATION", 600));
     }
 
     @Override
@@ -43,27 +69,155 @@ public class PostgresMigrationRangesRepository implements MigrationRangesReposit
     }
 
     @Override
-    public MigrationRange pickRange() throws SQLException {
+    public void saveRanges(Map<Integer, JobStatus> statuses) throws SQLException {
         try (Connection conn = this.database.getDataSource().getConnection()) {
-            try (PreparedStatement statement = conn.prepareStatement(PICK_RANGE)) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = conn.prepareStatement(SAVE_RANGE)) {
+                    for (Map.Entry<Integer, JobStatus> status : statuses.entrySet()) {
+                        statement.setString(1, status.getValue().getValue());
+                        statement.setInt(2, status.getKey());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void saveCheckpoint(int rangeId, int checkpointId) throws SQLException {
+        try (Connection connection = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(SAVE_CHECKPOINT)) {
+                statement.setInt(1, checkpointId);
+                statement.setInt(2, rangeId);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    @Override
+    public void saveCheckpoints(Map<Integer, Integer> checkpoints) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = conn.prepareStatement(SAVE_CHECKPOINT)) {
+                    for (Map.Entry<Integer, Integer> checkpoint : checkpoints.entrySet()) {
+                        statement.setInt(1, checkpoint.getValue());
+                        statement.setInt(2, checkpoint.getKey());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public List<MigrationRange> claimRanges(int limit) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(CLAIM_RANGES)) {
+                statement.setInt(1, limit);
+                return this.claimRanges(statement);
+            }
+        }
+    }
+
+    @Override
+    public List<MigrationRange> claimRanges(int partitionCount, int[] partitions, int limit) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(CLAIM_PARTITION_RANGES)) {
+                Integer[] values = new Integer[partitions.length];
+                for (int i = 0; i < partitions.length; i++) {
+                    values[i] = partitions[i];
+                }
+                statement.setInt(1, partitionCount);
+                statement.setArray(2, conn.createArrayOf("integer", values));
+                statement.setInt(3, limit);
+                return this.claimRanges(statement);
+            }
+        }
+    }
+
+    private List<MigrationRange> claimRanges(PreparedStatement statement) throws SQLException {
+        List<MigrationRange> ranges = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                ranges.add(new MigrationRange(
+                        resultSet.getInt("range_id"),
+                        resultSet.getInt("min_id"),
+                        resultSet.getInt("max_id"),
+                        resultSet.getInt("checkpoint_id"),
+                        JobStatus.from(resultSet.getString("status")),
+                        resultSet.getTimestamp("last_updated").toLocalDateTime()
+                ));
+            }
+        }
+        // RETURNING does not preserve the claim order
+        ranges.sort(Comparator.comparingInt(MigrationRange::getRangeId));
+        return ranges;
+    }
+
+    @Override
+    public MigrationRange splitRange(int minRemaining) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(SPLIT_RANGE)) {
+                statement.setInt(1, minRemaining);
+                List<MigrationRange> ranges = this.claimRanges(statement);
+                return ranges.isEmpty() ? null : ranges.get(0);
+            }
+        }
+    }
+
+    @Override
+    public int getMaxId(int rangeId) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(GET_RANGE_MAX)) {
+                statement.setInt(1, rangeId);
                 try (ResultSet resultSet = statement.executeQuery()) {
                     if (resultSet.next()) {
-                        return new MigrationRange(
-                                resultSet.getInt("range_id"),
-                                resultSet.getInt("min_id"),
-                                resultSet.getInt("max_id"),
-                                JobStatus.from(resultSet.getString("status")),
-                                resultSet.getTimestamp("last_updated").toLocalDateTime()
-                        );
+                        return resultSet.getInt("max_id");
                     }
+                    return -1;
                 }
             }
         }
-        return null;
     }
 
     @Override
-    public void seedRanges(boolean init) throws SQLException {
+    public void releaseRanges(List<MigrationRange> ranges) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = conn.prepareStatement(RELEASE_RANGE)) {
+                    for (MigrationRange range : ranges) {
+                        statement.setInt(1, range.getRangeId());
+                        statement.setTimestamp(2, Timestamp.valueOf(range.getLastUpdated()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean seedRanges(boolean init) throws SQLException {
+        if (this.densitySeeding) {
+            return this.seedRangesByDensity(init);
+        }
         try (Connection conn = this.database.getDataSource().getConnection()) {
             conn.setAutoCommit(false);
             try {
@@ -116,17 +270,188 @@ public class PostgresMigrationRangesRepository implements MigrationRangesReposit
                 throw e;
             }
         }
+        return false;
+    }
+
+    /**
+     * Seeds ranges holding BATCH_SIZE existing files each by walking the primary key index, so id gaps never produce
+     * empty ranges. Every lookup is an index-bounded keyset query: the first file within the retention period is found
+     * by binary search over file_id (create_date grows with file_id), and each range ends at the file BATCH_SIZE rows
+     * past the previous range. Ranges are committed every SEED_COMMIT_SIZE ranges, and a run stops after
+     * SEED_MAX_DURATION seconds; since later runs expand from the highest seeded id, an interrupted seed simply resumes.
+     */
+    private boolean seedRangesByDensity(boolean init) throws SQLException {
+        long deadline = System.nanoTime() + this.seedMaxNanos;
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            int afterId;
+            if (init) {
+                int firstId = this.findFirstFileSince(conn, this.getMinDate().atStartOfDay());
+                if (firstId < 0) {
+                    return false;
+                }
+                afterId = firstId - 1;
+            } else {
+                afterId = this.getMaxRange(conn);
+                if (afterId <= 0) {
+                    return false;
+                }
+            }
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(INSERT_RANGE)) {
+                int pending = 0;
+                int partitioned = -1;
+                while (true) {
+                    int maxId = this.getFileAtOffset(conn, afterId, this.getBatchSize() - 1);
+                    boolean last = maxId < 0;
+                    if (last) {
+                        // fewer than BATCH_SIZE files remain; the final range ends at the current max sequence
+                        maxId = this.getLastFile(conn);
+                        if (maxId <= afterId) {
+                            break;
+                        }
+                    }
+                    // ranges never cross a partition boundary, so each range's results are written to a single partition
+                    int partition = this.partitioning.index(afterId + 1);
+                    if (maxId > this.partitioning.upper(partition)) {
+                        maxId = (int) this.partitioning.upper(partition);
+                        last = false;
+                    }
+                    if (partition > partitioned) {
+                        insert.executeBatch();
+                        this.createPartitions(conn, afterId + 1, maxId);
+                        pending = 0;
+                        partitioned = partition;
+                    }
+                    insert.setInt(1, afterId + 1);
+                    insert.setInt(2, maxId);
+                    insert.addBatch();
+                    afterId = maxId;
+                    if (++pending == this.seedCommitSize || last) {
+                        insert.executeBatch();
+                        conn.commit();
+                        pending = 0;
+                    }
+                    if (last) {
+                        break;
+                    }
+                    if (System.nanoTime() - deadline > 0) {
+                        insert.executeBatch();
+                        conn.commit();
+                        return true;
+                    }
+                }
+                insert.executeBatch();
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return false;
     }
 
+    /**
+     * Returns the lowest file_id created on or after the given date, or -1 if there is none.
+     */
+    private int findFirstFileSince(Connection conn, LocalDateTime minDate) throws SQLException {
+        int low = 0;
+        int high = this.getLastFile(conn);
+        if (high < 0 || this.getFirstFileFrom(conn, high).createDate.isBefore(minDate)) {
+            return -1;
+        }
+        while (low < high) {
+            int mid = low + (high - low) / 2;
+            FileProbe probe = this.getFirstFileFrom(conn, mid);
+            if (!probe.createDate.isBefore(minDate)) {
+                high = mid;
+            } else {
+                // every id up to the probed file is older, including any gap before it
+                low = probe.fileId + 1;
+            }
+        }
+        return this.getFirstFileFrom(conn, low).fileId;
+    }
+
+    private FileProbe getFirstFileFrom(Connection conn, int fileId) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(GET_FIRST_FILE_FROM)) {
+            statement.setInt(1, fileId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return new FileProbe(resultSet.getInt("file_id"), resultSet.getTimestamp("create_date").toLocalDateTime());
+                }
+                throw new SQLException(String.format("No file found from id %d", fileId));
+            }
+        }
+    }
+
+    private int getLastFile(Connection conn) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(GET_LAST_FILE)) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt("file_id") : -1;
+            }
+        }
+    }
+
+    private int getFileAtOffset(Connection conn, int afterId, int offset) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(GET_FILE_AT_OFFSET)) {
+            statement.setInt(1, afterId);
+            statement.setInt(2, offset);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt("file_id") : -1;
+            }
+        }
+    }
+
+    private int getMaxRange(Connection conn) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(GET_MAX_RANGE)) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt("max_id") : -1;
+            }
+        }
+    }
+
+    /**
+     * Seeds ranges of BATCH_SIZE ids from min to max, cut at partition boundaries so no range spans two partitions.
+     */
     private void runSeedQuery(Connection connection, int min, int max) throws SQLException {
+        this.createPartitions(connection, min, max);
+        int batchSize = this.getBatchSize();
         try (PreparedStatement statement = connection.prepareStatement(SEED_RANGES)) {
-            statement.setInt(1, this.batchSize - 1);
-            statement.setInt(2, max);
-            statement.setInt(3, min);
-            statement.setInt(4, max);
-            statement.setInt(5, this.batchSize);
-            statement.executeUpdate();
+            for (int partition = this.partitioning.index(min); partition <= this.partitioning.index(max); partition++) {
+                int from = (int) Math.max(min, this.partitioning.lower(partition));
+                int to = (int) Math.min(max, this.partitioning.upper(partition));
+                statement.setInt(1, batchSize - 1);
+                statement.setInt(2, to);
+                statement.setInt(3, from);
+                statement.setInt(4, to);
+                statement.setInt(5, batchSize);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Creates the migration_files partitions for the given ids plus the next partition, so partitions exist before any
+     * range writes to them. Commits right away, together with any ranges already inserted by the caller, so the
+     * partition locks are only held briefly.
+     */
+    private void createPartitions(Connection connection, int min, int max) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(CREATE_PARTITIONS)) {
+            statement.setLong(1, min);
+            statement.setLong(2, max + this.partitioning.getSize());
+            statement.setLong(3, this.partitioning.getSize());
+            statement.execute();
         }
+        connection.commit();
+    }
+
+    /**
+     * BATCH_SIZE is read per seed so it can be changed at runtime; it applies to ranges seeded from then on. It is
+     * never below 1, which the range series and the density offset rely on.
+     */
+    private int getBatchSize() {
+        return Math.max(1, this.config.getInteger("BATCH_SIZE", 10_000));
     }
 
     private LocalDate getMinDate() {
@@ -156,4 +481,14 @@ public class PostgresMigrationRangesRepository implements MigrationRangesReposit
             }
         }
     }
+
+    private static class FileProbe {
+        private final int fileId;
+        private final LocalDateTime createDate;
+
+        FileProbe(int fileId, LocalDateTime createDate) {
+            this.fileId = fileId;
+            this.createDate = createDate;
+        }
+    }
 }
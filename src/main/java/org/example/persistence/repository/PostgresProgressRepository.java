@@ -0,0 +1,35 @@
+package org.example.persistence.repository;
+
+import org.example.persistence.database.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PostgresProgressRepository implements ProgressRepository {
+    // counters are striped per connection, so only the stripes are summed; the tracked tables are never scanned
+    private final static String GET_COUNTERS = "SELECT metric, sum(value) AS value FROM migration_progress GROUP BY metric";
+    private final Database database;
+
+    public PostgresProgressRepository(Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() throws SQLException {
+        Map<String, Long> counters = new HashMap<>();
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(GET_COUNTERS)) {
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        counters.put(resultSet.getString("metric"), resultSet.getLong("value"));
+                    }
+                }
+            }
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.persistence.repository;
+
+import org.example.file.Transfer;
+import org.example.file.TransferPart;
+import org.example.persistence.database.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PostgresTransferRepository implements TransferRepository {
+    private final static String FIND = "SELECT upload_id, object_url, size_bytes, part_size FROM migration_transfers WHERE file_id = ?";
+    private final static String FIND_PARTS = "SELECT part_number, etag, checksum, content_hash FROM migration_transfer_parts WHERE file_id = ? ORDER BY part_number";
+    private final static String FIND_ABANDONED = "SELECT t.file_id, t.upload_id, t.object_url, t.size_bytes, t.part_size FROM migration_transfers t LEFT JOIN migration_files f ON f.file_id = t.file_id " +
+            "WHERE t.started_at < now() - ? * INTERVAL '1 minute' OR f.status IN ('SUCCESS', 'TERMINAL') OR (f.status IN ('FAIL', 'MISMATCH') AND f.retry_count >= 3) ORDER BY t.file_id LIMIT ?";
+    private final static String DELETE = "DELETE FROM migration_transfers WHERE file_id = ?";
+    private final static String START = "INSERT INTO migration_transfers (file_id, upload_id, object_url, size_bytes, part_size, started_at) VALUES (?, ?, ?, ?, ?, now())";
+    private final static String SAVE_PART = "INSERT INTO migration_transfer_parts (file_id, part_number, etag, checksum, content_hash) VALUES (?, ?, ?, ?, ?) ON CONFLICT (file_id, part_number) DO UPDATE SET etag = EXCLUDED.etag, checksum = EXCLUDED.checksum, content_hash = EXCLUDED.content_hash";
+    private final Database database;
+
+    public PostgresTransferRepository(Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public Transfer find(int fileId) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            Transfer transfer;
+            try (PreparedStatement statement = conn.prepareStatement(FIND)) {
+                statement.setInt(1, fileId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return null;
+                    }
+                    transfer = new Transfer(
+                            fileId,
+                            resultSet.getString("upload_id"),
+                            resultSet.getString("object_url"),
+                            resultSet.getLong("size_bytes"),
+                            resultSet.getLong("part_size")
+                    );
+                }
+            }
+            try (PreparedStatement statement = conn.prepareStatement(FIND_PARTS)) {
+                statement.setInt(1, fileId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        transfer.getParts().add(new TransferPart(
+                                resultSet.getInt("part_number"),
+                                resultSet.getString("etag"),
+                                resultSet.getString("checksum"),
+                                resultSet.getString("content_hash")
+                        ));
+                    }
+                }
+            }
+            return transfer;
+        }
+    }
+
+    @Override
+    public void start(Transfer transfer) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // parts cascade with the previous transfer
+                try (PreparedStatement statement = conn.prepareStatement(DELETE)) {
+                    statement.setInt(1, transfer.getFileId());
+                    statement.executeUpdate();
+                }
+                try (PreparedStatement statement = conn.prepareStatement(START)) {
+                    statement.setInt(1, transfer.getFileId());
+                    statement.setString(2, transfer.getUploadId());
+                    statement.setString(3, transfer.getObjectUrl());
+                    statement.setLong(4, transfer.getSize());
+                    statement.setLong(5, transfer.getPartSize());
+                    statement.executeUpdate();
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void savePart(int fileId, TransferPart part) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(SAVE_PART)) {
+                statement.setInt(1, fileId);
+                statement.setInt(2, part.getPartNumber());
+                statement.setString(3, part.getEtag());
+                statement.setString(4, part.getChecksum());
+                statement.setString(5, part.getContentHash());
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    @Override
+    public void delete(int fileId) throws SQLException {
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(DELETE)) {
+                statement.setInt(1, fileId);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    @Override
+    public List<Transfer> findAbandoned(int staleMinutes, int limit) throws SQLException {
+        List<Transfer> transfers = new ArrayList<>();
+        try (Connection conn = this.database.getDataSource().getConnection()) {
+            try (PreparedStatement statement = conn.prepareStatement(FIND_ABANDONED)) {
+                statement.setInt(1, staleMinutes);
+                statement.setInt(2, limit);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        transfers.add(new Transfer(
+                                resultSet.getInt("file_id"),
+                                resultSet.getString("upload_id"),
+                                resultSet.getString("object_url"),
+                                resultSet.getLong("size_bytes"),
+                                resultSet.getLong("part_size")
+                        ));
+                    }
+                }
+            }
+        }
+        return transfers;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.persistence.repository;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Abstraction layer for the incrementally maintained migration progress counters.
+ */
+public interface ProgressRepository {
+    /**
+     * Returns the current value of every progress counter by metric (i.e. files:SUCCESS, range_ids:PENDING, bytes).
+     */
+    Map<String, Long> getCounters() throws SQLException;
+}
@@ -0,0 +1,38 @@
+package org.example.persistence.repository;
+
+import org.example.file.Transfer;
+import org.example.file.TransferPart;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Abstraction layer for partial multipart uploads, so a failed move of a large file resumes from its committed parts.
+ */
+public interface TransferRepository {
+    /**
+     * Finds the open transfer of a file with its committed parts, or null if there is none.
+     */
+    Transfer find(int fileId) throws SQLException;
+
+    /**
+     * Records a new transfer, replacing any previous transfer of the same file and its parts.
+     */
+    void start(Transfer transfer) throws SQLException;
+
+    /**
+     * Records a part committed by the destination.
+     */
+    void savePart(int fileId, TransferPart part) throws SQLException;
+
+    /**
+     * Removes the transfer of a file and its parts, once the upload has completed or been aborted.
+     */
+    void delete(int fileId) throws SQLException;
+
+    /**
+     * Finds up to limit transfers (without their parts) which will never be resumed: the file completed, failed
+     * permanently or ran out of retries, or the transfer was started more than staleMinutes ago.
+     */
+    List<Transfer> findAbandoned(int staleMinutes, int limit) throws SQLException;
+}
@@ -0,0 +1,54 @@
+package org.example.persistence.sink;
+
+import org.example.file.JobStatus;
+import org.example.file.MigrationFile;
+import org.example.persistence.repository.MigrationFilesRepository;
+import org.example.persistence.repository.MigrationRangesRepository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Persists results synchronously on the calling worker thread.
+ */
+public class DirectResultSink implements ResultSink {
+    private final MigrationFilesRepository migrationFilesRepository;
+    private final MigrationRangesRepository rangesRepository;
+
+    public DirectResultSink(MigrationFilesRepository migrationFilesRepository, MigrationRangesRepository rangesRepository) {
+        this.migrationFilesRepository = migrationFilesRepository;
+        this.rangesRepository = rangesRepository;
+    }
+
+    @Override
+    public void save(int rangeId, List<MigrationFile> records) throws SQLException {
+        long start = System.nanoTime();
+        this.migrationFilesRepository.save(records);
+        SinkMetrics.FILES_LATENCY.observeSince(start);
+    }
+
+    @Override
+    public void saveRetries(List<MigrationFile> records) throws SQLException {
+        long start = System.nanoTime();
+        this.migrationFilesRepository.saveRetries(records);
+        SinkMetrics.RETRIES_LATENCY.observeSince(start);
+    }
+
+    @Override
+    public void saveCheckpoint(int rangeId, int checkpointId) throws SQLException {
+        long start = System.nanoTime();
+        this.rangesRepository.saveCheckpoint(rangeId, checkpointId);
+        SinkMetrics.CHECKPOINT_LATENCY.observeSince(start);
+    }
+
+    @Override
+    public void saveRange(int rangeId, JobStatus status) throws SQLException {
+        long start = System.nanoTime();
+        this.rangesRepository.saveRange(rangeId, status);
+        SinkMetrics.STATUS_LATENCY.observeSince(start);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.persistence.sink;
+
+import org.example.file.JobStatus;
+import org.example.file.MigrationFile;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Destination for the results produced by the migration and retry workers.
+ * Implementations may persist results immediately or hand them off to be written in the background, but must apply
+ * the results for a given range in the order they were submitted.
+ */
+public interface ResultSink {
+    /**
+     * Saves the migration results for a chunk of files belonging to the given range.
+     */
+    void save(int rangeId, List<MigrationFile> records) throws SQLException;
+
+    /**
+     * Saves the results of retried file migrations.
+     */
+    void saveRetries(List<MigrationFile> records) throws SQLException;
+
+    /**
+     * Advances the checkpoint of a range once all results up to the checkpoint have been submitted.
+     */
+    void saveCheckpoint(int rangeId, int checkpointId) throws SQLException;
+
+    /**
+     * Saves the state of a given migration range.
+     */
+    void saveRange(int rangeId, JobStatus status) throws SQLException;
+
+    /**
+     * Persists any pending results and stops accepting new ones.
+     */
+    void close();
+}
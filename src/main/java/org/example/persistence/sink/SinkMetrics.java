@@ -0,0 +1,21 @@
+package org.example.persistence.sink;
+
+import org.example.metrics.Histogram;
+import org.example.metrics.Metrics;
+
+/**
+ * Write latencies shared by every result sink, labelled by the kind of result persisted.
+ */
+final class SinkMetrics {
+    final static Histogram FILES_LATENCY = latency("files");
+    final static Histogram RETRIES_LATENCY = latency("retries");
+    final static Histogram CHECKPOINT_LATENCY = latency("checkpoints");
+    final static Histogram STATUS_LATENCY = latency("statuses");
+
+    private SinkMetrics() {
+    }
+
+    private static Histogram latency(String kind) {
+        return Metrics.registry().histogram("migration_db_write_seconds", "Time to persist a batch of results", Histogram.LATENCY_BUCKETS, "kind", kind);
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.persistence.sink;
+
+import org.example.file.JobStatus;
+import org.example.file.MigrationFile;
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+import org.example.metrics.Histogram;
+import org.example.persistence.repository.MigrationFilesRepository;
+import org.example.persistence.repository.MigrationRangesRepository;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queues worker results and persists them in the background, coalescing everything queued at the time of a flush
+ * into a single group commit per kind of result (file results, retries, checkpoints and range statuses).
+ * <p>
+ * Results are sharded across flusher threads by range id, so all results for a range are applied in submission order
+ * and file results are always committed before the checkpoints and statuses that depend on them. Each flusher queue is
+ * bounded; workers block when the flushers fall behind. If the file results of a range cannot be persisted, its later
+ * checkpoints and COMPLETE status are dropped and workers submitting for it are failed, so the range is released back
+ * to PENDING (or cleaned up) and resumes from its last persisted checkpoint.
+ */
+public class WriteBehindResultSink implements ResultSink {
+    private final static int MAX_ATTEMPTS = 3;
+    private final Logger log = LoggerFactory.getLogger(WriteBehindResultSink.class);
+    private final MigrationFilesRepository migrationFilesRepository;
+    private final MigrationRangesRepository rangesRepository;
+    private final List<Flusher> flushers;
+    private final Set<Integer> failedRanges = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger retryShard = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final int maxGroupSize;
+    private final long shutdownTimeoutMillis;
+
+    public WriteBehindResultSink(
+            MigrationFilesRepository migrationFilesRepository,
+            MigrationRangesRepository rangesRepository,
+            int threads,
+            int queueCapacity,
+            int maxGroupSize,
+            long shutdownTimeoutMillis
+    ) {
+        this.migrationFilesRepository = migrationFilesRepository;
+        this.rangesRepository = rangesRepository;
+        this.maxGroupSize = maxGroupSize;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.flushers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Flusher flusher = new Flusher(queueCapacity);
+            Thread thread = new Thread(flusher, "result-sink-" + i);
+            flusher.thread = thread;
+            this.flushers.add(flusher);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void save(int rangeId, List<MigrationFile> records) throws SQLException {
+        this.checkRange(rangeId);
+        this.submit(rangeId, new Entry(EntryType.FILES, rangeId, records, 0, null));
+    }
+
+    @Override
+    public void saveRetries(List<MigrationFile> records) throws SQLException {
+        this.submit(this.retryShard.getAndIncrement() & Integer.MAX_VALUE, new Entry(EntryType.RETRIES, -1, records, 0, null));
+    }
+
+    @Override
+    public void saveCheckpoint(int rangeId, int checkpointId) throws SQLException {
+        this.checkRange(rangeId);
+        this.submit(rangeId, new Entry(EntryType.CHECKPOINT, rangeId, null, checkpointId, null));
+    }
+
+    @Override
+    public void saveRange(int rangeId, JobStatus status) throws SQLException {
+        if (status != JobStatus.PENDING) {
+            this.checkRange(rangeId);
+        }
+        this.submit(rangeId, new Entry(EntryType.STATUS, rangeId, null, 0, status));
+    }
+
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            this.log.info("Flushing pending migration results");
+            long deadline = System.currentTimeMillis() + this.shutdownTimeoutMillis;
+            for (Flusher flusher : this.flushers) {
+                try {
+                    flusher.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (flusher.thread.isAlive()) {
+                    this.log.error("Timed out flushing migration results; %d result groups were not persisted", flusher.queue.size());
+                }
+            }
+        }
+    }
+
+    private void checkRange(int rangeId) throws SQLException {
+        if (this.failedRanges.contains(rangeId)) {
+            throw new SQLException(String.format("Results for range %d could not be persisted", rangeId));
+        }
+    }
+
+    private void submit(int shard, Entry entry) throws SQLException {
+        if (this.closed.get()) {
+            throw new SQLException("Result sink is closed");
+        }
+        try {
+            // blocks the worker when the flusher falls behind
+            this.flushers.get(shard % this.flushers.size()).queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while queueing migration results", e);
+        }
+    }
+
+    private void apply(List<Entry> group) {
+        List<MigrationFile> files = new ArrayList<>();
+        Set<Integer> fileRanges = new HashSet<>();
+        List<MigrationFile> retries = new ArrayList<>();
+        Map<Integer, Integer> checkpoints = new LinkedHashMap<>();
+        Map<Integer, JobStatus> statuses = new LinkedHashMap<>();
+        for (Entry entry : group) {
+            switch (entry.type) {
+                case FILES -> {
+                    files.addAll(entry.records);
+                    fileRanges.add(entry.rangeId);
+                }
+                case RETRIES -> retries.addAll(entry.records);
+                case CHECKPOINT -> checkpoints.put(entry.rangeId, entry.checkpointId);
+                case STATUS -> statuses.put(entry.rangeId, entry.status);
+            }
+        }
+        if (!files.isEmpty() && !this.persist(() -> this.migrationFilesRepository.save(files), "migration results", SinkMetrics.FILES_LATENCY)) {
+            this.failedRanges.addAll(fileRanges);
+        }
+        if (!retries.isEmpty()) {
+            // retried files stay RETRYING if this fails, as they would have when saved directly
+            this.persist(() -> this.migrationFilesRepository.saveRetries(retries), "retry results", SinkMetrics.RETRIES_LATENCY);
+        }
+        checkpoints.keySet().removeIf(this.failedRanges::contains);
+        if (!checkpoints.isEmpty()) {
+            this.persist(() -> this.rangesRepository.saveCheckpoints(checkpoints), "range checkpoints", SinkMetrics.CHECKPOINT_LATENCY);
+        }
+        // releasing a failed range is always safe since its checkpoint never moved past the lost results
+        statuses.entrySet().removeIf(status -> status.getValue() != JobStatus.PENDING && this.failedRanges.contains(status.getKey()));
+        if (!statuses.isEmpty() && this.persist(() -> this.rangesRepository.saveRanges(statuses), "range statuses", SinkMetrics.STATUS_LATENCY)) {
+            statuses.forEach((rangeId, status) -> {
+                if (status == JobStatus.PENDING) {
+                    this.failedRanges.remove(rangeId);
+                }
+            });
+        }
+    }
+
+    private boolean persist(Write write, String description, Histogram latency) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                long start = System.nanoTime();
+                write.run();
+                latency.observeSince(start);
+                return true;
+            } catch (Exception e) {
+                this.log.error("Failed to persist %s (attempt %d of %d)", description, attempt, MAX_ATTEMPTS);
+                this.log.error(e);
+                if (attempt < MAX_ATTEMPTS) {
+                    try {
+                        Thread.sleep(attempt * 1_000L);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private class Flusher implements Runnable {
+        private final BlockingQueue<Entry> queue;
+        private Thread thread;
+
+        Flusher(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void run() {
+            List<Entry> group = new ArrayList<>(maxGroupSize);
+            while (!closed.get() || !this.queue.isEmpty()) {
+                try {
+                    Entry first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    group.add(first);
+                    this.queue.drainTo(group, maxGroupSize - 1);
+                    apply(group);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("Encountered error flushing migration results");
+                    log.error(e);
+                } finally {
+                    group.clear();
+                }
+            }
+        }
+    }
+
+    private enum EntryType {
+        FILES, RETRIES, CHECKPOINT, STATUS
+    }
+
+    private static class Entry {
+        private final EntryType type;
+        private final int rangeId;
+        private final List<MigrationFile> records;
+        private final int checkpointId;
+        private final JobStatus status;
+
+        Entry(EntryType type, int rangeId, List<MigrationFile> records, int checkpointId, JobStatus status) {
+            this.type = type;
+            this.rangeId = rangeId;
+            this.records = records;
+            this.checkpointId = checkpointId;
+            this.status = status;
+        }
+    }
+
+    private interface Write {
+        void run() throws Exception;
+    }
+}
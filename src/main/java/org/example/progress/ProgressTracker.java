@@ -0,0 +1,156 @@
+package org.example.progress;
+
+import org.example.configuration.ConfigurationProperties;
+import org.example.jobs.RunWindow;
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+import org.example.metrics.MetricsRegistry;
+import org.example.persistence.repository.ProgressRepository;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Samples the progress counters and derives moving-window throughput and the projected completion time.
+ * <p>
+ * Rates only count intervals in which the run window was open at both ends, so closed hours do not dilute them.
+ * Remaining files are estimated from the ids left in PENDING and PROCESSING ranges and the number of files found per
+ * id in completed ranges; the completion time is projected across the run windows defined by {@link RunWindow}.
+ * <p>
+ * The counters do not tell which range a file belongs to, so files already written for PROCESSING ranges are divided
+ * by COMPLETE ids too. This overstates the density (and the remaining files) by at most the files of the ranges in
+ * flight, a bias that fades as completed ids grow and is gone once no range is processing.
+ */
+public class ProgressTracker implements Runnable {
+    private final Logger log = LoggerFactory.getLogger(ProgressTracker.class);
+    private final ConfigurationProperties config;
+    private final ProgressRepository progressRepository;
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private volatile double filesPerSecond;
+    private volatile double bytesPerSecond;
+    private volatile long remainingFiles = -1;
+    private volatile ZonedDateTime completion;
+
+    public ProgressTracker(ConfigurationProperties config, ProgressRepository progressRepository, MetricsRegistry metrics) {
+        this.config = config;
+        this.progressRepository = progressRepository;
+        metrics.gauge("migration_progress_files_per_second", "Files migrated per second over the progress window", () -> this.filesPerSecond);
+        metrics.gauge("migration_progress_bytes_per_second", "Bytes migrated per second over the progress window", () -> this.bytesPerSecond);
+        metrics.gauge("migration_progress_remaining_files", "Estimated files left to migrate (-1 until known)", () -> this.remainingFiles);
+        metrics.gauge("migration_progress_eta_seconds", "Seconds until the migration is projected to finish (-1 until known)", this::getEtaSeconds);
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.sample(ZonedDateTime.now(RunWindow.ET_ZONE));
+        } catch (Exception e) {
+            this.log.error("Failed to sample migration progress");
+            this.log.error(e);
+        }
+    }
+
+    synchronized void sample(ZonedDateTime now) throws Exception {
+        Map<String, Long> counters = this.progressRepository.getCounters();
+        // archived partitions move their files to the archived_* counters in one transaction, so the totals do not drop
+        long files = 0;
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            if (counter.getKey().startsWith("files:") || counter.getKey().startsWith("archived_files:")) {
+                files += counter.getValue();
+            }
+        }
+        long bytes = counters.getOrDefault("bytes", 0L) + counters.getOrDefault("archived_bytes", 0L);
+        RunWindow window = RunWindow.from(this.config);
+        this.samples.addLast(new Sample(now, files, bytes, window.isOpen(now)));
+        ZonedDateTime cutoff = now.minusSeconds(Math.max(1, this.config.getInteger("PROGRESS_WINDOW", 900)));
+        while (this.samples.size() > 2 && this.samples.peekFirst().time.isBefore(cutoff)) {
+            this.samples.removeFirst();
+        }
+
+        double openSeconds = 0;
+        long filesMoved = 0;
+        long bytesMoved = 0;
+        Sample previous = null;
+        for (Sample sample : this.samples) {
+            if (previous != null && previous.open && sample.open) {
+                openSeconds += Duration.between(previous.time, sample.time).toMillis() / 1_000d;
+                filesMoved += sample.files - previous.files;
+                bytesMoved += sample.bytes - previous.bytes;
+            }
+            previous = sample;
+        }
+        if (openSeconds > 0) {
+            this.filesPerSecond = Math.max(0, filesMoved / openSeconds);
+            this.bytesPerSecond = Math.max(0, bytesMoved / openSeconds);
+        } else if (window.isOpen(now)) {
+            // while the window is closed the last rates are kept, so the projection stays available
+            this.filesPerSecond = 0;
+            this.bytesPerSecond = 0;
+        }
+
+        long remainingIds = counters.getOrDefault("range_ids:PENDING", 0L) + counters.getOrDefault("range_ids:PROCESSING", 0L);
+        long completedIds = counters.getOrDefault("range_ids:COMPLETE", 0L);
+        // biased up by the files of PROCESSING ranges, see the class comment
+        double density = completedIds > 0 ? Math.min(1, (double) files / completedIds) : 1;
+        this.remainingFiles = Math.round(remainingIds * density);
+        if (this.remainingFiles == 0) {
+            this.completion = now;
+        } else if (this.filesPerSecond > 0) {
+            this.completion = window.project(now, this.remainingFiles / this.filesPerSecond);
+        } else {
+            this.completion = null;
+        }
+        this.log.info(
+                "Progress: %d files migrated, ~%d remaining (%.1f files/s, %.2f MB/s); projected completion %s",
+                files,
+                this.remainingFiles,
+                this.filesPerSecond,
+                this.bytesPerSecond / (1024 * 1024),
+                this.completion != null ? this.completion : "unknown"
+        );
+    }
+
+    public double getFilesPerSecond() {
+        return this.filesPerSecond;
+    }
+
+    public double getBytesPerSecond() {
+        return this.bytesPerSecond;
+    }
+
+    public long getRemainingFiles() {
+        return this.remainingFiles;
+    }
+
+    /**
+     * Returns the projected completion time, or null if it is unknown (no throughput yet).
+     */
+    public ZonedDateTime getCompletion() {
+        return this.completion;
+    }
+
+    private double getEtaSeconds() {
+        ZonedDateTime completion = this.completion;
+        if (completion == null) {
+            return -1;
+        }
+        return Math.max(0, Duration.between(ZonedDateTime.now(RunWindow.ET_ZONE), completion).getSeconds());
+    }
+
+    private static class Sample {
+        private final ZonedDateTime time;
+        private final long files;
+        private final long bytes;
+        private final boolean open;
+
+        private Sample(ZonedDateTime time, long files, long bytes, boolean open) {
+            this.time = time;
+            this.files = files;
+            this.bytes = bytes;
+            this.open = open;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.ratelimit;
+
+import org.example.logger.Logger;
+import org.example.logger.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Node-local view of a shared {@link TokenBucket}. Tokens are leased from the bucket in batches and handed out locally,
+ * so the shared bucket is only contacted once per batch rather than once per file.
+ * <p>
+ * Costs which are only known afterwards (e.g. bytes transferred) can be charged with {@link #charge(long)}, which may
+ * leave the local balance negative; later callers then wait until the debt has been repaid from the bucket.
+ * <p>
+ * If the shared bucket cannot be reached, the batch is granted locally at this node's share of the rate (the rate
+ * divided by the number of live nodes): callers wait until the time that share takes to produce the batch has passed,
+ * however large the batch (i.e. a repaid byte debt), so the limiter degrades to a local limit rather than stopping the
+ * migration or exceeding the cluster rate.
+ * <p>
+ * Waits happen outside the lock, so a caller waiting for tokens never blocks {@link #charge(long)} or callers which can
+ * be served from the local balance. While the bucket's rate is 0 the limiter is disabled and callers never wait or
+ * synchronize.
+ */
+public class RateLimiter {
+    private final static long MIN_WAIT_MILLIS = 10;
+    private final static long MAX_WAIT_MILLIS = 1_000;
+    private final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+    private final TokenBucket bucket;
+    private final long batchSize;
+    private final IntSupplier nodeCount;
+    private long available = 0;
+    // tokens granted locally while the bucket is unreachable are only usable from this time (System.nanoTime)
+    private long readyAt = System.nanoTime();
+
+    public RateLimiter(TokenBucket bucket, long batchSize) {
+        this(bucket, batchSize, () -> 1);
+    }
+
+    public RateLimiter(TokenBucket bucket, long batchSize, IntSupplier nodeCount) {
+        this.bucket = bucket;
+        this.batchSize = Math.max(1, batchSize);
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Waits until the given number of tokens is available locally, then takes them.
+     */
+    public void acquire(long permits) throws InterruptedException {
+        if (this.bucket.getRate() <= 0) {
+            return;
+        }
+        while (true) {
+            long waitMillis;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (now - this.readyAt < 0) {
+                    // long fallback waits are slept in steps, so a reachable bucket is noticed again once they are over
+                    waitMillis = Math.min(MAX_WAIT_MILLIS, Math.max(1, TimeUnit.NANOSECONDS.toMillis(this.readyAt - now)));
+                } else if (this.available >= permits) {
+                    this.available -= permits;
+                    return;
+                } else {
+                    long needed = permits - this.available;
+                    long granted = this.lease(Math.max(this.batchSize, needed));
+                    this.available += granted;
+                    // nothing granted: poll the bucket again once the cluster rate could have produced the tokens
+                    waitMillis = granted == 0 ? Math.min(MAX_WAIT_MILLIS, Math.max(MIN_WAIT_MILLIS, needed * 1_000 / Math.max(1, this.bucket.getRate()))) : 0;
+                }
+            }
+            if (waitMillis > 0) {
+                Thread.sleep(waitMillis);
+            }
+        }
+    }
+
+    /**
+     * Charges tokens after the fact without waiting.
+     */
+    public void charge(long permits) {
+        if (this.bucket.getRate() <= 0) {
+            return;
+        }
+        synchronized (this) {
+            this.available -= permits;
+        }
+    }
+
+    private long lease(long requested) {
+        try {
+            return this.bucket.take(requested);
+        } catch (Exception e) {
+            this.log.error("Failed to take tokens from shared rate limiter; falling back to local limit");
+            this.log.error(e);
+            double localRate = (double) Math.max(1, this.bucket.getRate()) / Math.max(1, this.nodeCount.getAsInt());
+            this.readyAt = System.nanoTime() + (long) (requested / localRate * TimeUnit.SECONDS.toNanos(1));
+            return requested;
+        }
+    }
+}
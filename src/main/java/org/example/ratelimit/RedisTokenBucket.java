@@ -0,0 +1,64 @@
+package org.example.ratelimit;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Token bucket shared by every container through a single Redis hash. Refill and take happen atomically in one script
+ * using the Redis server clock, so containers with skewed clocks still share one rate.
+ * <p>
+ * The rate is read on every take so it can be changed at runtime; a rate of 0 leaves the bucket unlimited.
+ */
+public class RedisTokenBucket implements TokenBucket {
+    private final static String TAKE_SCRIPT =
+            "local rate = tonumber(ARGV[1]) " +
+                    "local burst = tonumber(ARGV[2]) " +
+                    "local requested = tonumber(ARGV[3]) " +
+                    "local time = redis.call('TIME') " +
+                    "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+                    "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+                    "local tokens = tonumber(state[1]) or burst " +
+                    "local ts = tonumber(state[2]) or now " +
+                    "tokens = math.min(burst, tokens + math.max(0, now - ts) * rate / 1000) " +
+                    "local granted = math.min(requested, math.floor(tokens)) " +
+                    "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens - granted), 'ts', tostring(now)) " +
+                    "redis.call('PEXPIRE', KEYS[1], math.ceil(burst * 1000 / rate) + 1000) " +
+                    "return granted";
+    private final Supplier<Jedis> jedisSupplier;
+    private final String key;
+    private final LongSupplier rate;
+    private final int burstSeconds;
+
+    public RedisTokenBucket(Supplier<Jedis> jedisSupplier, String key, LongSupplier rate, int burstSeconds) {
+        this.jedisSupplier = jedisSupplier;
+        this.key = key;
+        this.rate = rate;
+        this.burstSeconds = Math.max(1, burstSeconds);
+    }
+
+    @Override
+    public long take(long requested) {
+        long rate = this.getRate();
+        if (rate <= 0) {
+            return requested;
+        }
+        try (Jedis jedis = this.jedisSupplier.get()) {
+            Object granted = jedis.eval(
+                    TAKE_SCRIPT,
+                    1,
+                    this.key,
+                    String.valueOf(rate),
+                    String.valueOf(rate * this.burstSeconds),
+                    String.valueOf(requested)
+            );
+            return granted instanceof Long ? (Long) granted : 0;
+        }
+    }
+
+    @Override
+    public long getRate() {
+        return this.rate.getAsLong();
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.ratelimit;
+
+public interface TokenBucket {
+    /**
+     * Takes up to the requested number of tokens from the bucket without waiting.
+     *
+     * @return the number of tokens granted, between 0 and requested
+     */
+    long take(long requested);
+
+    /**
+     * Number of tokens added to the bucket per second.
+     */
+    long getRate();
+}
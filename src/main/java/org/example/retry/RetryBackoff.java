@@ -0,0 +1,26 @@
+package org.example.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff between retries of a failed file, doubling from the base delay up to the max delay. Each delay
+ * is jittered between half and all of its value, so files which failed together during an outage are not all retried
+ * at the same moment.
+ */
+public class RetryBackoff {
+    private final double baseSeconds;
+    private final double maxSeconds;
+
+    public RetryBackoff(int baseSeconds, int maxSeconds) {
+        this.baseSeconds = Math.max(1, baseSeconds);
+        this.maxSeconds = Math.max(this.baseSeconds, maxSeconds);
+    }
+
+    /**
+     * Returns the seconds to wait before the next attempt of a file which has already been retried retryCount times.
+     */
+    public double getDelaySeconds(int retryCount) {
+        double delay = Math.min(this.maxSeconds, this.baseSeconds * Math.pow(2, Math.min(retryCount, 30)));
+        return delay / 2 + ThreadLocalRandom.current().nextDouble() * delay / 2;
+    }
+}
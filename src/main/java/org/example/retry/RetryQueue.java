@@ -0,0 +1,94 @@
+package org.example.retry;
+
+import org.example.file.MigrationFile;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds claimed retries in memory until their next attempt is due, so retry workers wake up exactly when a file is
+ * due instead of polling the database. Files are ordered by their next attempt date.
+ */
+public class RetryQueue {
+    private final DelayQueue<ScheduledRetry> queue = new DelayQueue<>();
+    private final int capacity;
+
+    public RetryQueue(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Queues claimed files until their next attempt date; files without one are due right away.
+     */
+    public void offer(List<MigrationFile> files) {
+        LocalDateTime now = LocalDateTime.now();
+        long nanos = System.nanoTime();
+        for (MigrationFile file : files) {
+            long delay = file.getNextAttemptDate() != null ? Duration.between(now, file.getNextAttemptDate()).toNanos() : 0;
+            this.queue.add(new ScheduledRetry(file, nanos + delay));
+        }
+    }
+
+    /**
+     * Waits up to the given timeout for a file to become due, then takes up to max due files.
+     * Returns an empty list if none became due in time.
+     */
+    public List<MigrationFile> takeDue(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        ScheduledRetry first = this.queue.poll(timeout, unit);
+        if (first == null) {
+            return List.of();
+        }
+        List<ScheduledRetry> due = new ArrayList<>();
+        due.add(first);
+        this.queue.drainTo(due, max - 1);
+        List<MigrationFile> files = new ArrayList<>(due.size());
+        due.forEach(retry -> files.add(retry.file));
+        return files;
+    }
+
+    /**
+     * Removes and returns every queued file, due or not.
+     */
+    public List<MigrationFile> drain() {
+        List<MigrationFile> files = new ArrayList<>();
+        for (ScheduledRetry retry : this.queue) {
+            if (this.queue.remove(retry)) {
+                files.add(retry.file);
+            }
+        }
+        return files;
+    }
+
+    public int remainingCapacity() {
+        return Math.max(0, this.capacity - this.queue.size());
+    }
+
+    public int size() {
+        return this.queue.size();
+    }
+
+    private static class ScheduledRetry implements Delayed {
+        private final MigrationFile file;
+        private final long dueNanos;
+
+        ScheduledRetry(MigrationFile file, long dueNanos) {
+            this.file = file;
+            this.dueNanos = dueNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(this.dueNanos, ((ScheduledRetry) other).dueNanos);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConsistentHashRingTest {
+    @Test
+    public void testOnlyPartitionsOfRemovedNodeMove() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b"), 64);
+        Map<String, Integer> owned = new HashMap<>();
+        for (int partition = 0; partition < 256; partition++) {
+            String key = "partition-" + partition;
+            String owner = before.getNode(key);
+            owned.merge(owner, 1, Integer::sum);
+            if (!owner.equals("c")) {
+                assertEquals(owner, after.getNode(key));
+            }
+        }
+        for (int count : owned.values()) {
+            // every node gets a reasonable share of the partitions
+            assertTrue(count > 40);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.concurrency;
+
+import org.example.persistence.database.StubDatabase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyControllerTest {
+    @Test
+    public void testBacksOffOnErrorsAndGrowsWhenSaturated() throws Exception {
+        AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(4, 2, 16, () -> 4, 0.5, 0.1, new StubDatabase());
+        for (int i = 0; i < 10; i++) {
+            controller.recordMove(1_000_000, i % 2 == 0);
+        }
+        controller.run();
+        assertEquals(12, controller.getMoveLimit());
+        assertEquals(3, controller.getWorkerLimit());
+
+        // use every available move slot during the interval
+        for (int i = 0; i < 12; i++) {
+            controller.acquireMove();
+        }
+        for (int i = 0; i < 12; i++) {
+            controller.recordMove(1_000_000, true);
+            controller.releaseMove();
+        }
+        controller.run();
+        assertEquals(13, controller.getMoveLimit());
+        assertEquals(4, controller.getWorkerLimit());
+    }
+
+    @Test
+    public void testBacksOffOnLatencyAndParksWorkers() {
+        AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(2, 1, 2, () -> 1, 0.5, 0.1, new StubDatabase());
+        controller.recordMove(1_000_000, true);
+        controller.run();
+        controller.recordMove(10_000_000, true);
+        controller.run();
+        assertEquals(1, controller.getMoveLimit());
+        assertEquals(1, controller.getWorkerLimit());
+        assertTrue(controller.tryAcquireWorker());
+        assertFalse(controller.tryAcquireWorker());
+        controller.releaseWorker();
+        assertTrue(controller.tryAcquireWorker());
+    }
+}
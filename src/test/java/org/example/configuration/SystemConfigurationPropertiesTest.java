@@ -0,0 +1,27 @@
+package org.example.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SystemConfigurationPropertiesTest {
+    @Test
+    public void testOverridesReplaceCachedValues() {
+        SystemConfigurationProperties config = new SystemConfigurationProperties();
+        assertEquals(20, (int) config.getInteger("TEST_JOB_THREADS", 20));
+
+        config.override(Map.of("TEST_JOB_THREADS", "5_000", "TEST_AFTER_HOURS", "true"));
+        assertEquals(5_000, (int) config.getInteger("TEST_JOB_THREADS", 20));
+        assertTrue(config.getBoolean("TEST_AFTER_HOURS", false));
+
+        Map<String, String> removal = new HashMap<>();
+        removal.put("TEST_JOB_THREADS", null);
+        config.override(removal);
+        assertEquals(20, (int) config.getInteger("TEST_JOB_THREADS", 20));
+        assertEquals(Map.of("TEST_AFTER_HOURS", "true"), config.getOverrides());
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.dispatch;
+
+import org.example.file.JobStatus;
+import org.example.file.MigrationRange;
+import org.example.persistence.repository.MigrationRangesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+public class RangeDispatcherTest {
+    @Mock
+    private MigrationRangesRepository rangesRepository;
+
+    @BeforeEach
+    void setup() {
+        openMocks(this);
+    }
+
+    @Test
+    public void testClaimsRangesInBatches() throws Exception {
+        Mockito.when(rangesRepository.claimRanges(3)).thenReturn(List.of(range(1), range(2), range(3)), List.of());
+        RangeDispatcher dispatcher = new RangeDispatcher(rangesRepository, null, 3, 1_800, 5, 0);
+        assertEquals(1, dispatcher.next().getRangeId());
+        assertEquals(2, dispatcher.next().getRangeId());
+        assertEquals(3, dispatcher.next().getRangeId());
+        assertNull(dispatcher.next());
+        // the empty claim is cached, so idle workers do not query again during the cooldown
+        assertNull(dispatcher.next());
+        verify(rangesRepository, times(2)).claimRanges(anyInt());
+    }
+
+    @Test
+    public void testReleasesQueuedRangesOnClose() throws Exception {
+        MigrationRange second = range(2);
+        Mockito.when(rangesRepository.claimRanges(2)).thenReturn(List.of(range(1), second));
+        RangeDispatcher dispatcher = new RangeDispatcher(rangesRepository, null, 2, 1_800, 5, 0);
+        assertEquals(1, dispatcher.next().getRangeId());
+        dispatcher.close();
+        verify(rangesRepository, times(1)).releaseRanges(List.of(second));
+        assertNull(dispatcher.next());
+        verify(rangesRepository, times(1)).claimRanges(anyInt());
+    }
+
+    private static MigrationRange range(int rangeId) {
+        return new MigrationRange(rangeId, rangeId * 100, rangeId * 100 + 99, 0, JobStatus.PROCESSING, LocalDateTime.now());
+    }
+}
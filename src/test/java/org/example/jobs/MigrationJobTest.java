@@ -1,25 +1,39 @@
 package org.example.jobs;
 
 import org.example.BackoffCounter;
+import org.example.concurrency.AdaptiveConcurrencyController;
 import org.example.configuration.ConfigurationProperties;
+import org.example.control.NodeControl;
+import org.example.dispatch.RangeDispatcher;
+import org.example.exception.MigrationException;
 import org.example.file.JobStatus;
+import org.example.file.MigrationFile;
 import org.example.file.MigrationRange;
+import org.example.file.MigrationStatus;
+import org.example.file.SourceFile;
 import org.example.lock.Lock;
 import org.example.mover.FileMover;
+import org.example.mover.MoveResult;
 import org.example.persistence.repository.FilesRepository;
-import org.example.persistence.repository.MigrationFilesRepository;
-import org.example.persistence.repository.MigrationRangesRepository;
+import org.example.persistence.sink.ResultSink;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.openMocks;
@@ -30,31 +44,42 @@ public class MigrationJobTest {
     @Mock
     private ScheduledExecutorService scheduler;
     @Mock
-    private MigrationRangesRepository rangesRepository;
+    private RangeDispatcher rangeDispatcher;
     @Mock
-    private MigrationFilesRepository migrationFilesRepository;
+    private ResultSink resultSink;
     @Mock
     private FilesRepository filesRepository;
     @Mock
     private FileMover fileMover;
     @Mock
+    private ExecutorService moveExecutor;
+    @Mock
+    private AdaptiveConcurrencyController concurrencyController;
+    @Mock
     private Lock lock;
     @Mock
     private BackoffCounter lockCounter;
 
     @BeforeEach
-    void setup() {
+    void setup() throws Exception {
         openMocks(this);
+        Mockito.when(concurrencyController.tryAcquireWorker()).thenReturn(true);
+        Mockito.when(rangeDispatcher.getMaxId(any(MigrationRange.class))).thenAnswer(invocation -> {
+            MigrationRange range = invocation.getArgument(0);
+            return range.getMaxId();
+        });
     }
 
     @Test
     public void testCannotAcquireLock() throws Exception {
         Mockito.when(config.getBoolean(eq("ENABLE_JOB"), anyBoolean())).thenReturn(true);
         Mockito.when(config.getBoolean(eq("AFTER_HOURS"), anyBoolean())).thenReturn(false);
-        Mockito.when(rangesRepository.pickRange()).thenReturn(new MigrationRange(
+        Mockito.when(config.getBoolean(eq("ENABLE_RANGE_LOCKING"), anyBoolean())).thenReturn(true);
+        Mockito.when(rangeDispatcher.next()).thenReturn(new MigrationRange(
                 1,
                 1,
                 10,
+                0,
                 JobStatus.PENDING,
                 LocalDateTime.now()
         ));
@@ -65,14 +90,192 @@ public class MigrationJobTest {
                 config,
                 scheduler,
                 new AtomicBoolean(),
-                rangesRepository,
-                migrationFilesRepository,
+                new NodeControl(),
+                rangeDispatcher,
+                resultSink,
                 filesRepository,
                 fileMover,
+                moveExecutor,
+                concurrencyController,
                 lock,
                 lockCounter
         );
         job.run();
         verify(lockCounter, times(1)).increment();
     }
+
+    @Test
+    public void testSkipsLockWhenRangeLockingDisabled() throws Exception {
+        Mockito.when(config.getBoolean(eq("ENABLE_JOB"), anyBoolean())).thenReturn(true);
+        Mockito.when(config.getBoolean(eq("AFTER_HOURS"), anyBoolean())).thenReturn(false);
+        Mockito.when(config.getBoolean(eq("ENABLE_RANGE_LOCKING"), anyBoolean())).thenReturn(false);
+        Mockito.when(rangeDispatcher.next()).thenReturn(new MigrationRange(
+                1,
+                1,
+                10,
+                0,
+                JobStatus.PROCESSING,
+                LocalDateTime.now()
+        ));
+        Mockito.when(filesRepository.getSourceFiles(anyInt(), anyInt(), anyInt())).thenReturn(List.of());
+        MigrationJob job = new MigrationJob(
+                config,
+                scheduler,
+                new AtomicBoolean(),
+                new NodeControl(),
+                rangeDispatcher,
+                resultSink,
+                filesRepository,
+                fileMover,
+                moveExecutor,
+                concurrencyController,
+                lock,
+                lockCounter
+        );
+        job.run();
+        verify(lock, never()).acquireLock(anyString(), any(UUID.class), anyInt());
+        verify(resultSink, times(1)).saveRange(1, JobStatus.COMPLETE);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testParallelMovesKeepSourceOrder() throws Exception {
+        Mockito.when(config.getBoolean(eq("ENABLE_JOB"), anyBoolean())).thenReturn(true);
+        Mockito.when(config.getBoolean(eq("AFTER_HOURS"), anyBoolean())).thenReturn(false);
+        Mockito.when(config.getInteger(eq("MOVE_CONCURRENCY"), anyInt())).thenReturn(4);
+        Mockito.when(config.getInteger(eq("MIGRATION_CHUNK_SIZE"), anyInt())).thenReturn(1_000);
+        Mockito.when(rangeDispatcher.next()).thenReturn(new MigrationRange(
+                1,
+                1,
+                100,
+                0,
+                JobStatus.PROCESSING,
+                LocalDateTime.now()
+        ));
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            sourceFiles.add(new SourceFile(i, "file" + i, "/files/" + i, LocalDateTime.now()));
+        }
+        Mockito.when(filesRepository.getSourceFiles(anyInt(), anyInt(), anyInt())).thenReturn(sourceFiles);
+        Mockito.when(fileMover.move(any(SourceFile.class))).thenAnswer(invocation -> {
+            SourceFile file = invocation.getArgument(0);
+            if (file.getId() % 10 == 0) {
+                throw new MigrationException("Failed to move file");
+            }
+            return new MoveResult("s3://some-bucket/" + file.getId(), 0);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            MigrationJob job = new MigrationJob(
+                    config,
+                    scheduler,
+                    new AtomicBoolean(),
+                    new NodeControl(),
+                    rangeDispatcher,
+                    resultSink,
+                    filesRepository,
+                    fileMover,
+                    executor,
+                    concurrencyController,
+                    lock,
+                    lockCounter
+            );
+            job.run();
+        } finally {
+            executor.shutdown();
+        }
+        ArgumentCaptor<List<MigrationFile>> captor = ArgumentCaptor.forClass(List.class);
+        verify(resultSink, times(1)).save(eq(1), captor.capture());
+        List<MigrationFile> records = captor.getValue();
+        assertEquals(100, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            MigrationFile record = records.get(i);
+            assertEquals(i + 1, record.getId());
+            assertEquals(record.getId() % 10 == 0 ? MigrationStatus.FAIL : MigrationStatus.SUCCESS, record.getStatus());
+        }
+    }
+
+    @Test
+    public void testResumesRangeFromCheckpoint() throws Exception {
+        Mockito.when(config.getBoolean(eq("ENABLE_JOB"), anyBoolean())).thenReturn(true);
+        Mockito.when(config.getBoolean(eq("AFTER_HOURS"), anyBoolean())).thenReturn(false);
+        Mockito.when(config.getInteger(eq("MIGRATION_CHUNK_SIZE"), anyInt())).thenReturn(2);
+        Mockito.when(rangeDispatcher.next()).thenReturn(new MigrationRange(
+                1,
+                1,
+                100,
+                50,
+                JobStatus.PROCESSING,
+                LocalDateTime.now()
+        ));
+        Mockito.when(filesRepository.getSourceFiles(50, 100, 2)).thenReturn(List.of(
+                new SourceFile(51, "file51", "/files/51", LocalDateTime.now()),
+                new SourceFile(52, "file52", "/files/52", LocalDateTime.now())
+        ));
+        Mockito.when(filesRepository.getSourceFiles(52, 100, 2)).thenReturn(List.of(
+                new SourceFile(53, "file53", "/files/53", LocalDateTime.now())
+        ));
+        Mockito.when(fileMover.move(any(SourceFile.class))).thenReturn(new MoveResult("s3://some-bucket/file", 0));
+        MigrationJob job = new MigrationJob(
+                config,
+                scheduler,
+                new AtomicBoolean(),
+                new NodeControl(),
+                rangeDispatcher,
+                resultSink,
+                filesRepository,
+                fileMover,
+                moveExecutor,
+                concurrencyController,
+                lock,
+                lockCounter
+        );
+        job.run();
+        verify(filesRepository, never()).getSourceFiles(eq(0), anyInt(), anyInt());
+        verify(resultSink, times(1)).saveCheckpoint(1, 52);
+        verify(resultSink, times(1)).saveCheckpoint(1, 53);
+        verify(resultSink, times(1)).saveRange(1, JobStatus.COMPLETE);
+    }
+
+    @Test
+    public void testStopsAtUpperBoundOfSplitRange() throws Exception {
+        Mockito.when(config.getBoolean(eq("ENABLE_JOB"), anyBoolean())).thenReturn(true);
+        Mockito.when(config.getBoolean(eq("AFTER_HOURS"), anyBoolean())).thenReturn(false);
+        Mockito.when(config.getInteger(eq("MIGRATION_CHUNK_SIZE"), anyInt())).thenReturn(2);
+        MigrationRange range = new MigrationRange(
+                1,
+                1,
+                100,
+                0,
+                JobStatus.PROCESSING,
+                LocalDateTime.now()
+        );
+        Mockito.when(rangeDispatcher.next()).thenReturn(range);
+        // another worker splits off ids 3 to 100 after the first page
+        Mockito.when(rangeDispatcher.getMaxId(range)).thenReturn(100, 2);
+        Mockito.when(filesRepository.getSourceFiles(0, 100, 2)).thenReturn(List.of(
+                new SourceFile(1, "file1", "/files/1", LocalDateTime.now()),
+                new SourceFile(2, "file2", "/files/2", LocalDateTime.now())
+        ));
+        Mockito.when(filesRepository.getSourceFiles(2, 2, 2)).thenReturn(List.of());
+        Mockito.when(fileMover.move(any(SourceFile.class))).thenReturn(new MoveResult("s3://some-bucket/file", 0));
+        MigrationJob job = new MigrationJob(
+                config,
+                scheduler,
+                new AtomicBoolean(),
+                new NodeControl(),
+                rangeDispatcher,
+                resultSink,
+                filesRepository,
+                fileMover,
+                moveExecutor,
+                concurrencyController,
+                lock,
+                lockCounter
+        );
+        job.run();
+        verify(filesRepository, never()).getSourceFiles(eq(2), eq(100), anyInt());
+        verify(resultSink, times(1)).saveCheckpoint(1, 2);
+        verify(resultSink, times(1)).saveRange(1, JobStatus.COMPLETE);
+    }
 }
@@ -0,0 +1,43 @@
+package org.example.jobs;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RunWindowTest {
+    private final RunWindow nightly = new RunWindow(false, LocalTime.of(22, 0), LocalTime.of(6, 0));
+
+    @Test
+    public void testNightlyWindowIsOpenAfterHoursAndOnWeekends() {
+        // 2026-10-14 is a Wednesday
+        assertTrue(this.nightly.isOpen(at(2026, 10, 14, 23, 0)));
+        assertTrue(this.nightly.isOpen(at(2026, 10, 15, 5, 59)));
+        assertFalse(this.nightly.isOpen(at(2026, 10, 14, 12, 0)));
+        assertTrue(this.nightly.isOpen(at(2026, 10, 17, 12, 0)));
+        assertEquals(at(2026, 10, 14, 22, 0), this.nightly.nextOpen(at(2026, 10, 14, 12, 0)));
+    }
+
+    @Test
+    public void testProjectionSkipsClosedHours() {
+        // 8 hours on Wednesday night, the remaining 2 on Thursday night
+        assertEquals(at(2026, 10, 16, 0, 0), this.nightly.project(at(2026, 10, 14, 12, 0), 10 * 3600));
+        // 1 hour on Friday night, then the weekend runs around the clock
+        assertEquals(at(2026, 10, 18, 15, 0), this.nightly.project(at(2026, 10, 16, 23, 0), 40 * 3600));
+    }
+
+    @Test
+    public void testProjectionWithoutWindow() {
+        RunWindow always = new RunWindow(true, LocalTime.of(22, 0), LocalTime.of(6, 0));
+        assertEquals(at(2026, 10, 15, 0, 0), always.project(at(2026, 10, 14, 12, 0), 12 * 3600));
+    }
+
+    private static ZonedDateTime at(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(RunWindow.ET_ZONE);
+    }
+}
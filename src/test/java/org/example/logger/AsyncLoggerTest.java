@@ -0,0 +1,60 @@
+package org.example.logger;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncLoggerTest {
+    @Test
+    public void testWritesFormattedMessagesAndSuppressesRepeatedErrors() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AsyncLogWriter writer = new AsyncLogWriter(new PrintStream(out), new PrintStream(err), LogLevel.INFO, 64, 2, 60);
+        Logger log = new AsyncLogger("test", writer);
+
+        log.debug("hidden %d", 1);
+        log.info("Processed %d records", 42);
+        for (int i = 0; i < 5; i++) {
+            log.error("Failed to migrate file %s:", "file-" + i);
+        }
+        writer.close();
+
+        String info = out.toString();
+        assertTrue(info.contains("test: Processed 42 records"));
+        assertFalse(info.contains("hidden"));
+        String errors = err.toString();
+        assertTrue(errors.contains("Failed to migrate file file-0:"));
+        assertTrue(errors.contains("Failed to migrate file file-1:"));
+        assertFalse(errors.contains("file-2"));
+        assertTrue(errors.contains("Suppressed 3 repeats of: Failed to migrate file %s:"));
+    }
+
+    @Test
+    public void testDropsMessagesWhenBufferIsFull() {
+        // a console that takes a millisecond per line, so the writer cannot keep up with a tight logging loop
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                super.write(bytes, offset, length);
+            }
+        };
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AsyncLogWriter writer = new AsyncLogWriter(new PrintStream(out), new PrintStream(err), LogLevel.INFO, 2, 0, 60);
+        Logger log = new AsyncLogger("test", writer);
+        for (int i = 0; i < 10_000; i++) {
+            log.info("message %d", i);
+        }
+        writer.close();
+        long written = out.toString().lines().filter(line -> line.contains("message")).count();
+        assertTrue(written > 0);
+        assertTrue(written < 10_000, "written: " + written);
+        assertTrue(err.toString().contains("Dropped"), err.toString());
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsRegistryTest {
+    @Test
+    public void testScrapesPrometheusTextFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter moves = registry.counter("moves_total", "Files moved", "result", "success");
+        assertSame(moves, registry.counter("moves_total", "Files moved", "result", "success"));
+        moves.add(3);
+        Histogram latency = registry.histogram("move_seconds", "Move latency", new double[]{0.01, 1}, "pool", "main");
+        latency.observeNanos(5_000_000);
+        latency.observeNanos(2_000_000_000L);
+        registry.gauge("limit", "Current limit", () -> 4);
+
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("# TYPE moves_total counter\nmoves_total{result=\"success\"} 3\n"));
+        assertTrue(scrape.contains("move_seconds_bucket{pool=\"main\",le=\"0.01\"} 1\n"));
+        assertTrue(scrape.contains("move_seconds_bucket{pool=\"main\",le=\"1.0\"} 1\n"));
+        assertTrue(scrape.contains("move_seconds_bucket{pool=\"main\",le=\"+Inf\"} 2\n"));
+        assertTrue(scrape.contains("move_seconds_count{pool=\"main\"} 2\n"));
+        assertTrue(scrape.contains("limit 4.0\n"));
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.mover;
+
+import org.example.circuit.CircuitBreaker;
+import org.example.exception.CircuitOpenException;
+import org.example.exception.Endpoint;
+import org.example.exception.FailureType;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakingFileMoverTest {
+    private final SourceFile file = new SourceFile(1, "file", "/files/1", LocalDateTime.now());
+
+    @Test
+    public void testOpensAfterConsecutiveEndpointFailuresAndClosesAfterTrial() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<FailureType> failure = new AtomicReference<>(FailureType.TRANSIENT);
+        CircuitBreaker destination = new CircuitBreaker("destination", 3, 1);
+        FileMover mover = new CircuitBreakingFileMover(sourceFile -> {
+            calls.incrementAndGet();
+            if (failure.get() != null) {
+                throw new MigrationException("failed", failure.get(), Endpoint.DESTINATION);
+            }
+            return new MoveResult("/migrated/1", 0);
+        }, new CircuitBreaker("source", 3, 1), destination);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(MigrationException.class, () -> mover.move(this.file));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, destination.getState());
+        CircuitOpenException open = assertThrows(CircuitOpenException.class, () -> mover.move(this.file));
+        assertEquals(Endpoint.DESTINATION, open.getEndpoint());
+        assertTrue(open.getRetryAfterSeconds() >= 1);
+        assertEquals(3, calls.get());
+
+        Thread.sleep(1_100);
+        failure.set(null);
+        mover.move(this.file);
+        assertEquals(CircuitBreaker.State.CLOSED, destination.getState());
+    }
+
+    @Test
+    public void testUncheckedTrialFailureReleasesTrial() throws Exception {
+        AtomicReference<RuntimeException> unchecked = new AtomicReference<>();
+        CircuitBreaker destination = new CircuitBreaker("destination", 1, 1);
+        FileMover mover = new CircuitBreakingFileMover(sourceFile -> {
+            if (unchecked.get() != null) {
+                throw unchecked.get();
+            }
+            throw new MigrationException("failed", FailureType.TRANSIENT, Endpoint.DESTINATION);
+        }, new CircuitBreaker("source", 1, 1), destination);
+
+        assertThrows(MigrationException.class, () -> mover.move(this.file));
+        assertEquals(CircuitBreaker.State.OPEN, destination.getState());
+        Thread.sleep(1_100);
+        unchecked.set(new IllegalStateException("bug"));
+        assertThrows(IllegalStateException.class, () -> mover.move(this.file));
+        // the trial was released, so the next move becomes the trial instead of waiting on the lost one
+        assertEquals(0, destination.tryAcquire());
+    }
+
+    @Test
+    public void testFileFailuresDoNotOpenBreaker() {
+        CircuitBreaker source = new CircuitBreaker("source", 2, 30);
+        FileMover mover = new CircuitBreakingFileMover(sourceFile -> {
+            throw new MigrationException("missing", FailureType.NOT_FOUND, Endpoint.SOURCE);
+        }, source, new CircuitBreaker("destination", 2, 30));
+
+        for (int i = 0; i < 5; i++) {
+            MigrationException e = assertThrows(MigrationException.class, () -> mover.move(this.file));
+            assertEquals(FailureType.NOT_FOUND, e.getType());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, source.getState());
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.mover;
+
+import org.example.file.SourceFile;
+import org.example.persistence.repository.ContentIndexRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class DeduplicatingFileMoverTest {
+    private final Map<String, String> index = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> sizes = new ConcurrentHashMap<>();
+    private Path sourceRoot;
+    private Path destinationRoot;
+    private DeduplicatingFileMover mover;
+
+    @BeforeEach
+    void setup() throws IOException {
+        this.sourceRoot = Files.createTempDirectory("source");
+        this.destinationRoot = Files.createTempDirectory("destination");
+        SourceStore sourceStore = new FileSystemSourceStore(this.sourceRoot);
+        ContentIndexRepository contentIndex = new ContentIndexRepository() {
+            @Override
+            public boolean hasSize(long size) {
+                return sizes.containsKey(size);
+            }
+
+            @Override
+            public String find(String contentHash) {
+                return index.get(contentHash);
+            }
+
+            @Override
+            public void save(String contentHash, long size, String uri) {
+                sizes.put(size, true);
+                index.putIfAbsent(contentHash, uri);
+            }
+        };
+        this.mover = new DeduplicatingFileMover(
+                new FileSystemFileMover(sourceStore, new BufferPool(8 * 1024, 4), this.destinationRoot),
+                sourceStore,
+                contentIndex,
+                1
+        );
+    }
+
+    @Test
+    public void testDuplicateContentReusesDestination() throws Exception {
+        byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        this.writeSource("original", content);
+        this.writeSource("duplicate", content);
+        MoveResult original = this.mover.move(new SourceFile(1, "original.pdf", "/files/original", LocalDateTime.now()));
+        MoveResult duplicate = this.mover.move(new SourceFile(2, "duplicate.pdf", "/files/duplicate", LocalDateTime.now()));
+        assertEquals(content.length, original.getBytes());
+        assertEquals(0, duplicate.getBytes());
+        assertEquals(original.getUri(), duplicate.getUri());
+        assertEquals(original.getContentHash(), duplicate.getContentHash());
+        assertFalse(Files.exists(this.destinationRoot.resolve("files/2")));
+    }
+
+    @Test
+    public void testSameSizeDifferentContentIsTransferred() throws Exception {
+        byte[] first = new byte[100_000];
+        byte[] second = new byte[100_000];
+        new Random(1).nextBytes(first);
+        new Random(2).nextBytes(second);
+        this.writeSource("first", first);
+        this.writeSource("second", second);
+        this.mover.move(new SourceFile(1, "first.pdf", "/files/first", LocalDateTime.now()));
+        MoveResult result = this.mover.move(new SourceFile(2, "second.pdf", "/files/second", LocalDateTime.now()));
+        assertEquals(second.length, result.getBytes());
+        assertEquals(this.destinationRoot.resolve("files/2").toUri().toString(), result.getUri());
+    }
+
+    private void writeSource(String name, byte[] content) throws IOException {
+        Path file = this.sourceRoot.resolve("files").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+}
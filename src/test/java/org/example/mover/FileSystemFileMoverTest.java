@@ -0,0 +1,93 @@
+package org.example.mover;
+
+import org.example.circuit.CircuitBreaker;
+import org.example.exception.Endpoint;
+import org.example.exception.FailureType;
+import org.example.exception.MigrationException;
+import org.example.file.MigrationStatus;
+import org.example.file.SourceFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileSystemFileMoverTest {
+    private final SourceFile file = new SourceFile(1, "file", "/files/1", LocalDateTime.now());
+    private Path sourceRoot;
+    private Path destinationRoot;
+
+    @BeforeEach
+    void setup() throws IOException {
+        this.sourceRoot = Files.createTempDirectory("source");
+        this.destinationRoot = Files.createTempDirectory("destination");
+        Files.createDirectories(this.sourceRoot.resolve("files"));
+        Files.write(this.sourceRoot.resolve("files/1"), new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testFileRoundTrip() throws Exception {
+        byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        Files.write(this.sourceRoot.resolve("files/1"), content);
+        FileSystemFileMover mover = this.mover(this.destinationRoot);
+        mover.setHashContent(true);
+        mover.setVerifyChecksums(true);
+
+        MoveResult result = mover.move(this.file);
+
+        Path target = this.destinationRoot.resolve("files/1");
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(target.toUri().toString(), result.getUri());
+        assertEquals(content.length, result.getBytes());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), result.getContentHash());
+        CRC32C checksum = new CRC32C();
+        checksum.update(content);
+        assertEquals(String.format("%08x", checksum.getValue()), result.getChecksum());
+        assertFalse(Files.exists(this.destinationRoot.resolve("files/1.part")));
+    }
+
+    @Test
+    public void testSourceOutsideTheRootIsRejected() throws Exception {
+        Files.write(this.sourceRoot.getParent().resolve("outside"), new byte[]{1});
+        SourceFile escaping = new SourceFile(2, "outside", "/../outside", LocalDateTime.now());
+
+        MigrationException e = assertThrows(MigrationException.class, () -> this.mover(this.destinationRoot).move(escaping));
+        assertEquals(FailureType.PERMANENT, e.getType());
+        assertEquals(Endpoint.SOURCE, e.getEndpoint());
+        assertFalse(Files.exists(this.destinationRoot.resolve("files/2")));
+    }
+
+    @Test
+    public void testMissingDestinationRootIsRetriedAndTripsTheDestinationBreaker() throws Exception {
+        CircuitBreaker destination = new CircuitBreaker("destination", 2, 60);
+        FileMover mover = new CircuitBreakingFileMover(
+                this.mover(this.destinationRoot.resolve("unmounted")),
+                new CircuitBreaker("source", 2, 60),
+                destination
+        );
+
+        MigrationException e = assertThrows(MigrationException.class, () -> mover.move(this.file));
+        assertEquals(FailureType.TRANSIENT, e.getType());
+        assertEquals(Endpoint.DESTINATION, e.getEndpoint());
+        assertEquals(MigrationStatus.FAIL, MigrationStatus.of(e.getType()));
+        assertThrows(MigrationException.class, () -> mover.move(this.file));
+        assertEquals(CircuitBreaker.State.OPEN, destination.getState());
+        assertFalse(Files.exists(this.destinationRoot.resolve("unmounted")));
+    }
+
+    private FileSystemFileMover mover(Path destinationRoot) {
+        return new FileSystemFileMover(new FileSystemSourceStore(this.sourceRoot), new BufferPool(1024, 2), destinationRoot);
+    }
+}
@@ -0,0 +1,308 @@
+package org.example.mover;
+
+import org.example.exception.Endpoint;
+import org.example.exception.FailureType;
+import org.example.exception.MigrationException;
+import org.example.file.SourceFile;
+import org.example.file.Transfer;
+import org.example.file.TransferPart;
+import org.example.objectstore.LocalObjectStore;
+import org.example.persistence.repository.TransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpObjectStoreFileMoverTest {
+    private Path sourceRoot;
+    private Path storeRoot;
+    private LocalObjectStore store;
+    private ExecutorService partExecutor;
+
+    @BeforeEach
+    void setup() throws IOException {
+        this.sourceRoot = Files.createTempDirectory("source");
+        this.storeRoot = Files.createTempDirectory("store");
+        this.store = new LocalObjectStore(this.storeRoot, 0, 8);
+        this.store.start();
+        this.partExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void teardown() {
+        this.store.stop();
+        this.partExecutor.shutdown();
+    }
+
+    @Test
+    public void testMultipartTransferAssemblesParts() throws Exception {
+        byte[] content = this.writeSource("large", 1_000_003);
+        HttpObjectStoreFileMover mover = this.createMover();
+        MoveResult result = mover.move(new SourceFile(7, "large.pdf", "/files/large", LocalDateTime.now()));
+        assertEquals(content.length, result.getBytes());
+        assertArrayEquals(content, Files.readAllBytes(this.storeRoot.resolve("bucket/files/7")));
+    }
+
+    @Test
+    public void testFailedPartIsRetriedOnItsOwn() throws Exception {
+        byte[] content = this.writeSource("flaky", 1_000_003);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger partTwoFailures = new AtomicInteger();
+        HttpObjectStoreFileMover mover = new HttpObjectStoreFileMover(
+                new FileSystemSourceStore(this.sourceRoot),
+                new BufferPool(64 * 1024, 8),
+                "http://localhost:" + this.store.getPort(),
+                "bucket",
+                5_000,
+                new MultipartSettings(100_000, 100_000, 4, 3, this.partExecutor)
+        ) {
+            @Override
+            protected String uploadPart(String objectUrl, String uploadId, int partNumber, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+                attempts.incrementAndGet();
+                if (partNumber == 2 && partTwoFailures.getAndIncrement() == 0) {
+                    throw new IOException("Connection reset");
+                }
+                return super.uploadPart(objectUrl, uploadId, partNumber, source, position, length, digest, checksum);
+            }
+        };
+        mover.move(new SourceFile(8, "flaky.pdf", "/files/flaky", LocalDateTime.now()));
+        // 11 parts plus a single retry of part 2
+        assertEquals(12, attempts.get());
+        assertArrayEquals(content, Files.readAllBytes(this.storeRoot.resolve("bucket/files/8")));
+    }
+
+    @Test
+    public void testFailedUploadResumesFromCommittedParts() throws Exception {
+        byte[] content = this.writeSource("resumable", 1_000_003);
+        InMemoryTransferRepository transfers = new InMemoryTransferRepository();
+        AtomicInteger attempts = new AtomicInteger();
+        HttpObjectStoreFileMover failing = new HttpObjectStoreFileMover(
+                new FileSystemSourceStore(this.sourceRoot),
+                new BufferPool(64 * 1024, 8),
+                "http://localhost:" + this.store.getPort(),
+                "bucket",
+                5_000,
+                new MultipartSettings(100_000, 100_000, 1, 3, this.partExecutor)
+        ) {
+            @Override
+            protected String uploadPart(String objectUrl, String uploadId, int partNumber, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+                if (partNumber == 9) {
+                    throw new IOException("Connection reset");
+                }
+                return super.uploadPart(objectUrl, uploadId, partNumber, source, position, length, digest, checksum);
+            }
+        };
+        failing.setTransferRepository(transfers);
+        failing.setVerifyChecksums(true);
+        SourceFile file = new SourceFile(11, "resumable.pdf", "/files/resumable", LocalDateTime.now());
+        assertThrows(MigrationException.class, () -> failing.move(file));
+        assertEquals(8, transfers.find(11).getParts().size());
+
+        HttpObjectStoreFileMover resuming = new HttpObjectStoreFileMover(
+                new FileSystemSourceStore(this.sourceRoot),
+                new BufferPool(64 * 1024, 8),
+                "http://localhost:" + this.store.getPort(),
+                "bucket",
+                5_000,
+                new MultipartSettings(100_000, 100_000, 4, 3, this.partExecutor)
+        ) {
+            @Override
+            protected String uploadPart(String objectUrl, String uploadId, int partNumber, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+                attempts.incrementAndGet();
+                return super.uploadPart(objectUrl, uploadId, partNumber, source, position, length, digest, checksum);
+            }
+        };
+        resuming.setTransferRepository(transfers);
+        resuming.setVerifyChecksums(true);
+        MoveResult result = resuming.move(file);
+        // only parts 9 to 11 are uploaded again
+        assertEquals(3, attempts.get());
+        assertTrue(result.getChecksum().endsWith("-11"));
+        assertArrayEquals(content, Files.readAllBytes(this.storeRoot.resolve("bucket/files/11")));
+        assertNull(transfers.find(11));
+    }
+
+    @Test
+    public void testResumeUploadsPartsWhoseStoredChecksumChanged() throws Exception {
+        byte[] content = this.writeSource("replaced", 1_000_003);
+        InMemoryTransferRepository transfers = new InMemoryTransferRepository();
+        AtomicInteger attempts = new AtomicInteger();
+        HttpObjectStoreFileMover failing = new HttpObjectStoreFileMover(
+                new FileSystemSourceStore(this.sourceRoot),
+                new BufferPool(64 * 1024, 8),
+                "http://localhost:" + this.store.getPort(),
+                "bucket",
+                5_000,
+                new MultipartSettings(100_000, 100_000, 1, 3, this.partExecutor)
+        ) {
+            @Override
+            protected String uploadPart(String objectUrl, String uploadId, int partNumber, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+                if (partNumber == 9) {
+                    throw new IOException("Connection reset");
+                }
+                return super.uploadPart(objectUrl, uploadId, partNumber, source, position, length, digest, checksum);
+            }
+        };
+        failing.setTransferRepository(transfers);
+        failing.setVerifyChecksums(true);
+        SourceFile file = new SourceFile(13, "replaced.pdf", "/files/replaced", LocalDateTime.now());
+        assertThrows(MigrationException.class, () -> failing.move(file));
+
+        // part 4 is overwritten with other bytes of the same size, so its ETag (part number and size) is unchanged
+        Path upload = this.storeRoot.resolve(".uploads").resolve(transfers.find(13).getUploadId());
+        byte[] replacement = new byte[100_000];
+        new Random(4).nextBytes(replacement);
+        Files.write(upload.resolve("part-00004"), replacement);
+        CRC32C replacementChecksum = new CRC32C();
+        replacementChecksum.update(replacement);
+        Files.writeString(upload.resolve("part-00004.crc32c"), String.format("%08x", replacementChecksum.getValue()));
+
+        HttpObjectStoreFileMover resuming = new HttpObjectStoreFileMover(
+                new FileSystemSourceStore(this.sourceRoot),
+                new BufferPool(64 * 1024, 8),
+                "http://localhost:" + this.store.getPort(),
+                "bucket",
+                5_000,
+                new MultipartSettings(100_000, 100_000, 4, 3, this.partExecutor)
+        ) {
+            @Override
+            protected String uploadPart(String objectUrl, String uploadId, int partNumber, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+                attempts.incrementAndGet();
+                return super.uploadPart(objectUrl, uploadId, partNumber, source, position, length, digest, checksum);
+            }
+        };
+        resuming.setTransferRepository(transfers);
+        resuming.setVerifyChecksums(true);
+        resuming.move(file);
+        // part 4 is uploaded again along with parts 9 to 11
+        assertEquals(4, attempts.get());
+        assertArrayEquals(content, Files.readAllBytes(this.storeRoot.resolve("bucket/files/13")));
+    }
+
+    @Test
+    public void testMismatchedUploadIsAborted() throws Exception {
+        this.writeSource("mismatched", 1_000_003);
+        InMemoryTransferRepository transfers = new InMemoryTransferRepository();
+        HttpObjectStoreFileMover mover = new HttpObjectStoreFileMover(
+                new FileSystemSourceStore(this.sourceRoot),
+                new BufferPool(64 * 1024, 8),
+                "http://localhost:" + this.store.getPort(),
+                "bucket",
+                5_000,
+                new MultipartSettings(100_000, 100_000, 1, 1, this.partExecutor)
+        ) {
+            @Override
+            protected String uploadPart(String objectUrl, String uploadId, int partNumber, FileChannel source, long position, long length, MessageDigest digest, CRC32C checksum) throws IOException, MigrationException {
+                if (partNumber == 3) {
+                    throw new MigrationException("checksum mismatch", FailureType.MISMATCH, Endpoint.DESTINATION);
+                }
+                return super.uploadPart(objectUrl, uploadId, partNumber, source, position, length, digest, checksum);
+            }
+        };
+        mover.setTransferRepository(transfers);
+        SourceFile file = new SourceFile(12, "mismatched.pdf", "/files/mismatched", LocalDateTime.now());
+        MigrationException e = assertThrows(MigrationException.class, () -> mover.move(file));
+        assertEquals(FailureType.MISMATCH, e.getType());
+        // committed parts may be corrupt, so the session is not kept for the retry
+        assertNull(transfers.find(12));
+    }
+
+    @Test
+    public void testChecksumsAreVerifiedAgainstObjectStore() throws Exception {
+        this.writeSource("small", 50_000);
+        this.writeSource("large", 1_000_003);
+        HttpObjectStoreFileMover mover = this.createMover();
+        mover.setVerifyChecksums(true);
+        MoveResult small = mover.move(new SourceFile(9, "small.pdf", "/files/small", LocalDateTime.now()));
+        assertEquals(8, small.getChecksum().length());
+        MoveResult large = mover.move(new SourceFile(10, "large.pdf", "/files/large", LocalDateTime.now()));
+        assertTrue(large.getChecksum().endsWith("-11"));
+
+        // simulate a byte corrupted in transit by having the store checksum one more byte than it received
+        this.store.stop();
+        this.store = new LocalObjectStore(this.storeRoot, 0, 8) {
+            @Override
+            protected long write(InputStream body, Path target, Checksum checksum) throws IOException {
+                long size = super.write(body, target, checksum);
+                checksum.update(0);
+                return size;
+            }
+        };
+        this.store.start();
+        HttpObjectStoreFileMover corrupted = this.createMover();
+        corrupted.setVerifyChecksums(true);
+        MigrationException e = assertThrows(MigrationException.class, () -> corrupted.move(new SourceFile(9, "small.pdf", "/files/small", LocalDateTime.now())));
+        assertEquals(FailureType.MISMATCH, e.getType());
+    }
+
+    private HttpObjectStoreFileMover createMover() {
+        return new HttpObjectStoreFileMover(
+                new FileSystemSourceStore(this.sourceRoot),
+                new BufferPool(64 * 1024, 8),
+                "http://localhost:" + this.store.getPort(),
+                "bucket",
+                5_000,
+                new MultipartSettings(100_000, 100_000, 4, 3, this.partExecutor)
+        );
+    }
+
+    private static class InMemoryTransferRepository implements TransferRepository {
+        private final Map<Integer, Transfer> transfers = new ConcurrentHashMap<>();
+
+        @Override
+        public Transfer find(int fileId) {
+            return this.transfers.get(fileId);
+        }
+
+        @Override
+        public void start(Transfer transfer) {
+            this.transfers.put(transfer.getFileId(), transfer);
+        }
+
+        @Override
+        public synchronized void savePart(int fileId, TransferPart part) {
+            this.transfers.get(fileId).getParts().add(part);
+        }
+
+        @Override
+        public void delete(int fileId) {
+            this.transfers.remove(fileId);
+        }
+
+        @Override
+        public List<Transfer> findAbandoned(int staleMinutes, int limit) {
+            return List.copyOf(this.transfers.values());
+        }
+    }
+
+    private byte[] writeSource(String name, int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        Path file = this.sourceRoot.resolve("files").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        return content;
+    }
+}
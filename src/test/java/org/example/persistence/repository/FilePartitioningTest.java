@@ -0,0 +1,53 @@
+package org.example.persistence.repository;
+
+import org.example.configuration.ConfigurationProperties;
+import org.example.file.MigrationFile;
+import org.example.file.MigrationStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FilePartitioningTest {
+    private final FilePartitioning partitioning = new FilePartitioning(new ConfigurationProperties() {
+        @Override
+        public Integer getInteger(String name, Integer defaultValue) {
+            return "MIGRATION_FILES_PARTITION_SIZE".equals(name) ? 1_000 : defaultValue;
+        }
+
+        @Override
+        public String getString(String name, String defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public Boolean getBoolean(String name, Boolean defaultValue) {
+            return defaultValue;
+        }
+    });
+
+    @Test
+    public void testPartitionBounds() {
+        assertEquals(0, this.partitioning.index(999));
+        assertEquals(1, this.partitioning.index(1_000));
+        assertEquals(2_000, this.partitioning.lower(2));
+        assertEquals(2_999, this.partitioning.upper(2));
+        assertEquals("migration_files_p2", this.partitioning.table(2));
+    }
+
+    @Test
+    public void testRecordsAreGroupedInPartitionOrder() {
+        Map<Integer, List<MigrationFile>> groups = this.partitioning.group(List.of(file(2_500), file(10), file(2_001), file(999)));
+        assertEquals(List.of(0, 2), List.copyOf(groups.keySet()));
+        assertEquals(List.of(10, 999), groups.get(0).stream().map(MigrationFile::getId).toList());
+        assertEquals(List.of(2_500, 2_001), groups.get(2).stream().map(MigrationFile::getId).toList());
+    }
+
+    private static MigrationFile file(int id) {
+        LocalDateTime now = LocalDateTime.now();
+        return new MigrationFile(id, "/files/" + id, null, "file" + id, now, MigrationStatus.SUCCESS, 0, now);
+    }
+}
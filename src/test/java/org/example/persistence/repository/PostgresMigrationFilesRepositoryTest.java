@@ -0,0 +1,53 @@
+package org.example.persistence.repository;
+
+import org.example.configuration.ConfigurationProperties;
+import org.example.file.MigrationFile;
+import org.example.file.MigrationStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PostgresMigrationFilesRepositoryTest {
+    private final PostgresMigrationFilesRepository repository = new PostgresMigrationFilesRepository(null, new ConfigurationProperties() {
+        @Override
+        public Integer getInteger(String name, Integer defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public String getString(String name, String defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public Boolean getBoolean(String name, Boolean defaultValue) {
+            return defaultValue;
+        }
+    });
+
+    @Test
+    public void testCopyValuesAreEscaped() {
+        assertEquals("\\N", PostgresMigrationFilesRepository.appendCopyValue(new StringBuilder(), null).toString());
+        assertEquals("", PostgresMigrationFilesRepository.appendCopyValue(new StringBuilder(), "").toString());
+        assertEquals("a\\tb\\nc\\rd\\\\e", PostgresMigrationFilesRepository.appendCopyValue(new StringBuilder(), "a\tb\nc\rd\\e").toString());
+        assertEquals("\\\\N", PostgresMigrationFilesRepository.appendCopyValue(new StringBuilder(), "\\N").toString());
+    }
+
+    @Test
+    public void testCopyTextHasOneLinePerRecordInStagingColumnOrder() {
+        LocalDateTime created = LocalDateTime.of(2026, 1, 2, 3, 4, 5);
+        MigrationFile moved = new MigrationFile(7, "/files/a\tb", "/migrated/7", "a\\b.pdf", created, MigrationStatus.SUCCESS, 0, created);
+        moved.setChecksum("0badf00d");
+        moved.setBytes(42);
+        MigrationFile terminal = new MigrationFile(7, "/files/7", null, null, created, MigrationStatus.TERMINAL, 3, created);
+        String text = this.repository.toCopyText(List.of(moved, terminal));
+        assertEquals(
+                "7\t/files/a\\tb\t/migrated/7\ta\\\\b.pdf\t2026-01-02 03:04:05.0\tSUCCESS\t0\t\\N\t0badf00d\t42\t0\n" +
+                "7\t/files/7\t\\N\t\\N\t2026-01-02 03:04:05.0\tTERMINAL\t3\t\\N\t\\N\t0\t1\n",
+                text
+        );
+    }
+}
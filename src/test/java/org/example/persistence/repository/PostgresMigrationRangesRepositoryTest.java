@@ -0,0 +1,189 @@
+package org.example.persistence.repository;
+
+import org.example.configuration.ConfigurationProperties;
+import org.example.persistence.database.Database;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+/**
+ * Exercises density seeding against an in-memory source_files table served through mocked JDBC objects. Ranges
+ * inserted by the repository only count as seeded once their transaction commits.
+ */
+public class PostgresMigrationRangesRepositoryTest {
+    @Mock
+    private ConfigurationProperties config;
+    @Mock
+    private Database database;
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    private final Map<String, Integer> settings = new HashMap<>();
+    // source_files: file_id -> create_date
+    private final TreeMap<Integer, LocalDateTime> files = new TreeMap<>();
+    private final List<List<Integer>> executed = new ArrayList<>();
+    private final List<List<Integer>> committed = new ArrayList<>();
+    private final AtomicInteger probes = new AtomicInteger();
+
+    @BeforeEach
+    void setup() throws Exception {
+        openMocks(this);
+        Mockito.when(config.getString(anyString(), any())).thenAnswer(invocation -> "SEED_MODE".equals(invocation.getArgument(0)) ? "DENSITY" : invocation.getArgument(1));
+        Mockito.when(config.getInteger(anyString(), any())).thenAnswer(invocation -> this.settings.getOrDefault(invocation.<String>getArgument(0), invocation.getArgument(1)));
+        Mockito.when(config.getBoolean(anyString(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        Mockito.when(database.getDataSource()).thenReturn(dataSource);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        Mockito.when(connection.prepareStatement(anyString())).thenAnswer(invocation -> this.statement(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            this.committed.addAll(this.executed);
+            this.executed.clear();
+            return null;
+        }).when(connection).commit();
+        doAnswer(invocation -> {
+            this.executed.clear();
+            return null;
+        }).when(connection).rollback();
+        this.settings.put("BATCH_SIZE", 10);
+    }
+
+    @Test
+    public void testSeedingStartsAtTheFirstFileOnTheRetentionBoundary() throws Exception {
+        this.settings.put("RETENTION_PERIOD", 10 * 24 * 60);
+        LocalDateTime minDate = LocalDate.now().minusDays(10).atStartOfDay();
+        // ids 2..200 with gaps; ids up to 100 are a second too old, 102 was created exactly on the boundary
+        for (int id = 2; id <= 200; id += 2) {
+            this.files.put(id, id <= 100 ? minDate.minusSeconds(1) : minDate);
+        }
+
+        assertFalse(this.repository().seedRanges(true));
+
+        assertEquals(List.of(102, 120), this.committed.get(0));
+        assertEquals(5, this.committed.size());
+        assertEquals(List.of(181, 200), this.committed.get(4));
+        // a binary search over 200 ids, not a scan
+        assertTrue(this.probes.get() <= 12, "probes: " + this.probes.get());
+    }
+
+    @Test
+    public void testWalkEndsWithPartialLastRange() throws Exception {
+        this.settings.put("SEED_COMMIT_SIZE", 2);
+        for (int id = 1; id <= 25; id++) {
+            this.files.put(id, LocalDateTime.now());
+        }
+
+        assertFalse(this.repository().seedRanges(true));
+
+        assertEquals(List.of(List.of(1, 10), List.of(11, 20), List.of(21, 25)), this.committed);
+        assertTrue(this.executed.isEmpty());
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    public void testWalkResumesAfterDeadline() throws Exception {
+        // every run stops after its first range
+        this.settings.put("SEED_MAX_DURATION", 0);
+        for (int id = 1; id <= 25; id++) {
+            this.files.put(id, LocalDateTime.now());
+        }
+        PostgresMigrationRangesRepository repository = this.repository();
+
+        assertTrue(repository.seedRanges(true));
+        assertEquals(List.of(List.of(1, 10)), this.committed);
+        assertTrue(repository.seedRanges(false));
+        assertEquals(List.of(List.of(1, 10), List.of(11, 20)), this.committed);
+        assertFalse(repository.seedRanges(false));
+        assertEquals(List.of(List.of(1, 10), List.of(11, 20), List.of(21, 25)), this.committed);
+        assertFalse(repository.seedRanges(false));
+        assertEquals(3, this.committed.size());
+    }
+
+    private PostgresMigrationRangesRepository repository() {
+        return new PostgresMigrationRangesRepository(this.database, this.config);
+    }
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        Map<Integer, Long> parameters = new HashMap<>();
+        List<List<Integer>> batch = new ArrayList<>();
+        doAnswer(invocation -> parameters.put(invocation.getArgument(0), (long) invocation.<Integer>getArgument(1))).when(statement).setInt(anyInt(), anyInt());
+        doAnswer(invocation -> parameters.put(invocation.getArgument(0), invocation.<Long>getArgument(1))).when(statement).setLong(anyInt(), anyLong());
+        doAnswer(invocation -> batch.add(List.of(parameters.get(1).intValue(), parameters.get(2).intValue()))).when(statement).addBatch();
+        Mockito.when(statement.executeBatch()).thenAnswer(invocation -> {
+            int[] counts = new int[batch.size()];
+            this.executed.addAll(batch);
+            batch.clear();
+            return counts;
+        });
+        Mockito.when(statement.execute()).thenReturn(true);
+        Mockito.when(statement.executeQuery()).thenAnswer(invocation -> this.query(sql, parameters));
+        return statement;
+    }
+
+    private ResultSet query(String sql, Map<Integer, Long> parameters) throws SQLException {
+        if (sql.contains("OFFSET")) {
+            int skip = parameters.get(2).intValue();
+            Iterator<Integer> ids = this.files.tailMap(parameters.get(1).intValue(), false).keySet().iterator();
+            for (int i = 0; i < skip && ids.hasNext(); i++) {
+                ids.next();
+            }
+            return rows(ids.hasNext() ? List.of(Map.of("file_id", ids.next())) : List.of());
+        }
+        if (sql.contains("file_id >= ?")) {
+            this.probes.incrementAndGet();
+            Map.Entry<Integer, LocalDateTime> file = this.files.ceilingEntry(parameters.get(1).intValue());
+            return rows(file != null ? List.of(Map.of("file_id", file.getKey(), "create_date", Timestamp.valueOf(file.getValue()))) : List.of());
+        }
+        if (sql.contains("ORDER BY file_id DESC")) {
+            return rows(this.files.isEmpty() ? List.of() : List.of(Map.of("file_id", this.files.lastKey())));
+        }
+        if (sql.contains("max(max_id)")) {
+            // max() of no rows is NULL, which getInt reads as 0
+            return rows(List.of(Map.of("max_id", this.committed.stream().mapToInt(range -> range.get(1)).max().orElse(0))));
+        }
+        throw new SQLException("Unexpected query: " + sql);
+    }
+
+    private static ResultSet rows(List<Map<String, Object>> rows) throws SQLException {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        AtomicReference<Map<String, Object>> row = new AtomicReference<>();
+        Mockito.when(resultSet.next()).thenAnswer(invocation -> {
+            row.set(iterator.hasNext() ? iterator.next() : null);
+            return row.get() != null;
+        });
+        Mockito.when(resultSet.getInt(anyString())).thenAnswer(invocation -> (Integer) row.get().get(invocation.<String>getArgument(0)));
+        Mockito.when(resultSet.getTimestamp(anyString())).thenAnswer(invocation -> row.get().get(invocation.<String>getArgument(0)));
+        return resultSet;
+    }
+}
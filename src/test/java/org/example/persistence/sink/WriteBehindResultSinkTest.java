@@ -0,0 +1,63 @@
+package org.example.persistence.sink;
+
+import org.example.file.JobStatus;
+import org.example.file.MigrationFile;
+import org.example.file.MigrationStatus;
+import org.example.persistence.repository.MigrationFilesRepository;
+import org.example.persistence.repository.MigrationRangesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+public class WriteBehindResultSinkTest {
+    @Mock
+    private MigrationFilesRepository migrationFilesRepository;
+    @Mock
+    private MigrationRangesRepository rangesRepository;
+
+    @BeforeEach
+    void setup() {
+        openMocks(this);
+    }
+
+    @Test
+    public void testFlushesResultsBeforeRangeStatus() throws Exception {
+        WriteBehindResultSink sink = new WriteBehindResultSink(migrationFilesRepository, rangesRepository, 1, 16, 16, 10_000);
+        List<MigrationFile> records = List.of(record(10));
+        sink.save(1, records);
+        sink.saveCheckpoint(1, 10);
+        sink.saveRange(1, JobStatus.COMPLETE);
+        sink.close();
+        verify(migrationFilesRepository, times(1)).save(records);
+        verify(rangesRepository, times(1)).saveCheckpoints(Map.of(1, 10));
+        verify(rangesRepository, times(1)).saveRanges(Map.of(1, JobStatus.COMPLETE));
+    }
+
+    @Test
+    public void testDropsCompletionWhenResultsAreLost() throws Exception {
+        Mockito.doThrow(new SQLException("connection lost")).when(migrationFilesRepository).save(anyList());
+        WriteBehindResultSink sink = new WriteBehindResultSink(migrationFilesRepository, rangesRepository, 1, 16, 16, 30_000);
+        sink.save(1, List.of(record(10)));
+        sink.saveCheckpoint(1, 10);
+        sink.saveRange(1, JobStatus.COMPLETE);
+        sink.close();
+        verify(rangesRepository, never()).saveCheckpoints(anyMap());
+        verify(rangesRepository, never()).saveRanges(anyMap());
+    }
+
+    private static MigrationFile record(int id) {
+        return new MigrationFile(id, "/files/" + id, "s3://some-bucket/" + id, "file" + id, LocalDateTime.now(), MigrationStatus.SUCCESS, 0, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.progress;
+
+import org.example.configuration.ConfigurationProperties;
+import org.example.jobs.RunWindow;
+import org.example.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ProgressTrackerTest {
+    private final Map<String, Long> counters = new HashMap<>();
+    private final ProgressTracker tracker = new ProgressTracker(new ConfigurationProperties() {
+        @Override
+        public Integer getInteger(String name, Integer defaultValue) {
+            return "PROGRESS_WINDOW".equals(name) ? 600 : defaultValue;
+        }
+
+        @Override
+        public String getString(String name, String defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public Boolean getBoolean(String name, Boolean defaultValue) {
+            return defaultValue;
+        }
+    }, () -> Map.copyOf(this.counters), new MetricsRegistry());
+
+    @Test
+    public void testIntervalsOutsideTheRunWindowAreExcluded() throws Exception {
+        // 2026-10-14 is a Wednesday; the nightly window closes at 06:00
+        this.counters.put("files:SUCCESS", 0L);
+        this.tracker.sample(at(2026, 10, 14, 5, 55));
+        this.counters.put("files:SUCCESS", 60L);
+        this.tracker.sample(at(2026, 10, 14, 5, 56));
+        assertEquals(1, this.tracker.getFilesPerSecond(), 1e-9);
+
+        // a jump reported across the close (i.e. results flushed late) does not count as throughput
+        this.counters.put("files:SUCCESS", 5_000L);
+        this.tracker.sample(at(2026, 10, 14, 6, 1));
+        assertEquals(1, this.tracker.getFilesPerSecond(), 1e-9);
+    }
+
+    @Test
+    public void testOldSamplesAreEvictedFromTheWindow() throws Exception {
+        ZonedDateTime start = at(2026, 10, 17, 12, 0);
+        this.counters.put("files:SUCCESS", 0L);
+        this.tracker.sample(start);
+        // 10 files/s for the first minute, then 1 file/s
+        this.counters.put("files:SUCCESS", 600L);
+        this.tracker.sample(start.plusMinutes(1));
+        this.counters.put("files:SUCCESS", 1_140L);
+        this.tracker.sample(start.plusMinutes(10));
+        assertEquals(1_140 / 600d, this.tracker.getFilesPerSecond(), 1e-9);
+
+        // the window is 600 seconds, so the first two samples fall out
+        this.counters.put("files:SUCCESS", 1_260L);
+        this.tracker.sample(start.plusMinutes(12));
+        assertEquals(1, this.tracker.getFilesPerSecond(), 1e-9);
+    }
+
+    @Test
+    public void testRemainingFilesAreEstimatedFromCompletedDensity() throws Exception {
+        // every file written counts, whatever its status
+        this.counters.put("files:SUCCESS", 4_000L);
+        this.counters.put("files:FAIL", 600L);
+        this.counters.put("files:TERMINAL", 400L);
+        this.counters.put("range_ids:COMPLETE", 10_000L);
+        this.counters.put("range_ids:PROCESSING", 5_000L);
+        this.counters.put("range_ids:PENDING", 15_000L);
+        ZonedDateTime now = at(2026, 10, 17, 12, 0);
+        this.tracker.sample(now);
+        assertEquals(10_000, this.tracker.getRemainingFiles());
+        assertNull(this.tracker.getCompletion());
+
+        this.counters.put("files:SUCCESS", 4_100L);
+        this.tracker.sample(now.plusSeconds(100));
+        // 20_000 ids left at 5_100 / 10_000 files per id, moving 1 file/s
+        assertEquals(10_200, this.tracker.getRemainingFiles());
+        assertEquals(now.plusSeconds(100 + 10_200), this.tracker.getCompletion());
+
+        this.counters.put("range_ids:COMPLETE", 30_000L);
+        this.counters.put("range_ids:PROCESSING", 0L);
+        this.counters.put("range_ids:PENDING", 0L);
+        this.tracker.sample(now.plusSeconds(200));
+        assertEquals(0, this.tracker.getRemainingFiles());
+        assertEquals(now.plusSeconds(200), this.tracker.getCompletion());
+    }
+
+    @Test
+    public void testArchivingAPartitionKeepsRatesAndRemainingFiles() throws Exception {
+        // 2026-10-17 is a Saturday, so the nightly window is open all day
+        this.counters.put("files:SUCCESS", 5_000L);
+        this.counters.put("bytes", 50_000L);
+        this.counters.put("range_ids:COMPLETE", 10_000L);
+        this.counters.put("range_ids:PENDING", 10_000L);
+        this.tracker.sample(at(2026, 10, 17, 12, 0));
+
+        // 100 more files moved, then a partition holding 4_000 of them was archived
+        this.counters.put("files:SUCCESS", 1_100L);
+        this.counters.put("archived_files:SUCCESS", 4_000L);
+        this.counters.put("bytes", 11_000L);
+        this.counters.put("archived_bytes", 40_000L);
+        this.counters.put("range_ids:COMPLETE", 10_200L);
+        this.counters.put("range_ids:PENDING", 9_800L);
+        this.tracker.sample(at(2026, 10, 17, 12, 1));
+
+        assertEquals(100 / 60d, this.tracker.getFilesPerSecond(), 1e-9);
+        assertEquals(1_000 / 60d, this.tracker.getBytesPerSecond(), 1e-9);
+        assertEquals(Math.round(9_800 * (5_100 / 10_200d)), this.tracker.getRemainingFiles());
+    }
+
+    private static ZonedDateTime at(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(RunWindow.ET_ZONE);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest {
+    @Test
+    public void testLeasesTokensInBatches() throws Exception {
+        List<Long> requests = new ArrayList<>();
+        RateLimiter limiter = new RateLimiter(new TokenBucket() {
+            @Override
+            public long take(long requested) {
+                requests.add(requested);
+                return requested;
+            }
+
+            @Override
+            public long getRate() {
+                return 1_000;
+            }
+        }, 10);
+        for (int i = 0; i < 25; i++) {
+            limiter.acquire(1);
+        }
+        assertEquals(List.of(10L, 10L, 10L), requests);
+    }
+
+    @Test
+    public void testChargedDebtIsRepaidBeforeNextAcquire() throws Exception {
+        List<Long> requests = new ArrayList<>();
+        RateLimiter limiter = new RateLimiter(new TokenBucket() {
+            private long tokens = 0;
+
+            @Override
+            public long take(long requested) {
+                requests.add(requested);
+                // bucket refills 40 tokens per call, so a large debt takes several partial grants
+                this.tokens = Math.min(100, this.tokens + 40);
+                long granted = Math.min(requested, this.tokens);
+                this.tokens -= granted;
+                return granted;
+            }
+
+            @Override
+            public long getRate() {
+                return 100_000;
+            }
+        }, 10);
+        limiter.acquire(0);
+        limiter.charge(100);
+        limiter.acquire(0);
+        assertEquals(List.of(100L, 60L, 20L), requests);
+    }
+
+    @Test
+    public void testWaitingForTokensDoesNotBlockOtherCallers() throws Exception {
+        RateLimiter limiter = new RateLimiter(new TokenBucket() {
+            @Override
+            public long take(long requested) {
+                return 0;
+            }
+
+            @Override
+            public long getRate() {
+                return 1;
+            }
+        }, 1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        long started = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.charge(1);
+            Thread.sleep(50);
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 750);
+        waiter.interrupt();
+        waiter.join();
+    }
+
+    @Test
+    public void testUnreachableBucketFallsBackToThisNodesShareOfTheRate() throws Exception {
+        RateLimiter limiter = new RateLimiter(new TokenBucket() {
+            @Override
+            public long take(long requested) {
+                throw new IllegalStateException("Redis is down");
+            }
+
+            @Override
+            public long getRate() {
+                return 100_000;
+            }
+        }, 10, () -> 4);
+        limiter.charge(50_000);
+        long started = System.nanoTime();
+        limiter.acquire(0);
+        // 50_000 tokens at a quarter of 100_000/s take 2 seconds, well past the 1 second poll interval
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= 1_900);
+    }
+}
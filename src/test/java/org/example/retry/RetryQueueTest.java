@@ -0,0 +1,51 @@
+package org.example.retry;
+
+import org.example.file.MigrationFile;
+import org.example.file.MigrationStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryQueueTest {
+    @Test
+    public void testReleasesFilesOnlyOnceDue() throws InterruptedException {
+        RetryQueue queue = new RetryQueue(10);
+        LocalDateTime now = LocalDateTime.now();
+        queue.offer(List.of(file(1, now.plusHours(1)), file(2, now.minusSeconds(1)), file(3, now.minusSeconds(5))));
+        assertEquals(7, queue.remainingCapacity());
+
+        List<MigrationFile> due = queue.takeDue(10, 100, TimeUnit.MILLISECONDS);
+        assertEquals(2, due.size());
+        assertEquals(3, due.get(0).getId());
+        assertEquals(2, due.get(1).getId());
+        assertTrue(queue.takeDue(10, 50, TimeUnit.MILLISECONDS).isEmpty());
+
+        List<MigrationFile> remaining = queue.drain();
+        assertEquals(1, remaining.size());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testBackoffGrowsWithJitterUpToMax() {
+        RetryBackoff backoff = new RetryBackoff(30, 300);
+        for (int i = 0; i < 100; i++) {
+            double first = backoff.getDelaySeconds(0);
+            assertTrue(first >= 15 && first <= 30);
+            double second = backoff.getDelaySeconds(2);
+            assertTrue(second >= 60 && second <= 120);
+            double capped = backoff.getDelaySeconds(10);
+            assertTrue(capped >= 150 && capped <= 300);
+        }
+    }
+
+    private static MigrationFile file(int id, LocalDateTime nextAttempt) {
+        MigrationFile file = new MigrationFile(id, "/files/" + id, null, "file" + id, LocalDateTime.now(), MigrationStatus.RETRYING, 1, LocalDateTime.now());
+        file.setNextAttemptDate(nextAttempt);
+        return file;
+    }
+}